@@ -17,7 +17,9 @@ public class App extends Application {
 
     public static void main(String[] args) {
         try {
-            CommentRecommenderService.setAllReviewables();
+            CommentRecommenderService recommender = CommentRecommenderService.getInstance();
+            recommender.setAllReviewables();
+            recommender.prepareModel();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -2,12 +2,20 @@ package com.mycompany.irr00_group_project.controllers;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-
+import java.util.Map;
 
 import com.mycompany.irr00_group_project.models.User;
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.models.reviewables.SearchHit;
+import com.mycompany.irr00_group_project.models.reviewables.SearchPage;
 import com.mycompany.irr00_group_project.services.Database;
+import com.mycompany.irr00_group_project.services.SearchMetrics;
+import com.mycompany.irr00_group_project.services.SearchMetrics.Phase;
+import com.mycompany.irr00_group_project.services.SearchResultCache;
+import com.mycompany.irr00_group_project.services.SearchTrace;
 
 /**
  * SearchController handles the search functionality for reviewable items in the
@@ -16,17 +24,43 @@ import com.mycompany.irr00_group_project.services.Database;
  */
 public class SearchController {
 
+    private static final int RESULT_CACHE_CAPACITY = 256;
+
     private List<Reviewable> searchResultReviewables;
     private List<User> searchResultUsers;
     private static SearchController instance;
+    private final SearchResultCache<SearchHit> resultCache;
+
+    /**
+     * The hydrated first page of every reviewable type.
+     *
+     * @param reviewables The results, top result first.
+     * @param nextCursors The cursor of the next page of every type that has more results.
+     */
+    public record TopResults(List<Reviewable> reviewables,
+        Map<ReviewableType, String> nextCursors) {
+    }
+
+    /**
+     * One hydrated page of results of a single reviewable type.
+     *
+     * @param reviewables The results on the page, in ranked order.
+     * @param nextCursor The cursor of the next page, or null if this is the last page.
+     */
+    public record ResultPage(List<Reviewable> reviewables, String nextCursor) {
+    }
 
     /**
      * Constructor for the SearchController class.
-     * Initializes the access token and search result list.
+     * Initializes the search result lists and the result cache, which is
+     * invalidated whenever the catalog changes.
      */
     public SearchController() {
         this.searchResultReviewables = new ArrayList<>();
         this.searchResultUsers = new ArrayList<>();
+        this.resultCache = new SearchResultCache<>(RESULT_CACHE_CAPACITY,
+            SearchController::refineHits);
+        Database.getInstance().addCatalogChangeListener(resultCache::invalidate);
     }
 
     /**
@@ -39,8 +73,271 @@ public class SearchController {
             this.searchResultReviewables.clear();
             return;
         }
-        this.searchResultReviewables = Database.getInstance()
-            .searchReviewables(query.toLowerCase().trim());
+        this.searchResultReviewables = searchReviewables(query);
+    }
+
+    /**
+     * Searches for reviewable items without touching the stored search results.
+     * Every match is hydrated into a full object; prefer {@link #searchTopResults}
+     * or {@link #searchPage} when only part of the results is displayed.
+     *
+     * @param query The search query.
+     * @return A list of reviewable items matching the search query.
+     */
+    public List<Reviewable> searchReviewables(String query) {
+        SearchTrace trace = SearchMetrics.getInstance().startTrace(query);
+        String normalised = normalise(query, trace);
+        List<Reviewable> results = new ArrayList<>();
+        if (!normalised.isEmpty()) {
+            for (ReviewableType type : ReviewableType.values()) {
+                hydrateInto(searchHits(normalised, type, trace), results, trace);
+            }
+        }
+        trace.finish();
+        return results;
+    }
+
+    /**
+     * Searches for the first page of results of every reviewable type and hydrates
+     * only those. The best scoring result is moved to the front as the top result.
+     * Safe to call from a background thread; stops early when the thread is interrupted.
+     *
+     * @param query The search query.
+     * @param pageSize The number of results to show per reviewable type.
+     * @return The hydrated results, top result first.
+     */
+    public List<Reviewable> searchTopResults(String query, int pageSize) {
+        SearchTrace trace = SearchMetrics.getInstance().startTrace(query);
+        List<Reviewable> results = searchTopResults(query, pageSize, trace);
+        trace.finish();
+        return results;
+    }
+
+    /**
+     * Searches for the top results like {@link #searchTopResults(String, int)}, recording
+     * the phases in a trace the caller finishes, e.g. once the results are shown.
+     *
+     * @param query The search query.
+     * @param pageSize The number of results to show per reviewable type.
+     * @param trace The trace to record the search in.
+     * @return The hydrated results, top result first.
+     */
+    public List<Reviewable> searchTopResults(String query, int pageSize, SearchTrace trace) {
+        return searchTopResultPages(query, pageSize, trace).reviewables();
+    }
+
+    /**
+     * Searches for the top results like {@link #searchTopResults(String, int, SearchTrace)},
+     * also returning the cursors to page through the rest of the results with
+     * {@link #searchResultPage}.
+     *
+     * @param query The search query.
+     * @param pageSize The number of results to show per reviewable type.
+     * @param trace The trace to record the search in.
+     * @return The hydrated results, top result first, and the cursors of the next pages.
+     */
+    public TopResults searchTopResultPages(String query, int pageSize, SearchTrace trace) {
+        String normalised = normalise(query, trace);
+        List<Reviewable> results = new ArrayList<>();
+        Map<ReviewableType, String> nextCursors = new EnumMap<>(ReviewableType.class);
+        if (normalised.isEmpty()) {
+            return new TopResults(results, nextCursors);
+        }
+        Reviewable topResult = null;
+        double topScore = -1;
+        for (ReviewableType type : ReviewableType.values()) {
+            SearchPage page = searchPage(normalised, type, null, pageSize, trace);
+            if (page.hasNext()) {
+                nextCursors.put(type, page.getNextCursor());
+            }
+            long hydrationStart = System.nanoTime();
+            for (SearchHit hit : page.getHits()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    trace.endPhase(Phase.HYDRATION, hydrationStart);
+                    return new TopResults(results, nextCursors);
+                }
+                Reviewable reviewable = Database.getInstance().hydrate(hit);
+                if (reviewable == null) {
+                    continue;
+                }
+                results.add(reviewable);
+                trace.addResults(1);
+                if (hit.getScore() > topScore) {
+                    topResult = reviewable;
+                    topScore = hit.getScore();
+                }
+            }
+            trace.endPhase(Phase.HYDRATION, hydrationStart);
+        }
+        if (topResult != null) {
+            results.remove(topResult);
+            results.add(0, topResult);
+        }
+        return new TopResults(results, nextCursors);
+    }
+
+    /**
+     * Returns one hydrated page of results of a single type, e.g. the page after the
+     * top results of that type.
+     *
+     * @param query The search query.
+     * @param type The type of reviewable to search for.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The maximum number of results on the page.
+     * @return The results on the page and the cursor of the next page.
+     * @throws IllegalArgumentException if the cursor or page size is invalid.
+     */
+    public ResultPage searchResultPage(String query, ReviewableType type, String cursor,
+        int pageSize) {
+        SearchTrace trace = SearchMetrics.getInstance().startTrace(query);
+        SearchPage page = searchPage(normalise(query, trace), type, cursor, pageSize, trace);
+        List<Reviewable> results = new ArrayList<>();
+        hydrateInto(page.getHits(), results, trace);
+        trace.finish();
+        return new ResultPage(results, page.getNextCursor());
+    }
+
+    /**
+     * Returns one page of search hits of a single type, without hydrating them.
+     *
+     * @param query The search query.
+     * @param type The type of reviewable to search for.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The maximum number of hits on the page.
+     * @return The requested page of hits and the cursor of the next page.
+     * @throws IllegalArgumentException if the cursor or page size is invalid.
+     */
+    public SearchPage searchPage(String query, ReviewableType type, String cursor, int pageSize) {
+        SearchTrace trace = SearchMetrics.getInstance().startTrace(query);
+        SearchPage page = searchPage(normalise(query, trace), type, cursor, pageSize, trace);
+        trace.finish();
+        return page;
+    }
+
+    /**
+     * Returns one page of search hits of a single type, recording the lookup in a trace.
+     *
+     * @param query The normalised search query.
+     * @param type The type of reviewable to search for.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The maximum number of hits on the page.
+     * @param trace The trace to record the search in.
+     * @return The requested page of hits and the cursor of the next page.
+     * @throws IllegalArgumentException if the cursor or page size is invalid.
+     */
+    private SearchPage searchPage(String query, ReviewableType type, String cursor,
+        int pageSize, SearchTrace trace) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        List<SearchHit> hits = searchHits(query, type, trace);
+        int start = parseCursor(cursor);
+        int end = Math.min(start + pageSize, hits.size());
+        if (start >= end) {
+            return new SearchPage(List.of(), null);
+        }
+        String nextCursor = end < hits.size() ? Integer.toString(end) : null;
+        return new SearchPage(hits.subList(start, end), nextCursor);
+    }
+
+    /**
+     * Normalises a query, recording the time taken as the tokenise phase.
+     *
+     * @param query The raw query.
+     * @param trace The trace to record the search in.
+     * @return The normalised query.
+     */
+    private static String normalise(String query, SearchTrace trace) {
+        long start = System.nanoTime();
+        String normalised = SearchResultCache.normalise(query);
+        trace.endPhase(Phase.TOKENISE, start);
+        return normalised;
+    }
+
+    /**
+     * Hydrates hits into full objects, recording the time taken as the hydration phase.
+     *
+     * @param hits The hits to hydrate.
+     * @param results The list to add the hydrated objects to.
+     * @param trace The trace to record the search in.
+     */
+    private static void hydrateInto(List<SearchHit> hits, List<Reviewable> results,
+        SearchTrace trace) {
+        long start = System.nanoTime();
+        for (SearchHit hit : hits) {
+            Reviewable reviewable = Database.getInstance().hydrate(hit);
+            if (reviewable != null) {
+                results.add(reviewable);
+                trace.addResults(1);
+            }
+        }
+        trace.endPhase(Phase.HYDRATION, start);
+    }
+
+    /**
+     * Returns all hits of a single type, consulting the result cache first.
+     * The time taken is recorded as the index lookup phase.
+     *
+     * @param query The normalised search query.
+     * @param type The type of reviewable to search for.
+     * @param trace The trace to record the search in.
+     * @return The ranked hits of the given type matching the query.
+     */
+    private List<SearchHit> searchHits(String query, ReviewableType type, SearchTrace trace) {
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        // Taken before the lookup, so results of a catalog the cache has dropped are not kept.
+        long generation = resultCache.getGeneration();
+        List<SearchHit> hits = resultCache.get(type, query);
+        if (hits == null) {
+            hits = Database.getInstance().searchReviewableHits(query, type);
+            resultCache.put(type, query, hits, generation);
+        }
+        trace.endPhase(Phase.INDEX_LOOKUP, start);
+        trace.addCandidates(hits.size());
+        return hits;
+    }
+
+    /**
+     * Narrows the cached hits of a shorter query down to a longer one and re-ranks them.
+     *
+     * @param hits The hits of the shorter query.
+     * @param query The longer normalised query.
+     * @return The hits matching the longer query, best scores first.
+     */
+    private static List<SearchHit> refineHits(List<SearchHit> hits, String query) {
+        List<SearchHit> refined = new ArrayList<>();
+        for (SearchHit hit : hits) {
+            if (hit.getName() != null && hit.getName().toLowerCase().contains(query)) {
+                refined.add(hit.rescore(query));
+            }
+        }
+        refined.sort(SearchHit.BY_SCORE_DESCENDING);
+        return refined;
+    }
+
+    /**
+     * Parses a page cursor.
+     *
+     * @param cursor The cursor, or null for the first page.
+     * @return The offset of the first hit of the page.
+     * @throws IllegalArgumentException if the cursor is not a valid offset.
+     */
+    private static int parseCursor(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid search cursor: " + cursor);
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid search cursor: " + cursor, e);
+        }
     }
 
     /**
@@ -60,6 +357,27 @@ public class SearchController {
         this.searchResultUsers = Database.getInstance().searchUsers(query.toLowerCase().trim());
     }
 
+    /**
+     * Updates the search results for users, leaving out one user and keeping at most
+     * limit results.
+     *
+     * @param query The search query.
+     * @param excludeUserId The id of the user to leave out (e.g. the current user), or null.
+     * @param limit The maximum number of users to keep.
+     * @throws IOException              thrown if there is an error accessing the
+     *                                  database.
+     * @throws IllegalArgumentException thrown if the limit is not positive.
+     */
+    public void updateSearchResultsUsers(String query, String excludeUserId, int limit)
+            throws IllegalArgumentException, IOException {
+        if (query == null || query.trim().isEmpty()) {
+            this.searchResultUsers.clear();
+            return;
+        }
+        this.searchResultUsers = Database.getInstance()
+            .searchUsers(query.toLowerCase().trim(), limit, excludeUserId);
+    }
+
     /**
      * Returns the current search results.
      *
@@ -78,12 +396,21 @@ public class SearchController {
         return searchResultUsers;
     }
 
+    /**
+     * Returns the cache of reviewable search hits, e.g. to inspect its hit rate.
+     *
+     * @return The search result cache.
+     */
+    public SearchResultCache<SearchHit> getResultCache() {
+        return resultCache;
+    }
+
     /**
      * Returns the singleton instance of SearchController.
      *
      * @return The singleton instance of SearchController.
      */
-    public static SearchController getInstance() {
+    public static synchronized SearchController getInstance() {
         if (instance == null) {
             instance = new SearchController();
         }
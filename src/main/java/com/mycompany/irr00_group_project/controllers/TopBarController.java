@@ -1,12 +1,21 @@
 package com.mycompany.irr00_group_project.controllers;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import com.mycompany.irr00_group_project.controllers.SearchController.ResultPage;
+import com.mycompany.irr00_group_project.controllers.SearchController.TopResults;
 import com.mycompany.irr00_group_project.controllers.managers.SessionManager;
 import com.mycompany.irr00_group_project.models.User;
-import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.services.SearchExecutor;
+import com.mycompany.irr00_group_project.services.SearchMetrics;
+import com.mycompany.irr00_group_project.services.SearchTrace;
 
+import javafx.application.Platform;
 import javafx.scene.control.TextField;
 
 /**
@@ -14,47 +23,101 @@ import javafx.scene.control.TextField;
  * It handles search functionality and user profile interactions.
  */
 public class TopBarController {
+    // Number of results hydrated and shown per section (songs, albums, artists).
+    private static final int RESULTS_PER_SECTION = 5;
+
     // Callbacks for showing search results and default content.
     private Runnable showSearchResults;
     private Runnable clearButton;
 
-    // Callback for updating search results (used Consumer to accept an argument).
-    private Consumer<List<Reviewable>> updateResults;
+    // Callbacks for showing the first results and appending further pages of one type.
+    private Consumer<TopResults> updateResults;
+    private BiConsumer<ReviewableType, ResultPage> appendResults;
     private Consumer<User> showUserProfile;
 
+    // The query whose results are shown, so further pages continue the same search.
+    private String shownQuery;
+
+    // Runs searches off the JavaFX thread and drops results of superseded queries.
+    private final SearchExecutor<TopResults> searchExecutor =
+        new SearchExecutor<>("reviewable-search", Platform::runLater);
+    // One page executor per type, so showing more songs does not drop a page of albums.
+    private final Map<ReviewableType, SearchExecutor<ResultPage>> pageExecutors =
+        new EnumMap<>(ReviewableType.class);
+
     /**
      * Constructor for the TopBarController class.
      *
      * @param showSearchResults Callback to show search results.
      * @param updateResults Callback to update search results.
+     * @param appendResults Callback to append a further page of results of one type.
      * @param showUserProfile Callback to show user profile.
      */
     public TopBarController(Runnable showSearchResults, 
         Runnable clearButton,
-        Consumer<List<Reviewable>> updateResults, Consumer<User> showUserProfile) {
+        Consumer<TopResults> updateResults,
+        BiConsumer<ReviewableType, ResultPage> appendResults,
+        Consumer<User> showUserProfile) {
 
         this.showUserProfile = showUserProfile;
         this.showSearchResults = showSearchResults;
         this.updateResults = updateResults;
+        this.appendResults = appendResults;
         this.clearButton = clearButton;
     }
 
     /**
      * Handles the search functionality.
      * If the query is blank, it shows the default content.
-     * Otherwise, it updates the search results and shows them.
+     * Otherwise, it runs the search in the background and shows the results once ready.
+     * A newer query cancels the previous one, so only the latest results are shown.
      *
      * @param query The search query entered by the user.
      */
     public void handleSearch(String query) {
+        cancelPages();
         if (query.isBlank()) {
+            searchExecutor.cancel();
             return;
         }
 
-        SearchController.getInstance().updateSearchResultsReviewables(query);
-        List<Reviewable> reviewables = SearchController.getInstance().getSearchResultsReviewables();
-        updateResults.accept(reviewables);
-        showSearchResults.run();
+        // Superseded searches never reach the screen, so their traces are not recorded.
+        SearchTrace trace = SearchMetrics.getInstance().startTrace(query);
+        searchExecutor.submit(
+            () -> {
+                TopResults results = SearchController.getInstance()
+                    .searchTopResultPages(query, RESULTS_PER_SECTION, trace);
+                trace.markHandOff();
+                return results;
+            },
+            results -> {
+                shownQuery = query;
+                updateResults.accept(results);
+                showSearchResults.run();
+                trace.finish();
+            });
+    }
+
+    /**
+     * Loads the next page of results of one type of the shown search in the background
+     * and appends it to the results. Typing a new query drops the page. If the page
+     * cannot be loaded, an empty page with the same cursor is appended, so the page can
+     * be asked for again.
+     *
+     * @param type The type of reviewable to show more of.
+     * @param cursor The cursor of the page, as returned with the previous page.
+     */
+    public void handleShowMore(ReviewableType type, String cursor) {
+        String query = shownQuery;
+        if (query == null || cursor == null) {
+            return;
+        }
+        pageExecutors.computeIfAbsent(type,
+            t -> new SearchExecutor<>("reviewable-search-page", Platform::runLater)).submit(
+            () -> SearchController.getInstance()
+                .searchResultPage(query, type, cursor, RESULTS_PER_SECTION),
+            page -> appendResults.accept(type, page),
+            failure -> appendResults.accept(type, new ResultPage(List.of(), cursor)));
     }
 
     /**
@@ -82,7 +145,19 @@ public class TopBarController {
      * @param searchField The TextField to clear.
      */
     public void clearButton(TextField searchField) {
+        searchExecutor.cancel();
+        cancelPages();
+        shownQuery = null;
         searchField.clear();
         clearButton.run();
     }
+
+    /**
+     * Cancels the pages being loaded for the shown search.
+     */
+    private void cancelPages() {
+        for (SearchExecutor<ResultPage> executor : pageExecutors.values()) {
+            executor.cancel();
+        }
+    }
 }
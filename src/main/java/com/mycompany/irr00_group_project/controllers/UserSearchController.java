@@ -15,6 +15,9 @@ import javafx.scene.control.TextField;
  */
 public class UserSearchController {
 
+    // Maximum number of users shown for a search.
+    private static final int MAX_RESULTS = 50;
+
     private Runnable showDefault;
 
     // Callback for updating search results (used Consumer to accept an argument).
@@ -43,17 +46,10 @@ public class UserSearchController {
             showDefault.run();
             return;
         }
-        SearchController.getInstance().updateSearchResultsUsers(query);
+        String currentUserId = SessionManager.getInstance().getCurrentUser().getId();
+        SearchController.getInstance()
+            .updateSearchResultsUsers(query, currentUserId, MAX_RESULTS);
         List<User> users = SearchController.getInstance().getSearchResultsUsers();
-        for (User user : users) {
-            if (user.getId().equals(SessionManager.getInstance().getCurrentUser().getId())) {
-                users.remove(user);
-                for (User u : users) {
-                    System.out.println("User: " + u.getUsername());
-                }
-                break;
-            }
-        }
         updateResults.accept(users);
     }
 
@@ -1,21 +1,25 @@
 package com.mycompany.irr00_group_project.controllers.managers;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import com.mycompany.irr00_group_project.models.User;
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
 import com.mycompany.irr00_group_project.services.CommentRecommenderService;
+import com.mycompany.irr00_group_project.services.Database;
 import com.mycompany.irr00_group_project.services.RatingRecommenderService;
+import com.mycompany.irr00_group_project.services.RecommendationBlender;
 
 /**
  * SessionManager is a singleton class that manages the user session.
  * It stores the current user and provides methods to set, get, and clear the session.
  */
 public class SessionManager {
+    private static final int MAX_RECOMMENDATIONS = 20;
+
     private static SessionManager instance;
+    private RecommendationBlender blender;
     private User currentUser;
     private List<Reviewable> recommendations = new ArrayList<>();
 
@@ -43,28 +47,37 @@ public class SessionManager {
      */
     public void setCurrentUser(User user) {
         this.currentUser = user;
+        if (loadStoredRecommendations()) {
+            return;
+        }
         computeAndSetRecommendationsBlocking();
-        try {
-            RatingRecommenderService recommenderService = new RatingRecommenderService();
-            List<Reviewable> newRecs = recommenderService.getRecommendations(user.getId(), 10);
-
-            Set<String> existingKeys = recommendations.stream()
-                .map(r -> r.getId() + "|" + r.getType())
-                .collect(Collectors.toSet());
-
-            List<Reviewable> filtered = newRecs.stream()
-                .filter(r -> !existingKeys.contains(r.getId() + "|" + r.getType()))
-                .collect(Collectors.toList());
+    }
 
-            recommendations.addAll(filtered);
+    /**
+     * Uses the recommendations precomputed by the recommendation batch, if it has stored
+     * any for the current user.
+     * @return true if stored recommendations were found.
+     */
+    private boolean loadStoredRecommendations() {
+        try {
+            List<Reviewable> stored = Database.getInstance().getRecommendationStore()
+                .getRecommendations(currentUser.getId());
+            if (stored.isEmpty()) {
+                return false;
+            }
+            synchronized (this) {
+                recommendations = stored;
+            }
+            return true;
         } catch (Exception e) {
             e.printStackTrace();
+            return false;
         }
     }
 
     /**
-     * Waits for recommendations to be computed and adds them to the list.
-     * This method blocks until recommendations are ready.
+     * Computes the recommendations with the blender, which runs the recommenders at the
+     * same time. This method blocks at most for the latency budget of the blender.
      */
     private void computeAndSetRecommendationsBlocking() {
         if (currentUser == null) {
@@ -72,8 +85,8 @@ public class SessionManager {
             return;
         }
         try {
-            CommentRecommenderService.setCurrentUserId(currentUser.getId());
-            List<Reviewable> recs = CommentRecommenderService.getRecommendations();
+            List<Reviewable> recs = getBlender()
+                .getRecommendations(currentUser.getId(), MAX_RECOMMENDATIONS);
             synchronized (this) {
                 recommendations = recs;
             }
@@ -83,6 +96,19 @@ public class SessionManager {
         }
     }
 
+    /**
+     * Returns the blender of the recommenders of the database, creating it on first use.
+     * @return The blender.
+     * @throws IOException if the rating recommender cannot read the database.
+     */
+    private synchronized RecommendationBlender getBlender() throws IOException {
+        if (blender == null) {
+            blender = RecommendationBlender.createDefault(Database.getInstance(),
+                CommentRecommenderService.getInstance(), RatingRecommenderService.getInstance());
+        }
+        return blender;
+    }
+
     /**
      * Adds a list of reviewable items to the recommendations.
      * @param reviewable The list of reviewable items to add.
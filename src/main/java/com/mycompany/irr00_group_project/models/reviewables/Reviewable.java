@@ -1,9 +1,5 @@
 package com.mycompany.irr00_group_project.models.reviewables;
 
-import java.io.IOException;
-import java.util.Map;
-
-import com.mycompany.irr00_group_project.services.CommentRecommenderService;
 import com.mycompany.irr00_group_project.utils.ImageUtils;
 
 import javafx.scene.image.Image;
@@ -17,8 +13,6 @@ public abstract class Reviewable {
     private String id;
     private String name;
     private final Image image; // Path to image file.
-    private Map<String, Double> tfMap;
-    private double[] tfIdfVector;
 
     /**
      * Constructor.
@@ -76,30 +70,4 @@ public abstract class Reviewable {
     public void setName(String name) {
         this.name = name;
     }
-
-    public Map<String, Double> getTfMap() {
-        return tfMap;
-    }
-
-    public double[] getTfIdfVector() {
-        return tfIdfVector;
-    }
-
-    /**
-     * Updates the TF map for the Reviewable.
-     * @throws IOException .
-     */
-    public void updateTfMap() throws IOException {
-        tfMap = CommentRecommenderService.computeTfMap(this);
-        updateTfIdfVector();
-    }
-
-    /**
-     * Updates and stores the TF-IDF vector for the Reviewable.
-     *
-     * @throws IOException .
-     */
-    private void updateTfIdfVector() throws IOException {
-        tfIdfVector = CommentRecommenderService.computeTfIdfVector(this);
-    }
 }
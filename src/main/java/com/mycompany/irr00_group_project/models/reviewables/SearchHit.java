@@ -0,0 +1,110 @@
+package com.mycompany.irr00_group_project.models.reviewables;
+
+import java.util.Comparator;
+
+/**
+ * A lightweight reference to a reviewable item that matched a search query.
+ * Unlike a Reviewable it holds no image and no related objects, so it is cheap to
+ * create for every matching row; the full object is only built for hits that render.
+ */
+public class SearchHit {
+
+    /**
+     * Orders hits from the highest to the lowest score.
+     */
+    public static final Comparator<SearchHit> BY_SCORE_DESCENDING =
+        (a, b) -> Double.compare(b.getScore(), a.getScore());
+
+    private static final double EXACT_MATCH = 1.0;
+    private static final double PREFIX_MATCH = 0.75;
+    private static final double WORD_PREFIX_MATCH = 0.5;
+    private static final double SUBSTRING_MATCH = 0.25;
+
+    private final String id;
+    private final ReviewableType type;
+    private final String name;
+    private final double score;
+
+    /**
+     * Constructor for the SearchHit class.
+     *
+     * @param id    The unique identifier of the reviewable.
+     * @param type  The type of the reviewable.
+     * @param name  The name/title of the reviewable.
+     * @param score The relevance of the hit for the query, higher is better.
+     */
+    public SearchHit(String id, ReviewableType type, String name, double score) {
+        this.id = id;
+        this.type = type;
+        this.name = name;
+        this.score = score;
+    }
+
+    /**
+     * Creates a hit for a reviewable, scoring its name against the query.
+     *
+     * @param id    The unique identifier of the reviewable.
+     * @param type  The type of the reviewable.
+     * @param name  The name/title of the reviewable.
+     * @param query The normalised query the name matched.
+     * @return A new SearchHit scored for the query.
+     */
+    public static SearchHit of(String id, ReviewableType type, String name, String query) {
+        return new SearchHit(id, type, name, score(name, query));
+    }
+
+    /**
+     * Scores how well a name matches a query: exact matches rank above prefix matches,
+     * which rank above matches at the start of a later word, which rank above any other
+     * substring match.
+     *
+     * @param name  The name/title to score.
+     * @param query The normalised query.
+     * @return The score of the match, or 0 if the name does not contain the query.
+     */
+    public static double score(String name, String query) {
+        String lowerName = name == null ? "" : name.toLowerCase();
+        int index = lowerName.indexOf(query);
+        if (index < 0) {
+            return 0;
+        }
+        if (lowerName.length() == query.length()) {
+            return EXACT_MATCH;
+        }
+        if (index == 0) {
+            return PREFIX_MATCH;
+        }
+        if (lowerName.contains(" " + query)) {
+            return WORD_PREFIX_MATCH;
+        }
+        return SUBSTRING_MATCH;
+    }
+
+    /**
+     * Returns a copy of this hit scored against another query.
+     *
+     * @param query The normalised query to score against.
+     * @return A new SearchHit for the same reviewable.
+     */
+    public SearchHit rescore(String query) {
+        return of(id, type, name, query);
+    }
+
+    // Accessors.
+
+    public String getId() {
+        return id;
+    }
+
+    public ReviewableType getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
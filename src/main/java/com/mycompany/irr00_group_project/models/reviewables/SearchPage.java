@@ -0,0 +1,35 @@
+package com.mycompany.irr00_group_project.models.reviewables;
+
+import java.util.List;
+
+/**
+ * One page of search hits together with the cursor pointing at the next page.
+ */
+public class SearchPage {
+
+    private final List<SearchHit> hits;
+    private final String nextCursor;
+
+    /**
+     * Constructor for the SearchPage class.
+     *
+     * @param hits       The hits on this page, in ranked order.
+     * @param nextCursor The cursor of the next page, or null if this is the last page.
+     */
+    public SearchPage(List<SearchHit> hits, String nextCursor) {
+        this.hits = List.copyOf(hits);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,335 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Latent factor model of a rating matrix, trained with alternating least squares (ALS).
+ * Every user and item gets a vector of rank factors, and the predicted rating of an item
+ * is the dot product of the two vectors. Training alternates between solving all user
+ * vectors with the item vectors fixed and the other way around; each solve is a small
+ * rank x rank linear system, and blocks of rows are solved in parallel on the shared
+ * compute pool.
+ * The factors are stored as float32 in direct buffers outside the Java heap, so large
+ * catalogs do not add to garbage collection work. A trained model is immutable.
+ */
+public final class AlsModel {
+
+    // Rows solved by one task of the compute pool.
+    private static final int BLOCK_SIZE = 64;
+    private static final float INITIAL_SCALE = 0.1f;
+
+    private final int rank;
+    private final int userCount;
+    private final int itemCount;
+    private final FloatBuffer userFactors;
+    private final FloatBuffer itemFactors;
+
+    /**
+     * Training parameters of an ALS model.
+     *
+     * @param rank The number of latent factors per user and item.
+     * @param lambda The regularisation weight, scaled by the number of ratings of a row.
+     * @param iterations The number of alternating sweeps.
+     * @param seed The seed of the random initial factors.
+     */
+    public record Parameters(int rank, float lambda, int iterations, long seed) {
+        /**
+         * Validates the parameters.
+         *
+         * @throws IllegalArgumentException if the rank or iterations are not positive, or
+         *     lambda is negative.
+         */
+        public Parameters {
+            if (rank <= 0 || iterations <= 0) {
+                throw new IllegalArgumentException(
+                    "Rank and iterations must be positive: " + rank + ", " + iterations);
+            }
+            if (!(lambda >= 0)) {
+                throw new IllegalArgumentException("Lambda must not be negative: " + lambda);
+            }
+        }
+
+        /**
+         * Returns the same parameters with another number of iterations.
+         *
+         * @param sweeps The number of iterations.
+         * @return The new parameters.
+         */
+        public Parameters withIterations(int sweeps) {
+            return new Parameters(rank, lambda, sweeps, seed);
+        }
+    }
+
+    private AlsModel(int rank, int userCount, int itemCount) {
+        this.rank = rank;
+        this.userCount = userCount;
+        this.itemCount = itemCount;
+        this.userFactors = allocate(userCount * rank);
+        this.itemFactors = allocate(itemCount * rank);
+    }
+
+    /**
+     * Trains a model on a rating matrix. The matrix must not change while this runs;
+     * pass a {@link RatingMatrix#copy()} if other threads write to it.
+     *
+     * @param ratings The ratings.
+     * @param parameters The training parameters.
+     * @param warmStart A previous model whose factors are the starting point, so few
+     *     iterations suffice after small changes, or null to start from random factors.
+     *     Users and items it does not know start from random factors.
+     * @return The trained model.
+     */
+    public static AlsModel train(RatingMatrix ratings, Parameters parameters,
+        AlsModel warmStart) {
+        int rank = parameters.rank();
+        AlsModel model = new AlsModel(rank, ratings.getUserCount(), ratings.getItemCount());
+        Random random = new Random(parameters.seed());
+        boolean warm = warmStart != null && warmStart.rank == rank;
+        initialise(model.userFactors, model.userCount, rank,
+            warm ? warmStart.userFactors : null, warm ? warmStart.userCount : 0, random);
+        initialise(model.itemFactors, model.itemCount, rank,
+            warm ? warmStart.itemFactors : null, warm ? warmStart.itemCount : 0, random);
+
+        RatingMatrix byItem = ratings.transpose();
+        for (int iteration = 0; iteration < parameters.iterations(); iteration++) {
+            solveAll(ratings, model.itemFactors, model.userFactors, parameters);
+            solveAll(byItem, model.userFactors, model.itemFactors, parameters);
+        }
+        return model;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Checks whether a user was trained with ratings, so the model can rank items for
+     * them. Users without ratings at training time have zero factors.
+     *
+     * @param user The user.
+     * @return true if the user has non-zero factors.
+     */
+    public boolean hasUserFactors(int user) {
+        if (user < 0 || user >= userCount) {
+            return false;
+        }
+        for (int f = 0; f < rank; f++) {
+            if (userFactors.get(user * rank + f) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Predicts a rating.
+     *
+     * @param user The user.
+     * @param item The item.
+     * @return The dot product of the user and item factors.
+     */
+    public float predict(int user, int item) {
+        float score = 0;
+        int userBase = user * rank;
+        int itemBase = item * rank;
+        for (int f = 0; f < rank; f++) {
+            score += userFactors.get(userBase + f) * itemFactors.get(itemBase + f);
+        }
+        return score;
+    }
+
+    /**
+     * Predicts the ratings of every item for a user, one dot product per item.
+     *
+     * @param user The user.
+     * @return The predicted rating of every item the model knows.
+     */
+    public float[] predictAll(int user) {
+        float[] userVector = new float[rank];
+        userFactors.get(user * rank, userVector);
+        float[] scores = new float[itemCount];
+        for (int item = 0; item < itemCount; item++) {
+            int itemBase = item * rank;
+            float score = 0;
+            for (int f = 0; f < rank; f++) {
+                score += userVector[f] * itemFactors.get(itemBase + f);
+            }
+            scores[item] = score;
+        }
+        return scores;
+    }
+
+    /**
+     * Computes the root mean squared error of the predictions of some ratings.
+     *
+     * @param ratings The ratings, of users and items the model knows.
+     * @return The error, or 0 if there are no ratings.
+     */
+    public double rootMeanSquaredError(RatingMatrix ratings) {
+        double squares = 0;
+        for (int user = 0; user < ratings.getUserCount(); user++) {
+            for (int k = 0; k < ratings.rowSize(user); k++) {
+                double error = ratings.ratingAt(user, k) - predict(user, ratings.itemAt(user, k));
+                squares += error * error;
+            }
+        }
+        long count = ratings.getRatingCount();
+        return count == 0 ? 0 : Math.sqrt(squares / count);
+    }
+
+    @Override
+    public String toString() {
+        return "AlsModel[rank=" + rank + ", users=" + userCount + ", items=" + itemCount + "]";
+    }
+
+    private static FloatBuffer allocate(int floats) {
+        return ByteBuffer.allocateDirect(floats * Float.BYTES).order(ByteOrder.nativeOrder())
+            .asFloatBuffer();
+    }
+
+    /**
+     * Fills factor rows, copying the rows of a previous model and drawing the others at
+     * random.
+     *
+     * @param factors The factors to fill.
+     * @param rows The number of rows.
+     * @param rank The number of factors per row.
+     * @param previous The factors of a previous model, or null.
+     * @param previousRows The number of rows of the previous model.
+     * @param random The source of the random factors.
+     */
+    private static void initialise(FloatBuffer factors, int rows, int rank,
+        FloatBuffer previous, int previousRows, Random random) {
+        int copied = Math.min(rows, previousRows) * rank;
+        for (int i = 0; i < rows * rank; i++) {
+            factors.put(i, i < copied ? previous.get(i) : random.nextFloat() * INITIAL_SCALE);
+        }
+    }
+
+    /**
+     * Solves the factors of every row of a matrix with the factors of its columns fixed.
+     *
+     * @param rows The ratings, one row per factor row to solve.
+     * @param fixed The factors of the columns.
+     * @param solved The factors to solve, one row per row of the matrix.
+     * @param parameters The training parameters.
+     */
+    private static void solveAll(RatingMatrix rows, FloatBuffer fixed, FloatBuffer solved,
+        Parameters parameters) {
+        int rank = parameters.rank();
+        try {
+            ComputePool.getInstance().invokeBlocks(rows.getUserCount(), BLOCK_SIZE,
+                (start, end) -> {
+                    Solver solver = new Solver(rank);
+                    for (int row = start; row < end; row++) {
+                        solver.solve(rows, row, fixed, solved, parameters.lambda());
+                    }
+                });
+        } catch (IOException e) {
+            // The solve reads no files, so this only wraps an unexpected failure.
+            throw new IllegalStateException("Failed to train the factor model.", e);
+        }
+    }
+
+    /**
+     * Scratch space for the least squares solve of one row, used by one thread.
+     */
+    private static final class Solver {
+        private final int rank;
+        private final double[] gram;
+        private final double[] target;
+        private final float[] column;
+
+        private Solver(int rank) {
+            this.rank = rank;
+            this.gram = new double[rank * rank];
+            this.target = new double[rank];
+            this.column = new float[rank];
+        }
+
+        /**
+         * Solves (C^T C + lambda * n * I) x = C^T r for one row, where C holds the factors
+         * of the n columns the row rated and r the ratings.
+         */
+        private void solve(RatingMatrix rows, int row, FloatBuffer fixed, FloatBuffer solved,
+            float lambda) {
+            int size = rows.rowSize(row);
+            int base = row * rank;
+            if (size == 0) {
+                // Nothing to fit: a zero vector predicts nothing rather than noise.
+                for (int f = 0; f < rank; f++) {
+                    solved.put(base + f, 0);
+                }
+                return;
+            }
+            Arrays.fill(gram, 0);
+            Arrays.fill(target, 0);
+            for (int k = 0; k < size; k++) {
+                fixed.get(rows.itemAt(row, k) * rank, column);
+                int rating = rows.ratingAt(row, k);
+                for (int a = 0; a < rank; a++) {
+                    target[a] += rating * column[a];
+                    for (int b = 0; b <= a; b++) {
+                        gram[a * rank + b] += column[a] * column[b];
+                    }
+                }
+            }
+            for (int a = 0; a < rank; a++) {
+                gram[a * rank + a] += lambda * size + 1e-6;
+            }
+            choleskySolve();
+            for (int f = 0; f < rank; f++) {
+                solved.put(base + f, (float) target[f]);
+            }
+        }
+
+        /**
+         * Solves the system in place with a Cholesky factorisation of the lower triangle
+         * of the gram matrix, leaving the solution in the target.
+         */
+        private void choleskySolve() {
+            for (int j = 0; j < rank; j++) {
+                double diagonal = gram[j * rank + j];
+                for (int k = 0; k < j; k++) {
+                    diagonal -= gram[j * rank + k] * gram[j * rank + k];
+                }
+                diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+                gram[j * rank + j] = diagonal;
+                for (int i = j + 1; i < rank; i++) {
+                    double value = gram[i * rank + j];
+                    for (int k = 0; k < j; k++) {
+                        value -= gram[i * rank + k] * gram[j * rank + k];
+                    }
+                    gram[i * rank + j] = value / diagonal;
+                }
+            }
+            for (int i = 0; i < rank; i++) {
+                double value = target[i];
+                for (int k = 0; k < i; k++) {
+                    value -= gram[i * rank + k] * target[k];
+                }
+                target[i] = value / gram[i * rank + i];
+            }
+            for (int i = rank - 1; i >= 0; i--) {
+                double value = target[i];
+                for (int k = i + 1; k < rank; k++) {
+                    value -= gram[k * rank + i] * target[k];
+                }
+                target[i] = value / gram[i * rank + i];
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mycompany.irr00_group_project.services;
+
+/**
+ * Okapi BM25 weighting. Repeating a term has diminishing returns (controlled by k1), and
+ * the counts of reviewables with more review text than average are scaled down (controlled
+ * by b), so a few verbose reviews do not dominate the vector of an item.
+ */
+public class Bm25Scoring implements ScoringModel {
+
+    public static final double DEFAULT_K1 = 1.2;
+    public static final double DEFAULT_B = 0.75;
+
+    private final double k1;
+    private final double b;
+
+    /**
+     * Constructor for the Bm25Scoring class with the usual parameters k1 = 1.2, b = 0.75.
+     */
+    public Bm25Scoring() {
+        this(DEFAULT_K1, DEFAULT_B);
+    }
+
+    /**
+     * Constructor for the Bm25Scoring class.
+     *
+     * @param k1 The term frequency saturation, at least 0; 0 ignores repetitions.
+     * @param b The length normalisation, between 0 (none) and 1 (full).
+     * @throws IllegalArgumentException if a parameter is out of range.
+     */
+    public Bm25Scoring(double k1, double b) {
+        if (!(k1 >= 0) || !(b >= 0 && b <= 1)) {
+            throw new IllegalArgumentException("Invalid BM25 parameters: k1=" + k1 + " b=" + b);
+        }
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    @Override
+    public String getName() {
+        return "bm25(k1=" + k1 + ", b=" + b + ")";
+    }
+
+    @Override
+    public double idf(int docFreq, int totalDocs) {
+        // The +1 keeps the weight of terms in more than half of the reviewables positive.
+        return Math.log(1 + (totalDocs - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    @Override
+    public double termWeight(int count, int length, double averageLength) {
+        if (count <= 0) {
+            return 0;
+        }
+        double relativeLength = averageLength > 0 ? length / averageLength : 1;
+        return count * (k1 + 1) / (count + k1 * (1 - b + b * relativeLength));
+    }
+}
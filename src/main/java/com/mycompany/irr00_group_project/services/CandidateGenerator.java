@@ -0,0 +1,22 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+
+/**
+ * Source of recommendation candidates for the {@link RecommendationBlender}.
+ */
+@FunctionalInterface
+public interface CandidateGenerator {
+    /**
+     * Returns candidates for a user, best first.
+     *
+     * @param userId The id of the user.
+     * @param n The number of candidates wanted; a generator may return fewer.
+     * @return The candidates, best first.
+     * @throws IOException if there is an error accessing the database.
+     */
+    List<Reviewable> generate(String userId, int n) throws IOException;
+}
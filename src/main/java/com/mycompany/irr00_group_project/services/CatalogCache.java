@@ -0,0 +1,111 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+/**
+ * In-memory copy of the songs, albums and artists tables indexed by id.
+ * Looking up a catalog row by id would otherwise scan the whole CSV file. Each table is
+ * loaded on first use and dropped again as soon as the table reports a change.
+ */
+public class CatalogCache {
+
+    private final Map<ReviewableType, Table> tables = new EnumMap<>(ReviewableType.class);
+    private final Map<ReviewableType, Map<String, Map<String, String>>> rowsById =
+        Collections.synchronizedMap(new EnumMap<>(ReviewableType.class));
+    private final Map<ReviewableType, AtomicLong> versions = new EnumMap<>(ReviewableType.class);
+
+    /**
+     * Constructor for the CatalogCache class.
+     *
+     * @param songs   The songs table.
+     * @param albums  The albums table.
+     * @param artists The artists table.
+     */
+    public CatalogCache(Table songs, Table albums, Table artists) {
+        tables.put(ReviewableType.SONG, songs);
+        tables.put(ReviewableType.ALBUM, albums);
+        tables.put(ReviewableType.ARTIST, artists);
+        for (ReviewableType type : ReviewableType.values()) {
+            versions.put(type, new AtomicLong());
+            tables.get(type).addChangeListener(() -> {
+                versions.get(type).incrementAndGet();
+                rowsById.remove(type);
+            });
+        }
+    }
+
+    /**
+     * Returns the catalog row with the given id.
+     *
+     * @param type The type of reviewable to look up.
+     * @param id   The id of the row.
+     * @return The row as a map from header to value, or null if no row has the id.
+     * @throws IOException if the table has to be loaded and cannot be read.
+     */
+    public Map<String, String> getLine(ReviewableType type, String id) throws IOException {
+        if (type == null || id == null) {
+            return null;
+        }
+        return getRows(type).get(id);
+    }
+
+    /**
+     * Returns the catalog rows with the given ids in one lookup of the table.
+     *
+     * @param type The type of reviewable to look up.
+     * @param ids  The ids of the rows.
+     * @return The rows in the order of the ids, with null for ids no row has.
+     * @throws IOException if the table has to be loaded and cannot be read.
+     */
+    public List<Map<String, String>> getLines(ReviewableType type, List<String> ids)
+        throws IOException {
+        Map<String, Map<String, String>> rows = getRows(type);
+        List<Map<String, String>> lines = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            lines.add(id == null ? null : rows.get(id));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns all rows of a table indexed by id, loading the table if needed.
+     * When ids are duplicated the first row wins, like Table.getLines(...).get(0).
+     *
+     * @param type The type of reviewable.
+     * @return An unmodifiable map from id to row.
+     * @throws IOException if the table cannot be read.
+     */
+    private Map<String, Map<String, String>> getRows(ReviewableType type) throws IOException {
+        Map<String, Map<String, String>> rows = rowsById.get(type);
+        if (rows != null) {
+            return rows;
+        }
+        long version = versions.get(type).get();
+        Table table = tables.get(type);
+        int columns = table.getHeaders().length;
+        Map<String, Map<String, String>> loaded = new HashMap<>();
+        for (Map<String, String> line : table.getAllLines()) {
+            // Skip truncated rows, which Table.getLines(...) never matches either.
+            if (line.size() >= columns) {
+                loaded.putIfAbsent(line.get("id"), line);
+            }
+        }
+        rows = Collections.unmodifiableMap(loaded);
+        synchronized (rowsById) {
+            // Only publish the rows if the table did not change while it was being read.
+            if (versions.get(type).get() == version) {
+                rowsById.put(type, rows);
+            }
+        }
+        return rows;
+    }
+}
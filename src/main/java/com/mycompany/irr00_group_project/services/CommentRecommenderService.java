@@ -2,137 +2,720 @@ package com.mycompany.irr00_group_project.services;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.mycompany.irr00_group_project.models.reviewables.Review;
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
 import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.services.TfIdfModelStore.ItemCounts;
+import com.mycompany.irr00_group_project.services.TfIdfModelStore.StoredModel;
 
 /**
  * Service for recommending comments based on user reviews.
+ * Recommendations are computed from an immutable snapshot of the model (the reviewables,
+ * their TF-IDF vectors and the nearest-neighbour index over them), so any number of
+ * sessions can ask for recommendations in parallel without locking. Rebuilds and review
+ * updates prepare a new snapshot and swap it in atomically.
+ * Changes of the reviews table are queued by a table listener and applied by the next
+ * request, so saving a review never waits for the service.
  */
-public class CommentRecommenderService {
+public final class CommentRecommenderService {
+
+    private static final long ANN_SEED = 0x5EED_CAFEL;
+    private static final int MAX_RECOMMENDATIONS = 10;
+
+    private static CommentRecommenderService instance;
+
+    private final Database dbInstance;
+    private final AtomicReference<Model> model = new AtomicReference<>();
+    // Changes of the reviews table not yet applied to the term counts.
+    private final Queue<TableChange> pendingChanges = new ConcurrentLinkedQueue<>();
+
+    // The term counts the snapshots are built from; only changed while holding this.
+    // Inverse document frequency by term id.
+    private double[] idf = new double[0];
+    // Word to term id; ids stay valid across cache invalidations.
+    private TermDictionary dictionary = new TermDictionary();
+    // Number of reviewables containing each term id.
+    private IntCountMap docFreq = new IntCountMap();
+    private int totalDocs;
+    // Total number of words in the reviews of all reviewables, for the average length.
+    private long totalLength;
+    // Raw term counts of the reviews of every reviewable, keyed by "id::TYPE".
+    private Map<String, ItemTerms> itemTerms = new HashMap<>();
+    private List<Reviewable> allReviewables = new ArrayList<>();
+
+    private boolean countsAreReady = false;
+    // Set by invalidateCaches to rebuild from the reviews instead of the stored model.
+    private boolean rebuildRequested = false;
+
+    // Recall/latency settings of the nearest-neighbour index.
+    private int annTables = 8;
+    private int annBitsPerTable = 8;
+    private int annProbes = 2;
+    private volatile boolean exactSearch = false;
+    private ScoringModel scoringModel = new TfIdfScoring();
 
-    private static Map<String, Double> idfMap = new HashMap<>();
-    private static Set<String> vocabulary = new LinkedHashSet<>();
-    private static List<Reviewable> allReviewables = new ArrayList<>();
+    /**
+     * Immutable state recommendations are computed from.
+     *
+     * @param items The reviewables; the position of an item is its slot.
+     * @param slotsByKey The slot of every reviewable, keyed by "id::TYPE".
+     * @param matrix The normalised TF-IDF vector of every slot as rows of a matrix, for
+     *     scoring every slot at once.
+     * @param index The nearest-neighbour index over the vectors, keyed by slot. It is never
+     *     changed once the snapshot is published.
+     */
+    private record Model(List<Reviewable> items, Map<String, Integer> slotsByKey,
+        CsrMatrix matrix, LshIndex index) {
+
+        /**
+         * Returns a copy of this snapshot with the vector of one slot replaced. The copy
+         * shares the rows and buckets of the other slots with this snapshot; the changed
+         * ones are kept aside until {@link #compacted}.
+         *
+         * @param slot The slot.
+         * @param vector The new vector.
+         * @return The new snapshot.
+         */
+        private Model withVector(int slot, SparseVector vector) {
+            return new Model(items, slotsByKey, matrix.withRow(slot, vector),
+                index.withItem(slot, vector));
+        }
+
+        /**
+         * Returns this snapshot with the slots changed by review updates folded back into
+         * the matrix and index.
+         *
+         * @return The compacted snapshot, or this one if nothing changed.
+         */
+        private Model compacted() {
+            CsrMatrix compactMatrix = matrix.compact();
+            LshIndex compactIndex = index.compact();
+            return compactMatrix == matrix && compactIndex == index ? this
+                : new Model(items, slotsByKey, compactMatrix, compactIndex);
+        }
+    }
+
+    /**
+     * Result of an offline hit rate evaluation.
+     *
+     * @param hits The number of hidden liked items that were recommended.
+     * @param trials The number of hidden liked items.
+     */
+    public record HitRate(int hits, int trials) {
+
+        /**
+         * Returns the share of hidden items that were recommended.
+         *
+         * @return The hit rate between 0 and 1, or NaN without trials.
+         */
+        public double rate() {
+            return trials == 0 ? Double.NaN : (double) hits / trials;
+        }
+    }
+
+    /**
+     * Term counts of the reviews of one reviewable.
+     */
+    private static final class ItemTerms {
+        private final IntCountMap counts = new IntCountMap();
+        private int total;
+    }
 
-    private static Database dbInstance = Database.getInstance();
+    /**
+     * Everything needed to turn term counts into weights, captured so that the vectors of a
+     * snapshot can be computed without locking the service.
+     *
+     * @param scoring The scoring model.
+     * @param idf The IDF weight of every term id under the scoring model.
+     * @param averageLength The average number of words per reviewable.
+     */
+    private record Weighting(ScoringModel scoring, double[] idf, double averageLength) {
+
+        /**
+         * Computes the weight vector of a reviewable.
+         *
+         * @param terms The term counts of the reviewable.
+         * @return The weights by term id, without terms that have no IDF yet.
+         */
+        private SparseVector vector(ItemTerms terms) {
+            int[] termIds = new int[terms.counts.size()];
+            float[] weights = new float[termIds.length];
+            int[] size = {0};
+            terms.counts.forEach((termId, count) -> {
+                // Terms first seen after the caches were prepared have no IDF yet.
+                if (count > 0 && termId < idf.length) {
+                    termIds[size[0]] = termId;
+                    weights[size[0]++] = (float) (idf[termId]
+                        * scoring.termWeight(count, terms.total, averageLength));
+                }
+            });
+            return SparseVector.of(Arrays.copyOf(termIds, size[0]),
+                Arrays.copyOf(weights, size[0]));
+        }
+    }
 
-    private static boolean cachesAreReady = false;
-    private static String currentUserId;
+    /**
+     * Term counts of part of the reviewables, built by one thread of a parallel scan.
+     * Every part assigns term ids in its own dictionary, so the workers never contend for
+     * a shared one; merging remaps the ids of the smaller part, once per distinct word.
+     */
+    private static final class CorpusCounts {
+        // The words of this part; the term ids below are ids of this dictionary.
+        private final TermDictionary terms = new TermDictionary();
+        // Number of reviewables of this part containing each term id.
+        private IntCountMap docFreq = new IntCountMap();
+        private final Map<String, ItemTerms> items = new HashMap<>();
+
+        private void addItem(String key, List<String> texts) {
+            ItemTerms itemCounts = new ItemTerms();
+            for (String text : texts) {
+                itemCounts.total += ReviewTokenizer.tokenize(text, terms, itemCounts.counts);
+            }
+            itemCounts.counts.forEach((termId, count) -> docFreq.increment(termId));
+            items.put(key, itemCounts);
+        }
 
-    private CommentRecommenderService() { }
+        private CorpusCounts merge(CorpusCounts other) {
+            CorpusCounts larger = items.size() >= other.items.size() ? this : other;
+            CorpusCounts smaller = larger == this ? other : this;
+            smaller.remapInto(larger.terms);
+            smaller.docFreq.forEach(larger.docFreq::add);
+            larger.items.putAll(smaller.items);
+            return larger;
+        }
 
-    public static void setDbInstance(Database db) {
-        dbInstance = db;
+        /**
+         * Rewrites the counts of this part to the term ids of another dictionary, adding
+         * the words it does not know yet.
+         *
+         * @param target The dictionary to take the term ids from.
+         */
+        private void remapInto(TermDictionary target) {
+            int[] targetIds = new int[terms.size()];
+            for (int termId = 0; termId < targetIds.length; termId++) {
+                targetIds[termId] = target.intern(terms.word(termId));
+            }
+            IntCountMap remappedDocFreq = new IntCountMap(docFreq.size());
+            docFreq.forEach((termId, count) -> remappedDocFreq.add(targetIds[termId], count));
+            docFreq = remappedDocFreq;
+            for (Map.Entry<String, ItemTerms> entry : items.entrySet()) {
+                ItemTerms remapped = new ItemTerms();
+                remapped.total = entry.getValue().total;
+                entry.getValue().counts.forEach(
+                    (termId, count) -> remapped.counts.add(targetIds[termId], count));
+                entry.setValue(remapped);
+            }
+        }
     }
 
-    public static void setCurrentUserId(String id) {
-        currentUserId = id;
+    /**
+     * Constructor for the CommentRecommenderService class.
+     * Subscribes to the reviews table, so written reviews update the model.
+     * @param db The database the reviewables and reviews are read from.
+     */
+    public CommentRecommenderService(Database db) {
+        if (db == null) {
+            throw new IllegalArgumentException("Database must not be null.");
+        }
+        this.dbInstance = db;
+        db.getReviewsTable().addChangeListener(pendingChanges::add);
     }
 
-    public static void setAllReviewables() throws IOException {
-        allReviewables = getAllReviewables();
+    /**
+     * Returns the service of the database singleton.
+     * @return The shared CommentRecommenderService.
+     */
+    public static synchronized CommentRecommenderService getInstance() {
+        if (instance == null || instance.dbInstance != Database.getInstance()) {
+            instance = new CommentRecommenderService(Database.getInstance());
+        }
+        return instance;
     }
 
     /**
-     * Invalidates all caches.
+     * Loads all reviewables from the database. The model is rebuilt on the next request.
+     * @throws IOException if there is an error accessing the database.
      */
-    public static synchronized void invalidateCaches() {
-        cachesAreReady = false;
-        if (idfMap != null) {
-            idfMap.clear();
+    public void setAllReviewables() throws IOException {
+        List<Reviewable> reviewables = getAllReviewables();
+        synchronized (this) {
+            allReviewables = reviewables;
+            model.set(null);
         }
-        if (vocabulary != null) {
-            vocabulary.clear();
+    }
+
+    /**
+     * Invalidates all caches. The next build reads every review instead of the stored model.
+     */
+    public synchronized void invalidateCaches() {
+        countsAreReady = false;
+        rebuildRequested = true;
+        idf = new double[0];
+        docFreq = new IntCountMap();
+        itemTerms = new HashMap<>();
+        model.set(null);
+    }
+
+    /**
+     * Loads the TF-IDF model, from the model store if it is up to date and otherwise by
+     * reading every review, and computes the vectors of all reviewables. Called at startup
+     * so the first recommendation is fast.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public void prepareModel() throws IOException {
+        currentModel();
+    }
+
+    /**
+     * Returns the current snapshot, building it if there is none.
+     * @return The model snapshot.
+     * @throws IOException if there is an error accessing the database.
+     */
+    private Model currentModel() throws IOException {
+        if (!pendingChanges.isEmpty()) {
+            applyPendingChanges();
         }
+        Model current = model.get();
+        return current != null ? current : buildModel();
     }
 
     /**
-     * Initializes collections if they are null.
+     * Builds a snapshot from the term counts and publishes it.
+     * @return The new snapshot, or the current one if another thread built it first.
+     * @throws IOException if there is an error accessing the database.
      */
-    private static void initializeCollectionsIfNull() {
-        if (idfMap == null) {
-            idfMap = new HashMap<>();
+    private synchronized Model buildModel() throws IOException {
+        Model current = model.get();
+        if (current != null) {
+            return current;
+        }
+        prepareCaches();
+
+        List<Reviewable> items = Collections.unmodifiableList(new ArrayList<>(allReviewables));
+        Map<String, Integer> slots = new HashMap<>();
+        for (int slot = 0; slot < items.size(); slot++) {
+            slots.putIfAbsent(key(items.get(slot)), slot);
         }
-        if (vocabulary == null) {
-            vocabulary = new LinkedHashSet<>();
+        // The workers must not lock this service, which is held while waiting for them;
+        // the counts cannot change meanwhile, so they read them directly.
+        Map<String, ItemTerms> terms = itemTerms;
+        Weighting weighting = currentWeighting();
+        SparseVector[] vectors = new SparseVector[items.size()];
+        List<Integer> allSlots = IntStream.range(0, items.size()).boxed()
+            .collect(Collectors.toList());
+        ComputePool.getInstance().invokeAll(allSlots, slot -> {
+            ItemTerms itemCounts = terms.get(key(items.get(slot)));
+            vectors[slot] = weighting.vector(itemCounts != null
+                ? itemCounts : readTerms(items.get(slot))).normalize();
+        });
+
+        LshIndex index = new LshIndex(annTables, annBitsPerTable, annProbes, ANN_SEED);
+        for (int slot = 0; slot < vectors.length; slot++) {
+            index.put(slot, vectors[slot]);
         }
+        Model built = new Model(items, Collections.unmodifiableMap(slots),
+            CsrMatrix.of(vectors), index);
+        model.set(built);
+        return built;
     }
 
     /**
-     * Prepares the caches for TF-IDF calculations.
+     * Prepares the term counts for TF-IDF calculations. Without an up-to-date stored model,
+     * the reviews are read once and counted in parallel, each worker counting its own part
+     * of the reviewables before the parts are merged.
      * @throws IOException if there is an error accessing the database.
      */
-    private static synchronized void prepareCaches() throws IOException {
-        if (cachesAreReady || allReviewables.isEmpty()) {
+    private synchronized void prepareCaches() throws IOException {
+        if (countsAreReady || allReviewables.isEmpty()) {
             return;
         }
 
-        initializeCollectionsIfNull();
+        if (!rebuildRequested && loadStoredModel()) {
+            countsAreReady = true;
+            return;
+        }
+        rebuildRequested = false;
+
+        // The reviews read below include the queued changes.
+        pendingChanges.clear();
+        Map<String, List<String>> texts = readReviewTexts();
+        List<String> keys = allReviewables.stream().map(CommentRecommenderService::key)
+            .distinct().collect(Collectors.toList());
+        CorpusCounts corpus = ComputePool.getInstance().mapReduce(keys, CorpusCounts::new,
+            (partial, key) -> partial.addItem(key, texts.getOrDefault(key, List.of())),
+            CorpusCounts::merge);
+        // Term ids stay valid across rebuilds, so the words join the service dictionary.
+        corpus.remapInto(dictionary);
+        docFreq = corpus.docFreq;
+        itemTerms = corpus.items;
+        totalDocs = allReviewables.size();
+        recomputeIdf();
+
+        countsAreReady = true;
+        try {
+            dbInstance.getModelStore().save(snapshotModel());
+        } catch (IOException e) {
+            System.err.println("Could not store the TF-IDF model: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the text of every review in one pass over the reviews table, without
+     * turning the lines into Review objects.
+     * @return The review texts keyed by "id::TYPE" of the reviewed item.
+     * @throws IOException if there is an error reading the reviews table.
+     */
+    private Map<String, List<String>> readReviewTexts() throws IOException {
+        Map<String, List<String>> texts = new HashMap<>();
+        for (Map<String, String> line : dbInstance.getReviewsTable().getAllLines()) {
+            String targetId = line.get("target_id");
+            String type = line.get("reviewable_type");
+            if (targetId != null && type != null) {
+                texts.computeIfAbsent(targetId + "::" + type, k -> new ArrayList<>())
+                    .add(line.get("content"));
+            }
+        }
+        return texts;
+    }
 
-        Map<String, Integer> docFreq = new HashMap<>();
-        int totalDocs = allReviewables.size();
+    /**
+     * Replaces the caches with the stored model if it matches the current catalog.
+     * @return true if the stored model was loaded.
+     */
+    private boolean loadStoredModel() {
+        StoredModel stored = dbInstance.getModelStore().load();
+        if (stored == null || stored.totalDocs() != allReviewables.size()) {
+            return false;
+        }
+        TermDictionary loadedDictionary = new TermDictionary();
+        for (String word : stored.words()) {
+            loadedDictionary.intern(word);
+        }
+        IntCountMap loadedDocFreq = new IntCountMap();
+        Map<String, ItemTerms> loadedItemTerms = new HashMap<>();
+        for (Map.Entry<String, ItemCounts> entry : stored.items().entrySet()) {
+            ItemTerms terms = new ItemTerms();
+            ItemCounts counts = entry.getValue();
+            terms.total = counts.total();
+            for (int i = 0; i < counts.termIds().length; i++) {
+                terms.counts.add(counts.termIds()[i], counts.counts()[i]);
+                loadedDocFreq.increment(counts.termIds()[i]);
+            }
+            loadedItemTerms.put(entry.getKey(), terms);
+        }
+        dictionary = loadedDictionary;
+        docFreq = loadedDocFreq;
+        itemTerms = loadedItemTerms;
+        totalDocs = stored.totalDocs();
+        // The stored weights may come from another scoring model; the counts are enough.
+        recomputeIdf();
+        return true;
+    }
 
-        for (Reviewable item : allReviewables) {
-            Set<String> uniqueWords = new HashSet<>();
-            for (Review review : dbInstance.getReviews(item)) {
-                String[] words = review.getText().toLowerCase().split("\\W+");
-                for (String word : words) {
-                    if (!word.isEmpty()) {
-                        
-                        vocabulary.add(word);
-                        uniqueWords.add(word);
-                    }
+    /**
+     * Copies the current term counts for the model store.
+     * @return The model, or null if the counts are not built.
+     */
+    private synchronized StoredModel snapshotModel() {
+        if (!countsAreReady) {
+            return null;
+        }
+        List<String> words = new ArrayList<>(dictionary.size());
+        for (int termId = 0; termId < dictionary.size(); termId++) {
+            words.add(dictionary.word(termId));
+        }
+        Map<String, ItemCounts> items = new HashMap<>();
+        for (Map.Entry<String, ItemTerms> entry : itemTerms.entrySet()) {
+            IntCountMap counts = entry.getValue().counts;
+            int[] termIds = new int[counts.size()];
+            int[] termCounts = new int[counts.size()];
+            int[] size = {0};
+            counts.forEach((termId, count) -> {
+                if (count > 0) {
+                    termIds[size[0]] = termId;
+                    termCounts[size[0]++] = count;
                 }
+            });
+            items.put(entry.getKey(), new ItemCounts(entry.getValue().total,
+                Arrays.copyOf(termIds, size[0]), Arrays.copyOf(termCounts, size[0])));
+        }
+        return new StoredModel(totalDocs, words, idf.clone(), items);
+    }
+
+    /**
+     * Updates the term counts after a review was written, instead of rebuilding the model.
+     * The document frequencies and IDF weights of the terms of the review are adjusted and
+     * the vector of the reviewed item is recomputed. Vectors of other items keep their
+     * previous IDF weights until the next full rebuild.
+     * Reviews written to the reviews table are applied already, so this is only for
+     * reviews the table does not hold.
+     * @param target The reviewed item.
+     * @param text The text of the new review.
+     */
+    void onReviewAdded(Reviewable target, String text) {
+        onReviewChanged(target == null ? null : key(target), null, text);
+    }
+
+    /**
+     * Updates the term counts after a review was edited, like {@link #onReviewAdded}.
+     * @param target The reviewed item.
+     * @param oldText The text of the review before the edit.
+     * @param newText The text of the review after the edit.
+     */
+    void onReviewEdited(Reviewable target, String oldText, String newText) {
+        onReviewChanged(target == null ? null : key(target), oldText, newText);
+    }
+
+    /**
+     * Applies the queued changes of the reviews table to the term counts, in order.
+     * A replaced table is read again by the next build.
+     */
+    private synchronized void applyPendingChanges() {
+        TableChange change;
+        while ((change = pendingChanges.poll()) != null) {
+            if (change.getKind() == TableChange.Kind.REPLACED) {
+                invalidateCaches();
+                pendingChanges.clear();
+                return;
+            }
+            if (change.getKind() == TableChange.Kind.RESEQUENCED) {
+                // Renumbering reviews changes no text.
+                continue;
             }
-            for (String word : uniqueWords) {
-                docFreq.merge(word, 1, Integer::sum);
+            Map<String, String> oldLine = change.getOldLine();
+            Map<String, String> newLine = change.getNewLine();
+            String oldKey = oldLine == null ? null : lineKey(oldLine);
+            String newKey = newLine == null ? null : lineKey(newLine);
+            String oldText = oldLine == null ? null : oldLine.get("content");
+            String newText = newLine == null ? null : newLine.get("content");
+            if (oldKey != null && oldKey.equals(newKey)) {
+                onReviewChanged(oldKey, oldText, newText);
+            } else {
+                onReviewChanged(oldKey, oldText, null);
+                onReviewChanged(newKey, null, newText);
             }
         }
+    }
+
+    /**
+     * Returns the key of the item a review line is about.
+     * @param line The review line.
+     * @return The key "id::TYPE", or null if the line names no item.
+     */
+    private static String lineKey(Map<String, String> line) {
+        String targetId = line.get("target_id");
+        String type = line.get("reviewable_type");
+        if (targetId == null || type == null) {
+            return null;
+        }
+        try {
+            return targetId + "::" + ReviewableType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping review of unknown type: " + type);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the terms of a review in the counts of the reviewed item and publishes a
+     * snapshot with its new vector. Does nothing before the counts are built, as the
+     * build will read the review anyway.
+     * @param itemKey The key of the reviewed item, or null.
+     * @param removedText The text to remove from the counts, or null.
+     * @param addedText The text to add to the counts, or null.
+     */
+    private synchronized void onReviewChanged(String itemKey, String removedText,
+        String addedText) {
+        if (!countsAreReady || itemKey == null) {
+            return;
+        }
+        ItemTerms terms = itemTerms.computeIfAbsent(itemKey, k -> new ItemTerms());
+        IntCountMap removed = new IntCountMap();
+        IntCountMap added = new IntCountMap();
+        int lengthBefore = terms.total;
+        terms.total -= ReviewTokenizer.tokenize(removedText, dictionary, removed);
+        terms.total += ReviewTokenizer.tokenize(addedText, dictionary, added);
+        totalLength += terms.total - lengthBefore;
+        removed.forEach((termId, count) -> adjustTermCount(terms, termId, -count));
+        added.forEach((termId, count) -> adjustTermCount(terms, termId, count));
+        dbInstance.getModelStore().scheduleSave(() -> {
+            compactModel();
+            return snapshotModel();
+        });
+
+        Model current = model.get();
+        Integer slot = current == null ? null : current.slotsByKey().get(itemKey);
+        if (slot != null) {
+            model.set(current.withVector(slot, currentWeighting().vector(terms).normalize()));
+        }
+    }
+
+    /**
+     * Compacts the current snapshot off the write path, with the delayed save of the
+     * model, so a burst of review updates is folded in with one rebuild.
+     */
+    void compactModel() {
+        Model current = model.get();
+        if (current != null) {
+            // A review written meanwhile publishes a newer snapshot and schedules another
+            // save, which compacts that one instead.
+            model.compareAndSet(current, current.compacted());
+        }
+    }
+
+    /**
+     * Changes the count of a term in an item, updating its document frequency and IDF
+     * when the item gains its first or loses its last occurrence of the term.
+     * @param terms The term counts of the item.
+     * @param termId The term id.
+     * @param delta The change in the number of occurrences.
+     */
+    private void adjustTermCount(ItemTerms terms, int termId, int delta) {
+        int before = terms.counts.get(termId);
+        terms.counts.add(termId, delta);
+        int after = before + delta;
+        if (before <= 0 && after > 0) {
+            docFreq.increment(termId);
+            updateIdf(termId);
+        } else if (before > 0 && after <= 0) {
+            docFreq.add(termId, -1);
+            updateIdf(termId);
+        }
+    }
+
+    /**
+     * Recomputes the IDF weight of a term from its document frequency.
+     * @param termId The term id.
+     */
+    private void updateIdf(int termId) {
+        if (termId >= idf.length) {
+            idf = Arrays.copyOf(idf, Math.max(dictionary.size(), termId + 1));
+        }
+        int frequency = docFreq.get(termId);
+        idf[termId] = frequency <= 0 ? 0 : scoringModel.idf(frequency, totalDocs);
+    }
+
+    /**
+     * Recomputes the IDF weights of all terms and the total length from the counts.
+     */
+    private void recomputeIdf() {
+        idf = new double[dictionary.size()];
+        docFreq.forEach((termId, count) -> updateIdf(termId));
+        totalLength = 0;
+        for (ItemTerms terms : itemTerms.values()) {
+            totalLength += terms.total;
+        }
+    }
+
+    /**
+     * Captures the current scoring model and corpus statistics.
+     * @return The weighting.
+     */
+    private synchronized Weighting currentWeighting() {
+        double averageLength = totalDocs == 0 ? 0 : (double) totalLength / totalDocs;
+        return new Weighting(scoringModel, idf, averageLength);
+    }
 
-        for (Map.Entry<String, Integer> entry : docFreq.entrySet()) {
-            idfMap.put(entry.getKey(), Math.log((double) totalDocs / entry.getValue()));
+    /**
+     * Changes how the terms of the reviews are weighted. The IDF weights are recomputed
+     * from the kept counts and the vectors are rebuilt on the next request.
+     * @param scoring The scoring model, e.g. TF-IDF or BM25.
+     * @throws IllegalArgumentException if the scoring model is null.
+     */
+    public synchronized void setScoringModel(ScoringModel scoring) {
+        if (scoring == null) {
+            throw new IllegalArgumentException("Scoring model must not be null.");
+        }
+        scoringModel = scoring;
+        if (countsAreReady) {
+            recomputeIdf();
         }
+        model.set(null);
+    }
+
+    public synchronized ScoringModel getScoringModel() {
+        return scoringModel;
+    }
+
+    /**
+     * Returns the number of reviewables whose reviews contain a word.
+     * @param word The lower-case word.
+     * @return The document frequency of the word.
+     */
+    synchronized int getDocumentFrequency(String word) {
+        int termId = dictionary.idOf(word);
+        return termId < 0 ? 0 : docFreq.get(termId);
+    }
+
+    /**
+     * Returns the matrix of the current snapshot.
+     * @return The matrix, or null if the model is not built.
+     */
+    CsrMatrix getMatrix() {
+        Model current = model.get();
+        return current == null ? null : current.matrix();
+    }
 
-        cachesAreReady = true;
+    /**
+     * Returns the nearest-neighbour index of the current snapshot.
+     * @return The index, or null if the model is not built.
+     */
+    LshIndex getIndex() {
+        Model current = model.get();
+        return current == null ? null : current.index();
     }
 
     /**
-     * Computes the term frequency (TF) map for a given reviewable item.
+     * Returns the key identifying a reviewable in the caches.
+     * @param item The reviewable.
+     * @return The key "id::TYPE".
+     */
+    private static String key(Reviewable item) {
+        return item.getId() + "::" + item.getType();
+    }
+
+    /**
+     * Computes the term frequency (TF) vector for a given reviewable item.
+     * Uses the term counts kept since the caches were built, reading the reviews of
+     * the item only if it is not in the caches.
      * @param item The reviewable item to compute TF for.
-     * @return A map of terms and their corresponding TF values.
+     * @return A sparse vector of the TF value of every term, indexed by term id.
      */
-    public static Map<String, Double> computeTfMap(Reviewable item) {
-        try {
-            List<Review> reviews = dbInstance.getReviews(item);
-            Map<String, Integer> count = new HashMap<>();
-            int totalTerms = 0;
-
-            for (Review c : reviews) {
-                String[] words = c.getText().toLowerCase().split("\\W+");
-                for (String word : words) {
-                    if (!word.isEmpty()) {
-                        count.merge(word, 1, Integer::sum);
-                        totalTerms++;
-                    }
-                }
+    public SparseVector computeTfVector(Reviewable item) {
+        synchronized (this) {
+            ItemTerms terms = itemTerms.get(key(item));
+            if (terms != null) {
+                return toTfVector(terms.counts, terms.total);
             }
+        }
+        ItemTerms terms = readTerms(item);
+        return toTfVector(terms.counts, terms.total);
+    }
 
-            Map<String, Double> tfMap = new HashMap<>();
-            if (totalTerms > 0) {
-                for (Map.Entry<String, Integer> entry : count.entrySet()) {
-                    tfMap.put(entry.getKey(), (double) entry.getValue() / totalTerms);
-                }
+    /**
+     * Counts the terms of a reviewable by reading its reviews.
+     * @param item The reviewable item.
+     * @return The term counts.
+     */
+    private ItemTerms readTerms(Reviewable item) {
+        try {
+            ItemTerms terms = new ItemTerms();
+            for (Review c : dbInstance.getReviews(item)) {
+                terms.total += ReviewTokenizer.tokenize(c.getText(), dictionary, terms.counts);
             }
-            return tfMap;
+            return terms;
 
         } catch (IOException e) {
             throw new RuntimeException("Error fetching reviews for item: " + item.getId(), e);
@@ -140,21 +723,42 @@ public class CommentRecommenderService {
     }
 
     /**
-     * Computes the TF-IDF vector for a given reviewable item.
-     * @param item The reviewable item to compute the TF-IDF vector for.
-     * @return A double array representing the TF-IDF vector.
-     * @throws IOException if there is an error accessing the database.
+     * Turns term counts into a TF vector.
+     * @param counts The number of occurrences of each term id.
+     * @param totalTerms The total number of words.
+     * @return The TF vector, without the terms counted zero times.
      */
-    public static double[] computeTfIdfVector(Reviewable item) throws IOException {
-        prepareCaches();
-        Map<String, Double> tfMap = item.getTfMap();
-        double[] vector = new double[vocabulary.size()];
+    private static SparseVector toTfVector(IntCountMap counts, int totalTerms) {
+        if (totalTerms <= 0) {
+            return SparseVector.EMPTY;
+        }
+        int[] termIds = new int[counts.size()];
+        float[] tf = new float[counts.size()];
+        int[] position = {0};
+        float total = totalTerms;
+        counts.forEach((termId, count) -> {
+            termIds[position[0]] = termId;
+            tf[position[0]++] = Math.max(0, count) / total;
+        });
+        return SparseVector.of(termIds, tf);
+    }
 
-        int i = 0;
-        for (String word : vocabulary) {
-            vector[i++] = tfMap.getOrDefault(word, 0.0) * idfMap.getOrDefault(word, 0.0);
+    /**
+     * Computes the weight vector of a reviewable item under the current scoring model.
+     * Only the words occurring in the reviews of the item are stored.
+     * @param item The reviewable item to compute the vector for.
+     * @return A sparse vector of term weights indexed by term id.
+     */
+    public SparseVector computeWeightVector(Reviewable item) {
+        Weighting weighting;
+        synchronized (this) {
+            weighting = currentWeighting();
+            ItemTerms terms = itemTerms.get(key(item));
+            if (terms != null) {
+                return weighting.vector(terms);
+            }
         }
-        return vector;
+        return weighting.vector(readTerms(item));
     }
 
     /**
@@ -162,13 +766,13 @@ public class CommentRecommenderService {
      * @return A list of all reviewable items.
      * @throws IOException if there is an error accessing the database.
      */
-    private static List<Reviewable> getAllReviewables() throws IOException {
+    private List<Reviewable> getAllReviewables() throws IOException {
         List<Reviewable> reviewables = new ArrayList<>();
         for (ReviewableType type : ReviewableType.values()) {
             try {
                 reviewables.addAll(getAllItemsInTable(dbInstance.getReviewableTable(type)));
             } catch (IOException e) {
-                System.err.println("Error fetching reviewables of type " 
+                System.err.println("Error fetching reviewables of type "
                     + type + ": " + e.getMessage());
             }
         }
@@ -181,157 +785,208 @@ public class CommentRecommenderService {
      * @return A list of Reviewable items.
      * @throws IOException if there is an error accessing the database.
      */
-    private static List<Reviewable> getAllItemsInTable(Table table) throws IOException {
+    private List<Reviewable> getAllItemsInTable(Table table) throws IOException {
         return table.getAllLines().stream()
             .map(dbInstance::turnLineToReviewable)
             .collect(Collectors.toList());
     }
 
     /**
-     * Gets the liked items for the current user based on their reviews.
-     * @param allItemsMap A map of all reviewable items keyed by "id::type".
-     * @return A list of liked Reviewable items.
+     * Gets the slots of the items a user liked, based on their reviews.
+     * @param snapshot The model snapshot.
+     * @param userId The id of the user.
+     * @return The slots of the liked items.
      * @throws IOException if there is an error accessing the database.
      */
-    private static List<Reviewable> getLikedItems(Map<String, Reviewable> allItemsMap)
-        throws IOException {
-
-        List<Reviewable> likedItems = new ArrayList<>();
-        List<Map<String, String>> myReviews = 
-            dbInstance.getReviewsTable().getLines("user_id", currentUserId);
-
-        for (Map<String, String> reviewData : myReviews) {
-            try {
-                if (Integer.parseInt(reviewData.get("rating")) >= 3) {
-                    String targetId = reviewData.get("target_id");
-                    String typeStr = reviewData.get("reviewable_type");
-
-                    if (targetId == null || typeStr == null
-                        || targetId.isEmpty() || typeStr.isEmpty()) {
-
-                        System.err.println("Skipping review due to missing data: " + reviewData);
-                        continue;
-                    }
-
-                    ReviewableType type = ReviewableType.valueOf(typeStr.toUpperCase());
-                    String key = targetId + "::" + type;
-                    Reviewable item = allItemsMap.get(key);
-                    if (item != null) {
-                        likedItems.add(item);
-                    } else {
-                        System.err.println("Missing item in map for key: " + key);
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Skipping review due to error: " + e.getMessage());
+    private BitSet getLikedSlots(Model snapshot, String userId) throws IOException {
+        BitSet likedSlots = new BitSet();
+        for (Map<String, String> reviewData
+            : dbInstance.getReviewsTable().getLines("user_id", userId)) {
+            int slot = likedSlot(snapshot, reviewData);
+            if (slot >= 0) {
+                likedSlots.set(slot);
             }
         }
-
-        return likedItems;
+        return likedSlots;
     }
 
     /**
-     * Gets recommendations based on the user's liked items.
-     * @return A list of recommended Reviewable items.
-     * @throws IOException if there is an error accessing the database.
+     * Returns the slot of the item a review likes.
+     * @param snapshot The model snapshot.
+     * @param reviewData The review line.
+     * @return The slot of the reviewed item, or -1 if the rating is below 3 or the review
+     *     cannot be matched to an item.
      */
-    public static List<Reviewable> getRecommendations() throws IOException {
-        prepareCaches();
+    private static int likedSlot(Model snapshot, Map<String, String> reviewData) {
+        try {
+            if (Integer.parseInt(reviewData.get("rating")) < 3) {
+                return -1;
+            }
+            String targetId = reviewData.get("target_id");
+            String typeStr = reviewData.get("reviewable_type");
 
-        Map<String, Reviewable> allItemsMap = allReviewables.stream()
-                .collect(Collectors.toMap(
-                        item -> item.getId() + "::" + item.getType(),
-                        item -> item));
+            if (targetId == null || typeStr == null
+                || targetId.isEmpty() || typeStr.isEmpty()) {
 
-        List<Reviewable> likedItems = getLikedItems(allItemsMap);
-        if (likedItems.isEmpty()) {
-            return new ArrayList<>();
-        }
+                System.err.println("Skipping review due to missing data: " + reviewData);
+                return -1;
+            }
 
-        Set<String> likedKeys = likedItems.stream()
-                .map(item -> item.getId() + "::" + item.getType())
-                .collect(Collectors.toSet());
+            ReviewableType type = ReviewableType.valueOf(typeStr.toUpperCase());
+            String key = targetId + "::" + type;
+            Integer slot = snapshot.slotsByKey().get(key);
+            if (slot == null) {
+                System.err.println("Missing item in map for key: " + key);
+                return -1;
+            }
+            return slot;
+        } catch (Exception e) {
+            System.err.println("Skipping review due to error: " + e.getMessage());
+            return -1;
+        }
+    }
 
-        computeTfIdfForAll(allReviewables);
+    /**
+     * Averages the vectors of a set of slots into a profile to rank items against.
+     * @param snapshot The model snapshot.
+     * @param slots The slots.
+     * @return The average vector.
+     */
+    private static SparseVector profileVector(Model snapshot, BitSet slots) {
+        List<SparseVector> vectors = new ArrayList<>();
+        slots.stream().forEach(slot -> vectors.add(snapshot.matrix().row(slot)));
+        return SparseVector.average(vectors);
+    }
 
-        double[] avgVector = new double[vocabulary.size()];
-        for (Reviewable liked : likedItems) {
-            double[] vec = liked.getTfIdfVector();
-            for (int i = 0; i < vec.length; i++) {
-                avgVector[i] += vec[i];
+    /**
+     * Measures how well the current scoring model predicts what users like, offline, by
+     * leave-one-out: for every user with at least two liked items, each liked item is
+     * hidden in turn and counts as a hit if it is among the top n items recommended from
+     * the other liked items. Every item is scored, so the index does not affect the result.
+     * @param n The number of recommendations a hidden item has to be among.
+     * @return The number of hits and trials.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public HitRate evaluateHitRate(int n) throws IOException {
+        Model snapshot = currentModel();
+        Map<String, BitSet> likedByUser = new HashMap<>();
+        for (Map<String, String> reviewData : dbInstance.getReviewsTable().getAllLines()) {
+            int slot = likedSlot(snapshot, reviewData);
+            if (slot >= 0) {
+                likedByUser.computeIfAbsent(reviewData.get("user_id"), k -> new BitSet())
+                    .set(slot);
             }
         }
-        for (int i = 0; i < avgVector.length; i++) {
-            avgVector[i] /= likedItems.size();
-        }
 
-        List<Map.Entry<Reviewable, Double>> scored = new ArrayList<>();
-        for (Reviewable item : allReviewables) {
-            if (likedKeys.contains(item.getId() + "::" + item.getType())) {
+        int hits = 0;
+        int trials = 0;
+        for (BitSet liked : likedByUser.values()) {
+            if (liked.cardinality() < 2) {
                 continue;
             }
-            double[] vec = item.getTfIdfVector();
-            Double angle = computeAngleBetweenVectors(avgVector, vec);
-            if (!angle.isNaN()) {
-                scored.add(Map.entry(item, angle));
+            for (int hidden = liked.nextSetBit(0); hidden >= 0;
+                hidden = liked.nextSetBit(hidden + 1)) {
+                BitSet profile = (BitSet) liked.clone();
+                profile.clear(hidden);
+                BitSet top = new BitSet();
+                for (int slot : scoreAll(snapshot.matrix(), profileVector(snapshot, profile),
+                    n, profile)) {
+                    top.set(slot);
+                }
+                trials++;
+                hits += top.get(hidden) ? 1 : 0;
             }
         }
-
-        scored.sort(Map.Entry.comparingByValue());
-
-        // Clean up memory.
-        idfMap = null;
-        vocabulary = null;
-        dbInstance = null;
-
-        return scored.stream().limit(10).map(Map.Entry::getKey).collect(Collectors.toList());
+        return new HitRate(hits, trials);
     }
 
     /**
-     * Computes the TF-IDF for all reviewable items in batches.
-     * @param items The list of reviewable items to compute TF-IDF for.
+     * Gets recommendations based on the items a user liked. Safe to call from many
+     * threads at once; every call works on the snapshot current when it started.
+     * @param userId The id of the user.
+     * @return A list of at most 10 recommended Reviewable items.
+     * @throws IllegalArgumentException if the user id is null.
      * @throws IOException if there is an error accessing the database.
      */
-    private static void computeTfIdfForAll(List<Reviewable> items) throws IOException {
-        int batchSize = 6;
-        int total = items.size();
-        int fullBatches = total / batchSize;
-
-        for (int i = 0; i < fullBatches; i++) {
-            CustomThread.execute(
-                items.subList(i * batchSize, i * batchSize + batchSize).toArray(new Reviewable[0])
-            );
+    public List<Reviewable> getRecommendations(String userId) throws IOException {
+        if (userId == null) {
+            throw new IllegalArgumentException("User id must not be null.");
+        }
+        Model snapshot = currentModel();
+        BitSet likedSlots = getLikedSlots(snapshot, userId);
+        if (likedSlots.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        if (fullBatches * batchSize < total) {
-            CustomThread.execute(
-                items.subList(fullBatches * batchSize, total).toArray(new Reviewable[0])
-            );
+        SparseVector avgVector = profileVector(snapshot, likedSlots);
+
+        int[] topSlots = exactSearch
+            ? scoreAll(snapshot.matrix(), avgVector, MAX_RECOMMENDATIONS, likedSlots)
+            : snapshot.index().query(avgVector, MAX_RECOMMENDATIONS, likedSlots::get);
+
+        List<Reviewable> recommendations = new ArrayList<>();
+        for (int slot : topSlots) {
+            recommendations.add(snapshot.items().get(slot));
         }
+        return recommendations;
     }
 
     /**
-     * Computes the angle between two vectors using the dot product and magnitudes.
-     * @param a The first vector.
-     * @param b The second vector.
-     * @return The angle in degrees between the two vectors, or NaN if either vector is zero.
+     * Ranks every slot by its dot product with a query, which is the cosine as the rows are
+     * normalised (the query's own length does not change the order).
+     * @param matrix The normalised vectors of all slots.
+     * @param query The query vector.
+     * @param k The maximum number of slots to return.
+     * @param excluded The slots to leave out.
+     * @return The best slots, highest score first; equal scores in ascending slot order.
      */
-    private static Double computeAngleBetweenVectors(double[] a, double[] b) {
-        double dot = 0.0;
-        double magA = 0.0;
-        double magB = 0.0;
-        for (int i = 0; i < a.length; i++) {
-            dot += a[i] * b[i];
-            magA += a[i] * a[i];
-            magB += b[i] * b[i];
+    private static int[] scoreAll(CsrMatrix matrix, SparseVector query, int k,
+        BitSet excluded) {
+        float[] scores = matrix.multiply(matrix.densify(query));
+        int[] top = new int[k];
+        int size = 0;
+        for (int slot = 0; slot < scores.length; slot++) {
+            if (excluded.get(slot) || matrix.rowSize(slot) == 0) {
+                continue;
+            }
+            // Insertion into the short sorted list; a later slot only passes a higher score.
+            int position = size;
+            while (position > 0 && scores[top[position - 1]] < scores[slot]) {
+                position--;
+            }
+            if (position < k) {
+                int moved = Math.min(size, k - 1) - position;
+                System.arraycopy(top, position, top, position + 1, moved);
+                top[position] = slot;
+                size = Math.min(size + 1, k);
+            }
         }
+        return Arrays.copyOf(top, size);
+    }
 
-        if (magA == 0.0 || magB == 0.0) {
-            return Double.NaN;
-        }
+    /**
+     * Sets the recall/latency trade-off of the nearest-neighbour index. More tables and
+     * probes find more of the truly most similar items, more bits per table make queries
+     * faster. The index is rebuilt on the next request.
+     * @param tables The number of hash tables.
+     * @param bitsPerTable The number of hyperplanes per table, between 1 and 30.
+     * @param probes The number of extra buckets probed per table, at most bitsPerTable.
+     * @throws IllegalArgumentException if a parameter is out of range.
+     */
+    public synchronized void configureAnnIndex(int tables, int bitsPerTable, int probes) {
+        new LshIndex(tables, bitsPerTable, probes, ANN_SEED); // Validates the parameters.
+        annTables = tables;
+        annBitsPerTable = bitsPerTable;
+        annProbes = probes;
+        model.set(null);
+    }
 
-        double cosTheta = dot / (Math.sqrt(magA) * Math.sqrt(magB));
-        cosTheta = Math.max(-1.0, Math.min(1.0, cosTheta));
-        return Math.toDegrees(Math.acos(cosTheta));
+    /**
+     * Makes recommendations score every item instead of using the nearest-neighbour
+     * index, e.g. to validate the recall of the index.
+     * @param exact true to score every item.
+     */
+    public void setExactSearch(boolean exact) {
+        exactSearch = exact;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,386 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Shared work-stealing pool for CPU-bound work such as computing TF-IDF vectors.
+ * A job over a list is split recursively into ranges that idle workers steal, so all
+ * cores stay busy until the whole list is done, and no threads are created per job.
+ * The first failing item cancels the rest of its job and is rethrown by {@link Job#await}.
+ */
+public class ComputePool {
+
+    // Ranges of at most this many items are processed by one task without splitting.
+    private static final int LEAF_SIZE = 4;
+
+    private static ComputePool instance;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Work applied to every item of a job.
+     *
+     * @param <T> The type of the items.
+     */
+    @FunctionalInterface
+    public interface ItemTask<T> {
+        /**
+         * Processes one item.
+         *
+         * @param item The item.
+         * @throws IOException if the item cannot be processed.
+         */
+        void process(T item) throws IOException;
+    }
+
+    /**
+     * Work applied to a block of consecutive indices.
+     */
+    @FunctionalInterface
+    public interface BlockTask {
+        /**
+         * Processes the indices from (inclusive) to (exclusive).
+         *
+         * @param from The first index of the block.
+         * @param to The index after the last of the block.
+         * @throws IOException if the block cannot be processed.
+         */
+        void process(int from, int to) throws IOException;
+    }
+
+    /**
+     * Adds one item to a partial result of a map-reduce job.
+     *
+     * @param <A> The type of the partial results.
+     * @param <T> The type of the items.
+     */
+    @FunctionalInterface
+    public interface Accumulator<A, T> {
+        /**
+         * Adds one item to a partial result.
+         *
+         * @param partial The partial result, only used by the current thread.
+         * @param item The item.
+         * @throws IOException if the item cannot be processed.
+         */
+        void accumulate(A partial, T item) throws IOException;
+    }
+
+    /**
+     * Callback receiving the progress of a job. Called on the worker threads after every
+     * item, so it should be cheap and thread-safe.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Receives the progress of a job.
+         *
+         * @param completed The number of items processed so far.
+         * @param total The number of items in the job.
+         */
+        void onProgress(int completed, int total);
+    }
+
+    /**
+     * Handle of a submitted job.
+     */
+    public static final class Job {
+        private final int total;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private ForkJoinTask<?> task;
+
+        private Job(int total) {
+            this.total = total;
+        }
+
+        /**
+         * Stops the job. Items already being processed finish, the others are skipped.
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Waits until the job has finished.
+         *
+         * @throws IOException if an item failed with an IOException, or the waiting
+         *     thread was interrupted, which also cancels the job.
+         * @throws CancellationException if the job was cancelled.
+         */
+        public void await() throws IOException {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a compute job.");
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, e.getCause());
+            }
+            Throwable cause = failure.get();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
+            } else if (cancelled.get() && completed.get() < total) {
+                throw new CancellationException("Compute job was cancelled.");
+            }
+        }
+
+        private void fail(Throwable cause) {
+            if (!failure.compareAndSet(null, cause)) {
+                failure.get().addSuppressed(cause);
+            }
+            cancel();
+        }
+    }
+
+    /**
+     * Constructor for the ComputePool class.
+     *
+     * @param parallelism The number of worker threads.
+     */
+    public ComputePool(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("compute-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Returns the shared pool, with one worker per available core.
+     *
+     * @return The shared compute pool.
+     */
+    public static synchronized ComputePool getInstance() {
+        if (instance == null) {
+            instance = new ComputePool(Runtime.getRuntime().availableProcessors());
+        }
+        return instance;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Submits a job processing every item of a list in parallel.
+     *
+     * @param items The items; the list must not change while the job runs.
+     * @param task The work to apply to every item.
+     * @param progress The progress listener, or null.
+     * @param <T> The type of the items.
+     * @return The handle of the job.
+     */
+    public <T> Job forEach(List<T> items, ItemTask<T> task, ProgressListener progress) {
+        Job job = new Job(items.size());
+        job.task = pool.submit(new RangeTask<>(items, 0, items.size(), task, progress, job));
+        return job;
+    }
+
+    /**
+     * Processes every item of a list in parallel and waits for the result.
+     *
+     * @param items The items.
+     * @param task The work to apply to every item.
+     * @param <T> The type of the items.
+     * @throws IOException if an item failed, see {@link Job#await}.
+     */
+    public <T> void invokeAll(List<T> items, ItemTask<T> task) throws IOException {
+        forEach(items, task, null).await();
+    }
+
+    /**
+     * Processes the indices 0 to count - 1 in parallel, in blocks of consecutive indices,
+     * and waits for the result. A task per block rather than per index keeps each worker
+     * on its own contiguous stretch of arrays. A single block runs on the calling thread.
+     *
+     * @param count The number of indices.
+     * @param blockSize The maximum number of indices per block.
+     * @param task The work to apply to every block.
+     * @throws IOException if a block failed, see {@link Job#await}.
+     * @throws IllegalArgumentException if the block size is not positive.
+     */
+    public void invokeBlocks(int count, int blockSize, BlockTask task) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (count <= blockSize) {
+            task.process(0, count);
+            return;
+        }
+        List<Integer> starts = new ArrayList<>();
+        for (int start = 0; start < count; start += blockSize) {
+            starts.add(start);
+        }
+        invokeAll(starts, start -> task.process(start, Math.min(start + blockSize, count)));
+    }
+
+    /**
+     * Reduces a list in parallel. Every range of the list is accumulated into its own
+     * partial result, which only one thread touches, and the partial results are merged
+     * pairwise as the ranges are joined, so no locking is needed while accumulating.
+     *
+     * @param items The items; the list must not change while the job runs.
+     * @param newPartial Creates an empty partial result.
+     * @param accumulator Adds an item to a partial result.
+     * @param merger Merges two partial results, returning the merged one.
+     * @param <T> The type of the items.
+     * @param <A> The type of the partial results.
+     * @return The merged result.
+     * @throws IOException if an item failed, see {@link Job#await}.
+     */
+    public <T, A> A mapReduce(List<T> items, Supplier<A> newPartial,
+        Accumulator<A, T> accumulator, BinaryOperator<A> merger) throws IOException {
+        Job job = new Job(items.size());
+        ForkJoinTask<A> task = pool.submit(
+            new ReduceTask<>(items, 0, items.size(), newPartial, accumulator, merger, job));
+        job.task = task;
+        job.await();
+        return task.join();
+    }
+
+    /**
+     * Processes a range of a job, splitting it in halves while it is larger than a leaf.
+     *
+     * @param <T> The type of the items.
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask<T> extends RecursiveAction {
+        private final List<T> items;
+        private final int from;
+        private final int to;
+        private final ItemTask<T> task;
+        private final ProgressListener progress;
+        private final Job job;
+
+        private RangeTask(List<T> items, int from, int to, ItemTask<T> task,
+            ProgressListener progress, Job job) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.task = task;
+            this.progress = progress;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled()) {
+                return;
+            }
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask<>(items, from, middle, task, progress, job),
+                    new RangeTask<>(items, middle, to, task, progress, job));
+                return;
+            }
+            for (int i = from; i < to && !job.isCancelled(); i++) {
+                try {
+                    task.process(items.get(i));
+                } catch (IOException | RuntimeException | Error e) {
+                    job.fail(e);
+                    return;
+                }
+                int completed = job.completed.incrementAndGet();
+                if (progress != null) {
+                    progress.onProgress(completed, job.total);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accumulates a range of a map-reduce job, splitting it in halves while it is larger
+     * than a leaf and merging the results of both halves.
+     *
+     * @param <T> The type of the items.
+     * @param <A> The type of the partial results.
+     */
+    @SuppressWarnings("serial")
+    private static final class ReduceTask<T, A> extends RecursiveTask<A> {
+        private final List<T> items;
+        private final int from;
+        private final int to;
+        private final Supplier<A> newPartial;
+        private final Accumulator<A, T> accumulator;
+        private final BinaryOperator<A> merger;
+        private final Job job;
+
+        private ReduceTask(List<T> items, int from, int to, Supplier<A> newPartial,
+            Accumulator<A, T> accumulator, BinaryOperator<A> merger, Job job) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.newPartial = newPartial;
+            this.accumulator = accumulator;
+            this.merger = merger;
+            this.job = job;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from > LEAF_SIZE && !job.isCancelled()) {
+                int middle = (from + to) >>> 1;
+                ReduceTask<T, A> left = new ReduceTask<>(items, from, middle, newPartial,
+                    accumulator, merger, job);
+                left.fork();
+                A right = new ReduceTask<>(items, middle, to, newPartial, accumulator, merger,
+                    job).compute();
+                return merger.apply(left.join(), right);
+            }
+            A partial = newPartial.get();
+            for (int i = from; i < to && !job.isCancelled(); i++) {
+                try {
+                    accumulator.accumulate(partial, items.get(i));
+                } catch (IOException | RuntimeException | Error e) {
+                    job.fail(e);
+                    break;
+                }
+                job.completed.incrementAndGet();
+            }
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable sparse matrix in compressed sparse row (CSR) form: the term ids and weights
+ * of all rows are stored back to back in two arrays, with the start of every row in a
+ * third. Scoring every row against a query is then a single loop over contiguous memory
+ * instead of a pointer chase through one object per row.
+ * Replacing a row does not touch these arrays: the new row is kept in a small overlay
+ * that the copy shares the arrays with, and {@link #compact} folds the overlay back in,
+ * so a batch of row changes costs one rebuild instead of one per change.
+ */
+public final class CsrMatrix {
+
+    private final int[] rowStart;
+    private final int[] columns;
+    private final float[] values;
+    private final int columnCount;
+    // Rows replaced since the arrays were built, by row.
+    private final Map<Integer, SparseVector> changedRows;
+
+    private CsrMatrix(int[] rowStart, int[] columns, float[] values, int columnCount,
+        Map<Integer, SparseVector> changedRows) {
+        this.rowStart = rowStart;
+        this.columns = columns;
+        this.values = values;
+        this.columnCount = columnCount;
+        this.changedRows = changedRows;
+    }
+
+    /**
+     * Creates a matrix with one row per vector.
+     *
+     * @param rows The rows; null rows are empty.
+     * @return The matrix.
+     */
+    public static CsrMatrix of(SparseVector[] rows) {
+        int[] rowStart = new int[rows.length + 1];
+        for (int row = 0; row < rows.length; row++) {
+            rowStart[row + 1] = rowStart[row] + (rows[row] == null ? 0 : rows[row].size());
+        }
+        int[] columns = new int[rowStart[rows.length]];
+        float[] values = new float[columns.length];
+        int columnCount = 0;
+        for (int row = 0; row < rows.length; row++) {
+            for (int i = 0; rows[row] != null && i < rows[row].size(); i++) {
+                columns[rowStart[row] + i] = rows[row].termId(i);
+                values[rowStart[row] + i] = rows[row].weight(i);
+            }
+            if (rowStart[row + 1] > rowStart[row]) {
+                // Term ids are ascending, so the last one of a row is its largest.
+                columnCount = Math.max(columnCount, columns[rowStart[row + 1] - 1] + 1);
+            }
+        }
+        return new CsrMatrix(rowStart, columns, values, columnCount, Map.of());
+    }
+
+    public int rowCount() {
+        return rowStart.length - 1;
+    }
+
+    /**
+     * Returns the number of columns, one more than the largest term id in any row.
+     *
+     * @return The number of columns.
+     */
+    public int columnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Returns the number of stored entries of a row.
+     *
+     * @param row The row.
+     * @return The number of terms in the row.
+     */
+    public int rowSize(int row) {
+        SparseVector changed = changedRows.get(row);
+        return changed != null ? changed.size() : rowStart[row + 1] - rowStart[row];
+    }
+
+    /**
+     * Returns a row as a vector.
+     *
+     * @param row The row.
+     * @return The row.
+     */
+    public SparseVector row(int row) {
+        SparseVector changed = changedRows.get(row);
+        if (changed != null) {
+            return changed;
+        }
+        return SparseVector.of(Arrays.copyOfRange(columns, rowStart[row], rowStart[row + 1]),
+            Arrays.copyOfRange(values, rowStart[row], rowStart[row + 1]));
+    }
+
+    /**
+     * Returns the number of rows replaced since the matrix was last compacted.
+     *
+     * @return The number of changed rows.
+     */
+    public int changedRowCount() {
+        return changedRows.size();
+    }
+
+    /**
+     * Scatters a vector into a dense array with one entry per column. Terms that occur in
+     * no row are left out, as they cannot contribute to a score.
+     *
+     * @param vector The vector.
+     * @return The dense array.
+     */
+    public float[] densify(SparseVector vector) {
+        float[] dense = new float[columnCount];
+        for (int i = 0; i < vector.size() && vector.termId(i) < columnCount; i++) {
+            dense[vector.termId(i)] = vector.weight(i);
+        }
+        return dense;
+    }
+
+    /**
+     * Computes the dot product of every row with a dense query in one pass.
+     *
+     * @param dense The query, as returned by {@link #densify}.
+     * @return The score of every row.
+     */
+    public float[] multiply(float[] dense) {
+        float[] scores = new float[rowCount()];
+        for (int row = 0; row < scores.length; row++) {
+            float score = 0;
+            for (int i = rowStart[row]; i < rowStart[row + 1]; i++) {
+                score += values[i] * dense[columns[i]];
+            }
+            scores[row] = score;
+        }
+        for (Map.Entry<Integer, SparseVector> changed : changedRows.entrySet()) {
+            scores[changed.getKey()] = changed.getValue().dot(dense);
+        }
+        return scores;
+    }
+
+    /**
+     * Returns a copy of this matrix with one row replaced. The copy shares the entries of
+     * the other rows with this matrix, so this only copies the rows changed since the
+     * last {@link #compact}.
+     *
+     * @param row The row to replace.
+     * @param vector The new row.
+     * @return The new matrix.
+     */
+    public CsrMatrix withRow(int row, SparseVector vector) {
+        if (row < 0 || row >= rowCount()) {
+            throw new IllegalArgumentException("Row out of range: " + row);
+        }
+        SparseVector newRow = vector == null ? SparseVector.EMPTY : vector;
+        Map<Integer, SparseVector> newChangedRows = new HashMap<>(changedRows);
+        newChangedRows.put(row, newRow);
+        int newColumnCount = columnCount;
+        if (!newRow.isEmpty()) {
+            newColumnCount = Math.max(columnCount, newRow.termId(newRow.size() - 1) + 1);
+        }
+        return new CsrMatrix(rowStart, columns, values, newColumnCount, newChangedRows);
+    }
+
+    /**
+     * Returns this matrix with the changed rows folded into the contiguous arrays, which
+     * copies every entry; meant to run off the write path, e.g. when the model is saved.
+     *
+     * @return The compacted matrix, or this matrix if no row was changed.
+     */
+    public CsrMatrix compact() {
+        if (changedRows.isEmpty()) {
+            return this;
+        }
+        SparseVector[] rows = new SparseVector[rowCount()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = row(row);
+        }
+        return of(rows);
+    }
+
+    /**
+     * Checks whether this matrix shares its contiguous entries with another one, as the
+     * copies made by {@link #withRow} do.
+     *
+     * @param other The other matrix.
+     * @return true if both read the same arrays.
+     */
+    boolean sharesEntriesWith(CsrMatrix other) {
+        return columns == other.columns && values == other.values;
+    }
+
+    @Override
+    public String toString() {
+        return "CsrMatrix[rows=" + rowCount() + ", columns=" + columnCount
+            + ", entries=" + columns.length + ", changedRows=" + changedRows.size() + "]";
+    }
+}
@@ -1,6 +1,7 @@
 package com.mycompany.irr00_group_project.services;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
@@ -11,16 +12,18 @@ import com.mycompany.irr00_group_project.models.User;
 import com.mycompany.irr00_group_project.models.reviewables.Review;
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
 import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.models.reviewables.SearchHit;
 import com.mycompany.irr00_group_project.models.reviewables.targets.Album;
 import com.mycompany.irr00_group_project.models.reviewables.targets.Artist;
 import com.mycompany.irr00_group_project.models.reviewables.targets.Song;
+import com.mycompany.irr00_group_project.services.SearchMetrics.Phase;
 
 /**
  * The Database class represents a mock database containing various tables.
  * Each table is initialized with specific headers and file paths.
  * The files are expected to be in the "src/main/resources/db/" directory.
  */
-public class Database {
+public final class Database {
 
     private static Database instance;
 
@@ -32,7 +35,13 @@ public class Database {
     private Table songs;
     private Table artists;
     private Table albums;
-    private Table tfidfVectors;
+    private Table recommendations;
+    private CatalogCache catalog;
+    private UsernameIndex usernameIndex;
+    private SocialGraph socialGraph;
+    private UserReviewIndex userReviewIndex;
+    private RecommendationStore recommendationStore;
+    private TfIdfModelStore modelStore;
 
     /**
      * Private constructor to prevent direct instantiation.
@@ -59,8 +68,9 @@ public class Database {
                 "src/main/resources/db/artists.csv");
             this.albums = new Table(new String[]{"id", "title", "artist_id", "image"}, 
                 "src/main/resources/db/albums.csv");
-            
-            
+            this.recommendations = new Table(RecommendationStore.HEADERS,
+                "src/main/resources/db/recommendations.csv");
+            initIndexes("src/main/resources/db");
         } catch (Exception e) {
             throw new RuntimeException("Error initializing database tables: " + e.getMessage(), e);
         }
@@ -88,6 +98,9 @@ public class Database {
                 path + "/artists.csv");
             this.albums = new Table(new String[]{"id", "title", "artist_id", "image"}, 
                 path + "/albums.csv");
+            this.recommendations = new Table(RecommendationStore.HEADERS,
+                path + "/recommendations.csv");
+            initIndexes(path);
         } catch (Exception e) {
             throw new RuntimeException("Error initializing database tables: "
                 + e.getMessage(), e);
@@ -95,6 +108,20 @@ public class Database {
         instance = this;
     }
 
+    /**
+     * Creates the in-memory indexes over the tables once they have been opened.
+     * @param directory The directory holding the CSV files.
+     */
+    private void initIndexes(String directory) {
+        this.catalog = new CatalogCache(songs, albums, artists);
+        this.usernameIndex = new UsernameIndex(users);
+        this.socialGraph = new SocialGraph(follows);
+        this.userReviewIndex = new UserReviewIndex(reviews);
+        this.recommendationStore = new RecommendationStore(recommendations, this);
+        this.modelStore = new TfIdfModelStore(
+            Paths.get(directory, "tfidf_model.bin"), Paths.get(directory, "reviews.csv"));
+    }
+
     ////////////////////////////////// USERS ///////////////////////////////
     /**
      * Converts a line from the users table into a User object.
@@ -227,13 +254,32 @@ public class Database {
      * @throws IOException if there is an error reading the users table.
      */
     public List<User> searchUsers(String username) 
+        throws IllegalArgumentException, IOException {
+        return searchUsers(username, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Searches for users whose username contains the query, ignoring case.
+     * Usernames starting with the query are returned first.
+     *
+     * @param username The text to search for in the usernames.
+     * @param limit The maximum number of users to return.
+     * @param excludeUserId The id of a user to leave out (e.g. the logged in user), or null.
+     * @return A list of at most limit User objects that match the username.
+     * @throws IllegalArgumentException if the username is null or empty or the limit is not
+     *     positive.
+     * @throws IOException if there is an error reading the users table.
+     */
+    public List<User> searchUsers(String username, int limit, String excludeUserId)
         throws IllegalArgumentException, IOException {
         if (username == null || username.isEmpty()) {
             throw new IllegalArgumentException("Username must not be null or empty.");
         }
-        List<Map<String, String>> userLines = this.users.getLinesQuery("username", username);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
         List<User> users = new ArrayList<>();
-        for (Map<String, String> line : userLines) {
+        for (Map<String, String> line : usernameIndex.search(username, limit, excludeUserId)) {
             users.add(turnLineToUser(line));
         }
         return users; 
@@ -310,15 +356,16 @@ public class Database {
      */
     private Album turnLineToAlbum(Map<String, String> line) 
         throws IllegalArgumentException, IOException {
-        List<Map<String, String>> artistLines = artists.getLines("id", line.get("artist_id"));
-        if (artistLines.isEmpty()) {
+        Map<String, String> artistLine = catalog.getLine(ReviewableType.ARTIST,
+            line.get("artist_id"));
+        if (artistLine == null) {
             throw new IllegalArgumentException("Artist ID is invalid or does not exist.");
         }
         return new Album(
             line.get("id"),
             line.get("title"), 
             line.get("image"),
-            turnLineToArtist(artistLines.get(0))
+            turnLineToArtist(artistLine)
         );
     }
 
@@ -333,24 +380,26 @@ public class Database {
     private Song turnLineToSong(Map<String, String> line) 
         throws IllegalArgumentException, IOException {
         // Get the artist for the song.
-        List<Map<String, String>> artistLines = artists.getLines("id", line.get("artist_id"));
-        if (artistLines.isEmpty()) {
+        Map<String, String> artistLine = catalog.getLine(ReviewableType.ARTIST,
+            line.get("artist_id"));
+        if (artistLine == null) {
             throw new IllegalArgumentException("Artist ID is invalid or does not exist.");
         }
         // If the album_id is not null or empty, retrieve the album.
         Album album = null;
         if (line.get("album_id") != null && !line.get("album_id").isEmpty()) {
-            List<Map<String, String>> albumLines = albums.getLines("id", line.get("album_id"));
-            if (albumLines.isEmpty()) {
+            Map<String, String> albumLine = catalog.getLine(ReviewableType.ALBUM,
+                line.get("album_id"));
+            if (albumLine == null) {
                 throw new IllegalArgumentException("Album ID is invalid or does not exist.");
             }
-            album = turnLineToAlbum(albumLines.get(0));
+            album = turnLineToAlbum(albumLine);
         }
         return new Song(
             line.get("id"),
             line.get("title"), 
             line.get("image"), 
-            turnLineToArtist(artistLines.get(0)), 
+            turnLineToArtist(artistLine), 
             album
         );
     }
@@ -427,27 +476,234 @@ public class Database {
         if (query == null || query.trim().isEmpty()) {
             return new ArrayList<>(); // Return an empty list if the query is null or empty.
         }
+        SearchTrace trace = SearchMetrics.getInstance().startTrace(query);
         List<Reviewable> results = new ArrayList<>();
-        try {
-            // Search songs
-            List<Map<String, String>> songLines = this.songs.getLinesQuery("title", query);
-            for (Map<String, String> line : songLines) {
-                results.add(turnLineToSong(line));
+        for (ReviewableType type : ReviewableType.values()) {
+            results.addAll(searchReviewables(query, type, trace));
+        }
+        trace.finish();
+        return results;
+    }
+
+    /**
+     * Searches for reviewable items of a single type based on a query string.
+     * @param query The search query string to match against titles and names.
+     * @param type The type of reviewable to search for.
+     * @return A list of Reviewable objects of the given type that match the search criteria.
+     *     If the search is cancelled, the rows hydrated so far are returned.
+     */
+    public List<Reviewable> searchReviewables(String query, ReviewableType type) {
+        SearchTrace trace = SearchMetrics.getInstance().startTrace(query);
+        List<Reviewable> results = searchReviewables(query, type, trace);
+        trace.finish();
+        return results;
+    }
+
+    /**
+     * Searches for reviewable items of a single type, recording the index lookup and
+     * hydration phases in a trace.
+     * @param query The search query string to match against titles and names.
+     * @param type The type of reviewable to search for.
+     * @param trace The trace to record the search in.
+     * @return A list of Reviewable objects of the given type that match the search criteria.
+     */
+    private List<Reviewable> searchReviewables(String query, ReviewableType type,
+        SearchTrace trace) {
+        long lookupStart = System.nanoTime();
+        List<SearchHit> hits = searchReviewableHits(query, type);
+        trace.endPhase(Phase.INDEX_LOOKUP, lookupStart);
+        trace.addCandidates(hits.size());
+
+        long hydrationStart = System.nanoTime();
+        List<Reviewable> results = new ArrayList<>();
+        for (SearchHit hit : hits) {
+            if (isSearchCancelled()) {
+                break;
             }
-            // Search albums
-            List<Map<String, String>> albumLines = this.albums.getLinesQuery("title", query);
-            for (Map<String, String> line : albumLines) {
-                results.add(turnLineToAlbum(line));
+            Reviewable reviewable = hydrate(hit);
+            if (reviewable != null) {
+                results.add(reviewable);
             }
-            // Search artists
-            List<Map<String, String>> artistLines = this.artists.getLinesQuery("name", query);
-            for (Map<String, String> line : artistLines) {
-                results.add(turnLineToArtist(line));
+        }
+        trace.endPhase(Phase.HYDRATION, hydrationStart);
+        trace.addResults(results.size());
+        return results;
+    }
+
+    /**
+     * Searches for reviewable items of a single type without building the full objects.
+     * The hits only carry the id, type, name and score of each match, so no images are
+     * loaded and no related artists or albums are resolved.
+     *
+     * @param query The normalised search query to match against titles and names.
+     * @param type The type of reviewable to search for.
+     * @return The matching hits, best scores first and in table order for equal scores.
+     */
+    public List<SearchHit> searchReviewableHits(String query, ReviewableType type) {
+        if (query == null || query.trim().isEmpty() || type == null) {
+            return new ArrayList<>();
+        }
+        String header = getNameHeader(type);
+        List<SearchHit> hits = new ArrayList<>();
+        try {
+            for (Map<String, String> line : getReviewableTable(type).getLinesQuery(header, query)) {
+                hits.add(SearchHit.of(line.get("id"), type, line.get(header), query));
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return results;       
+        hits.sort(SearchHit.BY_SCORE_DESCENDING);
+        return hits;
+    }
+
+    /**
+     * Builds the full Reviewable object for a search hit.
+     *
+     * @param hit The search hit to hydrate.
+     * @return The Reviewable the hit refers to, or null if it no longer exists or is invalid.
+     */
+    public Reviewable hydrate(SearchHit hit) {
+        return getReviewable(hit.getType(), hit.getId());
+    }
+
+    /**
+     * Builds a Reviewable from the cached catalog, without scanning its table.
+     *
+     * @param type The type of reviewable.
+     * @param id The id of the reviewable.
+     * @return The Reviewable, or null if it does not exist or is invalid.
+     */
+    public Reviewable getReviewable(ReviewableType type, String id) {
+        try {
+            Map<String, String> line = catalog.getLine(type, id);
+            return line == null ? null : turnLineToReviewable(line, type);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Builds several Reviewables of one type from the cached catalog in one lookup.
+     *
+     * @param type The type of reviewable.
+     * @param ids The ids of the reviewables.
+     * @return The Reviewables in the order of the ids, with null for ids that do not
+     *     exist or are invalid.
+     */
+    public List<Reviewable> getReviewables(ReviewableType type, List<String> ids) {
+        List<Reviewable> reviewables = new ArrayList<>(ids.size());
+        try {
+            for (Map<String, String> line : catalog.getLines(type, ids)) {
+                reviewables.add(line == null ? null : toReviewableOrNull(line, type));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            while (reviewables.size() < ids.size()) {
+                reviewables.add(null);
+            }
+        }
+        return reviewables;
+    }
+
+    /**
+     * Builds Reviewables of mixed types from the cached catalog, with one lookup per type.
+     *
+     * @param types The type of every reviewable.
+     * @param ids The id of every reviewable.
+     * @return The Reviewables in the order of the ids, without those that do not exist or
+     *     are invalid.
+     */
+    public List<Reviewable> getReviewables(ReviewableType[] types, String[] ids) {
+        Reviewable[] hydrated = new Reviewable[ids.length];
+        for (ReviewableType type : ReviewableType.values()) {
+            List<Integer> positions = new ArrayList<>();
+            List<String> typeIds = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (types[i] == type) {
+                    positions.add(i);
+                    typeIds.add(ids[i]);
+                }
+            }
+            if (typeIds.isEmpty()) {
+                continue;
+            }
+            List<Reviewable> reviewables = getReviewables(type, typeIds);
+            for (int i = 0; i < positions.size(); i++) {
+                hydrated[positions.get(i)] = reviewables.get(i);
+            }
+        }
+        List<Reviewable> found = new ArrayList<>();
+        for (Reviewable reviewable : hydrated) {
+            if (reviewable != null) {
+                found.add(reviewable);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Converts a catalog line, reporting and skipping lines that reference missing rows.
+     *
+     * @param line The catalog line.
+     * @param type The type of reviewable the line belongs to.
+     * @return The Reviewable, or null if the line is invalid.
+     * @throws IOException if the related tables cannot be read.
+     */
+    private Reviewable toReviewableOrNull(Map<String, String> line, ReviewableType type)
+        throws IOException {
+        try {
+            return turnLineToReviewable(line, type);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the header holding the display name of a reviewable type.
+     *
+     * @param type The type of reviewable.
+     * @return "name" for artists and "title" for songs and albums.
+     */
+    private String getNameHeader(ReviewableType type) {
+        return type == ReviewableType.ARTIST ? "name" : "title";
+    }
+
+    /**
+     * Converts a line from the table of the given type into a Reviewable object.
+     * Unlike {@link #turnLineToReviewable(Map)}, invalid lines are reported to the caller.
+     *
+     * @param line A map representing a line from the songs, albums, or artists table.
+     * @param type The type of reviewable the line belongs to.
+     * @return A Reviewable object created from the provided line.
+     * @throws IllegalArgumentException if the line references a missing artist or album.
+     * @throws IOException if there is an error reading the related tables.
+     */
+    private Reviewable turnLineToReviewable(Map<String, String> line, ReviewableType type)
+        throws IllegalArgumentException, IOException {
+        switch (type) {
+            case SONG -> {
+                return turnLineToSong(line);
+            }
+            case ALBUM -> {
+                return turnLineToAlbum(line);
+            }
+            default -> {
+                return turnLineToArtist(line);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the search running on the current thread has been cancelled.
+     * Searches run by a SearchExecutor are interrupted when a newer query arrives,
+     * so hydrating the remaining rows would be wasted work.
+     *
+     * @return true if the current thread has been interrupted.
+     */
+    private boolean isSearchCancelled() {
+        return Thread.currentThread().isInterrupted();
     }
 
     ////////////////////////////////// REVIEWS ///////////////////////////////
@@ -654,6 +910,18 @@ public class Database {
         return follows;
     }
 
+    public SocialGraph getSocialGraph() {
+        return socialGraph;
+    }
+
+    public Table getRecommendationsTable() {
+        return recommendations;
+    }
+
+    public RecommendationStore getRecommendationStore() {
+        return recommendationStore;
+    }
+
     public Table getLikesTable() {
         return likes;
     }
@@ -662,8 +930,24 @@ public class Database {
         return reviews;
     }
 
-    public Table getVectorsTable() {
-        return tfidfVectors;
+    public UserReviewIndex getUserReviewIndex() {
+        return userReviewIndex;
+    }
+
+    /**
+     * Registers a listener that is notified whenever the songs, albums or artists
+     * tables change.
+     *
+     * @param listener The listener to notify on catalog changes.
+     */
+    public void addCatalogChangeListener(Runnable listener) {
+        for (ReviewableType type : ReviewableType.values()) {
+            getReviewableTable(type).addChangeListener(listener);
+        }
+    }
+
+    public TfIdfModelStore getModelStore() {
+        return modelStore;
     }
 
 }
\ No newline at end of file
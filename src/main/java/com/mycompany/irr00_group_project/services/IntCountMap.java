@@ -0,0 +1,153 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.Arrays;
+
+/**
+ * Map from non-negative int keys to int counts using open addressing over primitive
+ * arrays, so counting terms does not box every key and count. Not thread-safe.
+ */
+public final class IntCountMap {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    /**
+     * Callback receiving the entries of the map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Receives one entry.
+         *
+         * @param key The key.
+         * @param count The count of the key.
+         */
+        void accept(int key, int count);
+    }
+
+    /**
+     * Constructor for the IntCountMap class.
+     */
+    public IntCountMap() {
+        this(16);
+    }
+
+    /**
+     * Constructor for the IntCountMap class.
+     *
+     * @param expectedSize The number of keys expected, to avoid growing.
+     */
+    public IntCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Adds to the count of a key.
+     *
+     * @param key The key, at least 0.
+     * @param delta The amount to add.
+     * @throws IllegalArgumentException if the key is negative.
+     */
+    public void add(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key must not be negative: " + key);
+        }
+        int slot = findSlot(key);
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            size++;
+            if (size * 2 > keys.length) {
+                counts[slot] = delta;
+                grow();
+                return;
+            }
+        }
+        counts[slot] += delta;
+    }
+
+    /**
+     * Adds one to the count of a key.
+     *
+     * @param key The key, at least 0.
+     */
+    public void increment(int key) {
+        add(key, 1);
+    }
+
+    /**
+     * Returns the count of a key.
+     *
+     * @param key The key.
+     * @return The count, or 0 if the key was never added.
+     */
+    public int get(int key) {
+        if (key < 0) {
+            return 0;
+        }
+        int slot = findSlot(key);
+        return keys[slot] == FREE ? 0 : counts[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes every entry to a consumer, in no particular order.
+     *
+     * @param consumer The consumer of the entries.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                consumer.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Removes every entry while keeping the allocated capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, FREE);
+            Arrays.fill(counts, 0);
+            size = 0;
+        }
+    }
+
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
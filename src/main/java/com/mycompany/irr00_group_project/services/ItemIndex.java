@@ -0,0 +1,106 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+/**
+ * Mapping between the columns of a rating matrix and the catalog items they stand for.
+ * Columns are handed out in the order items are added, and each column stores its type
+ * and id, so looking up the item of a column is an array access in both directions.
+ * Not thread-safe.
+ */
+public final class ItemIndex {
+
+    private final Map<ReviewableType, Map<String, Integer>> columns =
+        new EnumMap<>(ReviewableType.class);
+    private ReviewableType[] types = new ReviewableType[16];
+    private String[] ids = new String[16];
+    private int size;
+
+    /**
+     * Constructor for the ItemIndex class, creating an empty index.
+     */
+    public ItemIndex() {
+        for (ReviewableType type : ReviewableType.values()) {
+            columns.put(type, new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds an item, unless it is in the index already.
+     *
+     * @param type The type of the item.
+     * @param id The id of the item.
+     * @return The column of the item.
+     * @throws IllegalArgumentException if the type or id is null.
+     */
+    public int add(ReviewableType type, String id) {
+        if (type == null || id == null) {
+            throw new IllegalArgumentException("Item type and id must not be null.");
+        }
+        Integer existing = columns.get(type).get(id);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == ids.length) {
+            types = Arrays.copyOf(types, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        types[size] = type;
+        ids[size] = id;
+        columns.get(type).put(id, size);
+        return size++;
+    }
+
+    /**
+     * Returns the column of an item.
+     *
+     * @param type The type of the item.
+     * @param id The id of the item.
+     * @return The column, or -1 if the item is not in the index.
+     */
+    public int column(ReviewableType type, String id) {
+        if (type == null) {
+            return -1;
+        }
+        Integer column = columns.get(type).get(id);
+        return column == null ? -1 : column;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of the item of a column.
+     *
+     * @param column The column.
+     * @return The type of the item.
+     */
+    public ReviewableType typeAt(int column) {
+        checkColumn(column);
+        return types[column];
+    }
+
+    /**
+     * Returns the id of the item of a column.
+     *
+     * @param column The column.
+     * @return The id of the item.
+     */
+    public String idAt(int column) {
+        checkColumn(column);
+        return ids[column];
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= size) {
+            throw new IllegalArgumentException(
+                "No column " + column + " in an index of " + size + " items.");
+        }
+    }
+}
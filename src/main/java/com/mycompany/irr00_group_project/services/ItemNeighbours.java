@@ -0,0 +1,279 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed item-item neighbour lists for collaborative filtering. For every item the
+ * most similar items by cosine similarity over their ratings are stored back to back in
+ * two flat arrays, with the start of every item's list in a third, like a CSR matrix.
+ * A user's predictions then only visit the neighbours of the items they rated, instead
+ * of every other user.
+ * The lists are a snapshot: ratings changed after {@link #build} only count once the
+ * lists are built again, except for the ratings of the user being scored.
+ */
+public final class ItemNeighbours {
+
+    private final int[] listStart;
+    private final int[] neighbours;
+    private final float[] similarities;
+
+    private ItemNeighbours(int[] listStart, int[] neighbours, float[] similarities) {
+        this.listStart = listStart;
+        this.neighbours = neighbours;
+        this.similarities = similarities;
+    }
+
+    /**
+     * Computes the neighbour lists of every item of a rating matrix. The ratings are
+     * first copied into a column view, then the items are scored in parallel on the
+     * shared compute pool. The matrix must not change while this runs.
+     *
+     * @param matrix The rating matrix.
+     * @param neighbourCount The maximum number of neighbours per item.
+     * @return The neighbour lists.
+     * @throws IllegalArgumentException if the neighbour count is not positive.
+     */
+    public static ItemNeighbours build(RatingMatrix matrix, int neighbourCount) {
+        if (neighbourCount <= 0) {
+            throw new IllegalArgumentException(
+                "Neighbour count must be positive: " + neighbourCount);
+        }
+        Columns columns = new Columns(matrix);
+        int itemCount = matrix.getItemCount();
+        int[][] itemNeighbours = new int[itemCount][];
+        float[][] itemSimilarities = new float[itemCount][];
+        List<Integer> items = new ArrayList<>(itemCount);
+        for (int item = 0; item < itemCount; item++) {
+            items.add(item);
+        }
+        ThreadLocal<float[]> scratch = ThreadLocal.withInitial(() -> new float[itemCount]);
+        try {
+            ComputePool.getInstance().invokeAll(items, item -> {
+                TopNeighbours top = new TopNeighbours(neighbourCount);
+                columns.collect(matrix, item, scratch.get(), top);
+                itemNeighbours[item] = top.items();
+                itemSimilarities[item] = top.scores();
+            });
+        } catch (IOException e) {
+            // The task reads no files, so this only wraps an unexpected failure.
+            throw new IllegalStateException("Failed to compute item neighbours.", e);
+        }
+        return pack(itemNeighbours, itemSimilarities);
+    }
+
+    private static ItemNeighbours pack(int[][] itemNeighbours, float[][] itemSimilarities) {
+        int[] listStart = new int[itemNeighbours.length + 1];
+        for (int item = 0; item < itemNeighbours.length; item++) {
+            listStart[item + 1] = listStart[item] + itemNeighbours[item].length;
+        }
+        int[] neighbours = new int[listStart[itemNeighbours.length]];
+        float[] similarities = new float[neighbours.length];
+        for (int item = 0; item < itemNeighbours.length; item++) {
+            System.arraycopy(itemNeighbours[item], 0, neighbours, listStart[item],
+                itemNeighbours[item].length);
+            System.arraycopy(itemSimilarities[item], 0, similarities, listStart[item],
+                itemSimilarities[item].length);
+        }
+        return new ItemNeighbours(listStart, neighbours, similarities);
+    }
+
+    public int getItemCount() {
+        return listStart.length - 1;
+    }
+
+    /**
+     * Returns the number of neighbours of an item.
+     *
+     * @param item The item.
+     * @return The length of the item's list.
+     */
+    public int neighbourCount(int item) {
+        return listStart[item + 1] - listStart[item];
+    }
+
+    /**
+     * Returns a neighbour of an item.
+     *
+     * @param item The item.
+     * @param position The position in the list, most similar first.
+     * @return The neighbouring item.
+     */
+    public int neighbourAt(int item, int position) {
+        return neighbours[listStart[item] + position];
+    }
+
+    /**
+     * Returns the similarity of an item to one of its neighbours.
+     *
+     * @param item The item.
+     * @param position The position in the list, most similar first.
+     * @return The cosine similarity, above 0.
+     */
+    public float similarityAt(int item, int position) {
+        return similarities[listStart[item] + position];
+    }
+
+    /**
+     * Predicts the ratings of a user as the similarity-weighted average of their ratings
+     * of the neighbouring items. Only the neighbour lists of the rated items are visited.
+     *
+     * @param matrix The current rating matrix, holding the ratings of the user.
+     * @param user The user.
+     * @return The predicted rating of every item, 0 for items that neighbour none of the
+     *     rated items, and negative infinity for the rated items so they rank last.
+     */
+    public float[] predict(RatingMatrix matrix, int user) {
+        int itemCount = matrix.getItemCount();
+        double[] total = new double[itemCount];
+        double[] simSum = new double[itemCount];
+        for (int k = 0; k < matrix.rowSize(user); k++) {
+            int rated = matrix.itemAt(user, k);
+            // Items added after the lists were built have no neighbours yet.
+            if (rated >= getItemCount()) {
+                continue;
+            }
+            int rating = matrix.ratingAt(user, k);
+            for (int i = listStart[rated]; i < listStart[rated + 1]; i++) {
+                total[neighbours[i]] += similarities[i] * rating;
+                simSum[neighbours[i]] += similarities[i];
+            }
+        }
+        float[] predictions = new float[itemCount];
+        for (int item = 0; item < itemCount; item++) {
+            predictions[item] = (float) (simSum[item] > 0 ? total[item] / simSum[item] : 0);
+        }
+        for (int k = 0; k < matrix.rowSize(user); k++) {
+            predictions[matrix.itemAt(user, k)] = Float.NEGATIVE_INFINITY;
+        }
+        return predictions;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemNeighbours[items=" + getItemCount() + ", entries=" + neighbours.length + "]";
+    }
+
+    /**
+     * Column view of a rating matrix: the users and ratings of every item, with the norm
+     * of every item's rating vector.
+     */
+    private static final class Columns {
+        private final int[] columnStart;
+        private final int[] users;
+        private final byte[] ratings;
+        private final float[] norms;
+
+        private Columns(RatingMatrix matrix) {
+            int itemCount = matrix.getItemCount();
+            columnStart = new int[itemCount + 1];
+            for (int user = 0; user < matrix.getUserCount(); user++) {
+                for (int k = 0; k < matrix.rowSize(user); k++) {
+                    columnStart[matrix.itemAt(user, k) + 1]++;
+                }
+            }
+            for (int item = 0; item < itemCount; item++) {
+                columnStart[item + 1] += columnStart[item];
+            }
+            users = new int[columnStart[itemCount]];
+            ratings = new byte[users.length];
+            int[] fill = columnStart.clone();
+            float[] squares = new float[itemCount];
+            for (int user = 0; user < matrix.getUserCount(); user++) {
+                for (int k = 0; k < matrix.rowSize(user); k++) {
+                    int item = matrix.itemAt(user, k);
+                    int rating = matrix.ratingAt(user, k);
+                    users[fill[item]] = user;
+                    ratings[fill[item]++] = (byte) rating;
+                    squares[item] += rating * rating;
+                }
+            }
+            norms = new float[itemCount];
+            for (int item = 0; item < itemCount; item++) {
+                norms[item] = (float) Math.sqrt(squares[item]);
+            }
+        }
+
+        /**
+         * Offers every item sharing a rater with an item to a top list, scored by cosine
+         * similarity.
+         *
+         * @param matrix The rating matrix, for the rows of the raters.
+         * @param item The item.
+         * @param dots Zeroed scratch space with one entry per item, zeroed again on return.
+         * @param top The top list to offer the neighbours to.
+         */
+        private void collect(RatingMatrix matrix, int item, float[] dots, TopNeighbours top) {
+            if (norms[item] == 0) {
+                return;
+            }
+            int touchedCount = 0;
+            int[] touched = new int[16];
+            for (int i = columnStart[item]; i < columnStart[item + 1]; i++) {
+                int user = users[i];
+                for (int k = 0; k < matrix.rowSize(user); k++) {
+                    int other = matrix.itemAt(user, k);
+                    if (other == item) {
+                        continue;
+                    }
+                    if (dots[other] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = other;
+                    }
+                    dots[other] += ratings[i] * matrix.ratingAt(user, k);
+                }
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                top.offer(other, dots[other] / (norms[item] * norms[other]));
+                dots[other] = 0;
+            }
+        }
+    }
+
+    /**
+     * Bounded list of the most similar items, kept sorted by insertion. Equal
+     * similarities keep the lower item first, so the lists do not depend on the order in
+     * which the parallel build visits the raters.
+     */
+    private static final class TopNeighbours {
+        private final int[] items;
+        private final float[] scores;
+        private int size;
+
+        private TopNeighbours(int capacity) {
+            items = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        private void offer(int item, float score) {
+            if (score <= 0 || size == items.length && !before(item, score, size - 1)) {
+                return;
+            }
+            int position = size < items.length ? size++ : size - 1;
+            while (position > 0 && before(item, score, position - 1)) {
+                items[position] = items[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            items[position] = item;
+            scores[position] = score;
+        }
+
+        private boolean before(int item, float score, int position) {
+            return score > scores[position] || score == scores[position] && item < items[position];
+        }
+
+        private int[] items() {
+            return Arrays.copyOf(items, size);
+        }
+
+        private float[] scores() {
+            return Arrays.copyOf(scores, size);
+        }
+    }
+}
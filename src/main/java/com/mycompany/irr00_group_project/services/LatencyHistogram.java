@@ -0,0 +1,98 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency histogram with power-of-two buckets in microseconds.
+ * Bucket b counts the samples below 2^b microseconds that did not fit bucket b - 1,
+ * so percentiles are reported as the upper bound of their bucket: within a factor of two,
+ * which is plenty to tell a 2 ms search from a 200 ms one without storing every sample.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private volatile long maxMicros;
+
+    /**
+     * Records one sample.
+     *
+     * @param nanos The measured latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        totalMicros.add(micros);
+        if (micros > maxMicros) {
+            synchronized (this) {
+                maxMicros = Math.max(maxMicros, micros);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @return The sample count.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile.
+     *
+     * @param percentile The percentile between 0 and 100.
+     * @return The upper bound in microseconds, or 0 if nothing was recorded.
+     * @throws IllegalArgumentException if the percentile is outside 0 to 100.
+     */
+    public long getPercentileMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(maxMicros, (1L << i) - 1);
+            }
+        }
+        return maxMicros;
+    }
+
+    /**
+     * Returns the mean of the recorded samples.
+     *
+     * @return The mean in microseconds, or 0 if nothing was recorded.
+     */
+    public long getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : totalMicros.sum() / count;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+            + " mean=" + getMeanMicros() + "us"
+            + " p50=" + getPercentileMicros(50) + "us"
+            + " p99=" + getPercentileMicros(99) + "us"
+            + " max=" + getMaxMicros() + "us";
+    }
+}
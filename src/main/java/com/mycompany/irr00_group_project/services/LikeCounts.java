@@ -0,0 +1,93 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+/**
+ * Number of likes of every item in a set of ratings, used by the candidate generators that
+ * rank items by how many users liked them. A review with a rating of at least 3 is a like,
+ * as in the CommentRecommenderService. Not thread-safe.
+ */
+final class LikeCounts {
+
+    private static final int LIKED_RATING = 3;
+
+    private final ItemIndex items;
+    private float[] counts;
+
+    /**
+     * Constructor for the LikeCounts class, creating empty counts.
+     */
+    LikeCounts() {
+        this(new ItemIndex(), new float[16]);
+    }
+
+    private LikeCounts(ItemIndex items, float[] counts) {
+        this.items = items;
+        this.counts = counts;
+    }
+
+    /**
+     * Counts a rating if it is a like.
+     *
+     * @param rating The rating.
+     */
+    void add(UserReviewIndex.Rating rating) {
+        if (rating.rating() < LIKED_RATING) {
+            return;
+        }
+        int column = items.add(rating.type(), rating.targetId());
+        if (column == counts.length) {
+            counts = Arrays.copyOf(counts, column * 2);
+        }
+        counts[column]++;
+    }
+
+    /**
+     * Returns counts that can be changed without changing these. No more reviews may be
+     * added to these counts afterwards, as the copy shares their items.
+     *
+     * @return The copy.
+     */
+    LikeCounts copy() {
+        return new LikeCounts(items, counts.clone());
+    }
+
+    /**
+     * Leaves the rated item out of the result, whatever its rating.
+     *
+     * @param rating The rating.
+     */
+    void exclude(UserReviewIndex.Rating rating) {
+        int column = items.column(rating.type(), rating.targetId());
+        if (column >= 0) {
+            counts[column] = 0;
+        }
+    }
+
+    /**
+     * Returns the most liked items, most likes first; equal counts in the order the items
+     * were first liked.
+     *
+     * @param n The maximum number of items.
+     * @param database The database to hydrate the items from.
+     * @return The items with at least one like that still exist.
+     */
+    List<Reviewable> top(int n, Database database) {
+        int[] best = TopK.select(Arrays.copyOf(counts, items.size()), n);
+        List<ReviewableType> types = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (int column : best) {
+            if (counts[column] > 0) {
+                types.add(items.typeAt(column));
+                ids.add(items.idAt(column));
+            }
+        }
+        return database.getReviewables(types.toArray(new ReviewableType[0]),
+            ids.toArray(new String[0]));
+    }
+}
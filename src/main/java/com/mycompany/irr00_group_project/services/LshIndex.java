@@ -0,0 +1,517 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Approximate nearest-neighbour index over sparse vectors using random-hyperplane
+ * locality-sensitive hashing. Every table hashes a vector to the signs of its projections
+ * on bitsPerTable random hyperplanes, so vectors at a small angle tend to share a bucket.
+ * A query only scores the items in its buckets (plus the buckets of its least certain
+ * bits when probing), which is sub-linear in the number of items.
+ * More tables and probes raise the recall, more bits per table make buckets smaller and
+ * queries faster. The hyperplanes are derived from a hash of the seed, table and term id,
+ * so they never have to be stored, whatever the vocabulary size.
+ * The index is built with {@link #put} and {@link #remove} and must not be changed once it
+ * is shared; queries take no lock. {@link #withItem} changes a shared index by returning a
+ * copy that shares the built maps and buckets and keeps the changed items in a small
+ * overlay, which {@link #compact} folds back in.
+ */
+public class LshIndex {
+
+    private final int tables;
+    private final int bitsPerTable;
+    private final int probes;
+    private final long seed;
+
+    // Item id to its normalised vector and to its signature in every table.
+    private final Map<Integer, SparseVector> vectors;
+    // One more than the largest term id of any item, the length of a densified query.
+    private int columnCount;
+    private final Map<Integer, int[]> signatures;
+    private final List<Map<Integer, Bucket>> buckets;
+    // Items changed by withItem on top of the maps above: the new normalised vector and
+    // signature, or no signature if the item was removed.
+    private final Map<Integer, SparseVector> changedVectors;
+    private final Map<Integer, int[]> changedSignatures;
+    // Set once copies share the maps above, which may then no longer change.
+    private boolean shared;
+
+    /**
+     * Growable list of the item ids in one bucket.
+     */
+    private static final class Bucket {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A scored item.
+     *
+     * @param id The item id.
+     * @param score The cosine similarity to the query.
+     */
+    private record Scored(int id, float score) { }
+
+    /**
+     * Constructor for the LshIndex class.
+     *
+     * @param tables The number of hash tables.
+     * @param bitsPerTable The number of hyperplanes per table, between 1 and 30.
+     * @param probes The number of extra buckets probed per table, by flipping the bits whose
+     *     projections were closest to zero; at most bitsPerTable.
+     * @param seed The seed the hyperplanes are derived from.
+     * @throws IllegalArgumentException if a parameter is out of range.
+     */
+    public LshIndex(int tables, int bitsPerTable, int probes, long seed) {
+        if (tables <= 0 || bitsPerTable <= 0 || bitsPerTable > 30
+            || probes < 0 || probes > bitsPerTable) {
+            throw new IllegalArgumentException("Invalid LSH parameters: tables=" + tables
+                + " bitsPerTable=" + bitsPerTable + " probes=" + probes);
+        }
+        this.tables = tables;
+        this.bitsPerTable = bitsPerTable;
+        this.probes = probes;
+        this.seed = seed;
+        this.vectors = new HashMap<>();
+        this.signatures = new HashMap<>();
+        this.buckets = new ArrayList<>();
+        for (int table = 0; table < tables; table++) {
+            buckets.add(new HashMap<>());
+        }
+        this.changedVectors = Map.of();
+        this.changedSignatures = Map.of();
+    }
+
+    /**
+     * Creates a copy of an index sharing its maps and buckets, with other changed items.
+     *
+     * @param base The index to share the maps of.
+     * @param changedVectors The changed items of the copy.
+     * @param changedSignatures The signatures of the changed items that were not removed.
+     * @param columnCount The column count of the copy.
+     */
+    private LshIndex(LshIndex base, Map<Integer, SparseVector> changedVectors,
+        Map<Integer, int[]> changedSignatures, int columnCount) {
+        this.tables = base.tables;
+        this.bitsPerTable = base.bitsPerTable;
+        this.probes = base.probes;
+        this.seed = base.seed;
+        this.vectors = base.vectors;
+        this.signatures = base.signatures;
+        this.buckets = base.buckets;
+        this.changedVectors = changedVectors;
+        this.changedSignatures = changedSignatures;
+        this.columnCount = columnCount;
+        this.shared = true;
+    }
+
+    /**
+     * Adds an item or replaces its vector while the index is being built. The vector is
+     * stored normalised, so items are ranked by a plain dot product. Items with an empty
+     * vector are removed, as they are not similar to anything.
+     *
+     * @param id The item id.
+     * @param vector The vector of the item.
+     * @throws IllegalStateException if the index is shared with copies made by
+     *     {@link #withItem}.
+     */
+    public synchronized void put(int id, SparseVector vector) {
+        remove(id);
+        if (vector == null || vector.isEmpty()) {
+            return;
+        }
+        int[] signature = new int[tables];
+        project(vector, signature, null);
+        insert(id, vector.normalize(), signature);
+    }
+
+    /**
+     * Removes an item while the index is being built.
+     *
+     * @param id The item id.
+     * @throws IllegalStateException if the index is shared with copies made by
+     *     {@link #withItem}.
+     */
+    public synchronized void remove(int id) {
+        checkNotShared();
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return;
+        }
+        vectors.remove(id);
+        for (int table = 0; table < tables; table++) {
+            Bucket bucket = buckets.get(table).get(signature[table]);
+            bucket.remove(id);
+            if (bucket.size == 0) {
+                buckets.get(table).remove(signature[table]);
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the index with one item added, replaced or, for an empty vector,
+     * removed. The copy shares every bucket with this index, so this only copies the
+     * items changed since the last {@link #compact}; this index is left unchanged.
+     *
+     * @param id The item id.
+     * @param vector The new vector of the item, or null or empty to remove it.
+     * @return The changed copy.
+     */
+    public synchronized LshIndex withItem(int id, SparseVector vector) {
+        shared = true;
+        Map<Integer, SparseVector> newVectors = new HashMap<>(changedVectors);
+        Map<Integer, int[]> newSignatures = new HashMap<>(changedSignatures);
+        int newColumnCount = columnCount;
+        if (vector == null || vector.isEmpty()) {
+            newVectors.put(id, null);
+            newSignatures.remove(id);
+        } else {
+            int[] signature = new int[tables];
+            project(vector, signature, null);
+            newVectors.put(id, vector.normalize());
+            newSignatures.put(id, signature);
+            newColumnCount = Math.max(columnCount, vector.termId(vector.size() - 1) + 1);
+        }
+        return new LshIndex(this, newVectors, newSignatures, newColumnCount);
+    }
+
+    /**
+     * Returns an independent copy of the index with the changed items folded in, sharing
+     * only the immutable vectors.
+     *
+     * @return The copy.
+     */
+    public LshIndex copy() {
+        LshIndex copy = new LshIndex(tables, bitsPerTable, probes, seed);
+        for (Map.Entry<Integer, int[]> entry : signatures.entrySet()) {
+            if (!changedVectors.containsKey(entry.getKey())) {
+                copy.insert(entry.getKey(), vectors.get(entry.getKey()), entry.getValue());
+            }
+        }
+        for (Map.Entry<Integer, int[]> entry : changedSignatures.entrySet()) {
+            copy.insert(entry.getKey(), changedVectors.get(entry.getKey()), entry.getValue());
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the index with the items changed by {@link #withItem} folded into its
+     * buckets, which rebuilds all of them; meant to run off the write path.
+     *
+     * @return The compacted index, or this index if no item was changed.
+     */
+    public LshIndex compact() {
+        return changedVectors.isEmpty() ? this : copy();
+    }
+
+    /**
+     * Returns the number of items changed since the index was last compacted.
+     *
+     * @return The number of changed items.
+     */
+    public int changedItemCount() {
+        return changedVectors.size();
+    }
+
+    /**
+     * Checks whether this index shares its buckets with another one, as the copies made by
+     * {@link #withItem} do.
+     *
+     * @param other The other index.
+     * @return true if both read the same buckets.
+     */
+    boolean sharesBucketsWith(LshIndex other) {
+        return buckets == other.buckets;
+    }
+
+    /**
+     * Returns the number of items.
+     *
+     * @return The number of items with a non-empty vector.
+     */
+    public int size() {
+        int size = vectors.size();
+        for (Integer id : changedVectors.keySet()) {
+            size += (changedSignatures.containsKey(id) ? 1 : 0)
+                - (signatures.containsKey(id) ? 1 : 0);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the items most similar to a query, scoring only the items sharing a bucket
+     * with it. If that finds fewer than k items, all items are scored instead.
+     *
+     * @param query The query vector.
+     * @param k The maximum number of items to return.
+     * @param exclude Items for which this returns true are left out.
+     * @return The item ids, most similar first; equal scores in ascending id order.
+     */
+    public int[] query(SparseVector query, int k, IntPredicate exclude) {
+        if (query == null || query.isEmpty() || k <= 0) {
+            return new int[0];
+        }
+        int[] signature = new int[tables];
+        double[][] margins = new double[tables][bitsPerTable];
+        project(query, signature, margins);
+        int[][] probed = new int[tables][];
+        for (int table = 0; table < tables; table++) {
+            probed[table] = probeSignatures(signature[table], margins[table]);
+        }
+
+        float[] dense = densify(query);
+        BitSet seen = new BitSet();
+        PriorityQueue<Scored> top = newTopK();
+        for (int table = 0; table < tables; table++) {
+            for (int probe : probed[table]) {
+                Bucket bucket = buckets.get(table).get(probe);
+                for (int i = 0; bucket != null && i < bucket.size; i++) {
+                    int id = bucket.ids[i];
+                    // Changed items are matched on their new signature below.
+                    if (!seen.get(id) && !changedVectors.containsKey(id)) {
+                        seen.set(id);
+                        offer(top, id, dense, k, exclude);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Integer, int[]> changed : changedSignatures.entrySet()) {
+            if (sharesBucket(changed.getValue(), probed)) {
+                offer(top, changed.getKey(), dense, k, exclude);
+            }
+        }
+        if (top.size() < k) {
+            return exactQuery(query, k, exclude);
+        }
+        return toIds(top);
+    }
+
+    /**
+     * Returns the items most similar to a query by scoring every item, for validation.
+     *
+     * @param query The query vector.
+     * @param k The maximum number of items to return.
+     * @param exclude Items for which this returns true are left out.
+     * @return The item ids, most similar first; equal scores in ascending id order.
+     */
+    public int[] exactQuery(SparseVector query, int k, IntPredicate exclude) {
+        if (query == null || query.isEmpty() || k <= 0) {
+            return new int[0];
+        }
+        float[] dense = densify(query);
+        PriorityQueue<Scored> top = newTopK();
+        for (int id : vectors.keySet()) {
+            if (!changedVectors.containsKey(id)) {
+                offer(top, id, dense, k, exclude);
+            }
+        }
+        for (int id : changedSignatures.keySet()) {
+            offer(top, id, dense, k, exclude);
+        }
+        return toIds(top);
+    }
+
+    /**
+     * Measures the share of the exact top k that the approximate query finds.
+     *
+     * @param query The query vector.
+     * @param k The number of items to compare.
+     * @param exclude Items for which this returns true are left out.
+     * @return The recall between 0 and 1, or 1 if the exact query finds nothing.
+     */
+    public double measureRecall(SparseVector query, int k, IntPredicate exclude) {
+        int[] exact = exactQuery(query, k, exclude);
+        if (exact.length == 0) {
+            return 1;
+        }
+        BitSet approximate = new BitSet();
+        for (int id : query(query, k, exclude)) {
+            approximate.set(id);
+        }
+        int found = 0;
+        for (int id : exact) {
+            if (approximate.get(id)) {
+                found++;
+            }
+        }
+        return (double) found / exact.length;
+    }
+
+    /**
+     * Adds an item with a known signature to the buckets.
+     *
+     * @param id The item id.
+     * @param vector The normalised, non-empty vector of the item.
+     * @param signature The signature of the item in every table.
+     */
+    private void insert(int id, SparseVector vector, int[] signature) {
+        checkNotShared();
+        vectors.put(id, vector);
+        columnCount = Math.max(columnCount, vector.termId(vector.size() - 1) + 1);
+        signatures.put(id, signature);
+        for (int table = 0; table < tables; table++) {
+            buckets.get(table).computeIfAbsent(signature[table], key -> new Bucket()).add(id);
+        }
+    }
+
+    private void checkNotShared() {
+        if (shared) {
+            throw new IllegalStateException(
+                "The index is shared with its copies; change it with withItem.");
+        }
+    }
+
+    /**
+     * Checks whether an item falls in one of the probed buckets of any table.
+     *
+     * @param signature The signature of the item.
+     * @param probed The probed signatures of every table.
+     * @return true if the item shares a probed bucket.
+     */
+    private static boolean sharesBucket(int[] signature, int[][] probed) {
+        for (int table = 0; table < probed.length; table++) {
+            for (int probe : probed[table]) {
+                if (signature[table] == probe) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the signature of a vector in every table.
+     *
+     * @param vector The vector.
+     * @param signature Receives the signature of each table.
+     * @param margins Receives the projection on every hyperplane, or null if not needed.
+     */
+    private void project(SparseVector vector, int[] signature, double[][] margins) {
+        double[] sums = new double[bitsPerTable];
+        for (int table = 0; table < tables; table++) {
+            Arrays.fill(sums, 0);
+            for (int i = 0; i < vector.size(); i++) {
+                // One hash gives the signs of this term on all hyperplanes of the table.
+                long signs = mix(seed + table * 0x9E3779B97F4A7C15L + vector.termId(i));
+                float weight = vector.weight(i);
+                for (int bit = 0; bit < bitsPerTable; bit++) {
+                    sums[bit] += ((signs >>> bit) & 1) == 0 ? weight : -weight;
+                }
+            }
+            int bits = 0;
+            for (int bit = 0; bit < bitsPerTable; bit++) {
+                if (sums[bit] > 0) {
+                    bits |= 1 << bit;
+                }
+            }
+            signature[table] = bits;
+            if (margins != null) {
+                System.arraycopy(sums, 0, margins[table], 0, bitsPerTable);
+            }
+        }
+    }
+
+    /**
+     * Returns the signature of a table followed by the signatures with one of the
+     * least certain bits flipped.
+     *
+     * @param signature The signature of the query in the table.
+     * @param margins The projections of the query on the hyperplanes of the table.
+     * @return The signatures to probe.
+     */
+    private int[] probeSignatures(int signature, double[] margins) {
+        int[] probed = new int[probes + 1];
+        probed[0] = signature;
+        if (probes == 0) {
+            return probed;
+        }
+        Integer[] bits = new Integer[bitsPerTable];
+        for (int bit = 0; bit < bitsPerTable; bit++) {
+            bits[bit] = bit;
+        }
+        Arrays.sort(bits, (a, b) -> Double.compare(Math.abs(margins[a]), Math.abs(margins[b])));
+        for (int i = 0; i < probes; i++) {
+            probed[i + 1] = signature ^ (1 << bits[i]);
+        }
+        return probed;
+    }
+
+    /**
+     * Scatters the normalised query into an array indexed by term id, so scoring an item
+     * is a single pass over its terms.
+     *
+     * @param query The query vector.
+     * @return The dense query.
+     */
+    private float[] densify(SparseVector query) {
+        SparseVector unit = query.normalize();
+        float[] dense = new float[columnCount];
+        for (int i = 0; i < unit.size() && unit.termId(i) < columnCount; i++) {
+            dense[unit.termId(i)] = unit.weight(i);
+        }
+        return dense;
+    }
+
+    private PriorityQueue<Scored> newTopK() {
+        // Worst item at the head: lowest score, and the highest id among equal scores.
+        return new PriorityQueue<>((a, b) -> a.score() != b.score()
+            ? Float.compare(a.score(), b.score()) : Integer.compare(b.id(), a.id()));
+    }
+
+    private void offer(PriorityQueue<Scored> top, int id, float[] dense, int k,
+        IntPredicate exclude) {
+        if (exclude != null && exclude.test(id)) {
+            return;
+        }
+        SparseVector vector = changedVectors.containsKey(id)
+            ? changedVectors.get(id) : vectors.get(id);
+        top.add(new Scored(id, vector.dot(dense)));
+        if (top.size() > k) {
+            top.poll();
+        }
+    }
+
+    private static int[] toIds(PriorityQueue<Scored> top) {
+        int[] ids = new int[top.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = top.poll().id();
+        }
+        return ids;
+    }
+
+    /**
+     * Scrambles a long into a well-distributed 64-bit hash (SplitMix64 finaliser).
+     *
+     * @param value The value to hash.
+     * @return The hash.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
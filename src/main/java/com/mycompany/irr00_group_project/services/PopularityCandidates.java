@@ -0,0 +1,58 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+
+/**
+ * Candidate generator suggesting the items most users liked, leaving out the items the
+ * user reviewed. The like counts are computed once from the in-memory review index and
+ * recomputed after the reviews change, so a request only looks up the ratings of the user.
+ */
+public class PopularityCandidates implements CandidateGenerator {
+
+    private final Database database;
+    private LikeCounts likes;
+
+    /**
+     * Constructor for the PopularityCandidates class.
+     *
+     * @param database The database with the reviews.
+     */
+    public PopularityCandidates(Database database) {
+        if (database == null) {
+            throw new IllegalArgumentException("Database must not be null.");
+        }
+        this.database = database;
+        database.getReviewsTable().addChangeListener(this::invalidate);
+    }
+
+    @Override
+    public List<Reviewable> generate(String userId, int n) throws IOException {
+        LikeCounts counts = currentLikes().copy();
+        for (UserReviewIndex.Rating rating : database.getUserReviewIndex().getRatings(userId)) {
+            counts.exclude(rating);
+        }
+        return counts.top(n, database);
+    }
+
+    /**
+     * Returns the like counts of all reviews, counting them if the reviews changed.
+     *
+     * @return The like counts, not to be changed.
+     * @throws IOException if the review index has to be built and cannot read the table.
+     */
+    private synchronized LikeCounts currentLikes() throws IOException {
+        if (likes == null) {
+            LikeCounts counted = new LikeCounts();
+            database.getUserReviewIndex().forEachRating(counted::add);
+            likes = counted;
+        }
+        return likes;
+    }
+
+    private synchronized void invalidate() {
+        likes = null;
+    }
+}
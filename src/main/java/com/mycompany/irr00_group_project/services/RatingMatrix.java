@@ -0,0 +1,302 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.Arrays;
+
+/**
+ * Sparse user-item rating matrix. Every user row stores only the items the user rated,
+ * as ascending int item indices with a byte rating each, so memory grows with the number
+ * of ratings instead of users times items, and loops over a row only visit ratings.
+ * Rows are separate arrays, so a rating can be changed without rebuilding the matrix.
+ * Not thread-safe.
+ */
+public final class RatingMatrix {
+
+    private static final int[] NO_ITEMS = new int[0];
+    private static final byte[] NO_RATINGS = new byte[0];
+
+    private int[][] rowItems;
+    private byte[][] rowRatings;
+    private int[] rowSizes;
+    private int[] columnSizes;
+    private int userCount;
+    private int itemCount;
+    private long ratingCount;
+
+    /**
+     * Constructor for the RatingMatrix class.
+     *
+     * @param userCount The number of users (rows).
+     * @param itemCount The number of items (columns).
+     */
+    public RatingMatrix(int userCount, int itemCount) {
+        if (userCount < 0 || itemCount < 0) {
+            throw new IllegalArgumentException("Matrix size must not be negative.");
+        }
+        this.userCount = userCount;
+        this.itemCount = itemCount;
+        rowItems = new int[userCount][];
+        rowRatings = new byte[userCount][];
+        rowSizes = new int[userCount];
+        columnSizes = new int[itemCount];
+        Arrays.fill(rowItems, NO_ITEMS);
+        Arrays.fill(rowRatings, NO_RATINGS);
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Returns the number of stored ratings.
+     *
+     * @return The number of non-zero entries.
+     */
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Grows the matrix to at least the given size. Existing ratings are kept.
+     *
+     * @param users The minimum number of users.
+     * @param items The minimum number of items.
+     */
+    public void ensureSize(int users, int items) {
+        if (users > userCount) {
+            int capacity = Math.max(users, rowItems.length);
+            if (capacity > rowItems.length) {
+                capacity = Math.max(capacity, rowItems.length + (rowItems.length >> 1));
+                int oldLength = rowItems.length;
+                rowItems = Arrays.copyOf(rowItems, capacity);
+                rowRatings = Arrays.copyOf(rowRatings, capacity);
+                rowSizes = Arrays.copyOf(rowSizes, capacity);
+                Arrays.fill(rowItems, oldLength, capacity, NO_ITEMS);
+                Arrays.fill(rowRatings, oldLength, capacity, NO_RATINGS);
+            }
+            userCount = users;
+        }
+        if (items > columnSizes.length) {
+            columnSizes = Arrays.copyOf(columnSizes,
+                Math.max(items, columnSizes.length + (columnSizes.length >> 1)));
+        }
+        itemCount = Math.max(itemCount, items);
+    }
+
+    /**
+     * Returns a rating.
+     *
+     * @param user The user (row).
+     * @param item The item (column).
+     * @return The rating, or 0 if the user did not rate the item.
+     */
+    public int get(int user, int item) {
+        int position = find(user, item);
+        return position >= 0 ? rowRatings[user][position] : 0;
+    }
+
+    /**
+     * Sets a rating, replacing the previous one.
+     *
+     * @param user The user (row).
+     * @param item The item (column).
+     * @param rating The rating between 1 and 127, or 0 to remove the rating.
+     * @throws IllegalArgumentException if a parameter is out of range.
+     */
+    public void set(int user, int item, int rating) {
+        checkBounds(user, item);
+        if (rating < 0 || rating > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+        int position = find(user, item);
+        if (position >= 0) {
+            if (rating == 0) {
+                removeAt(user, position);
+            } else {
+                rowRatings[user][position] = (byte) rating;
+            }
+        } else if (rating != 0) {
+            insertAt(user, -position - 1, item, (byte) rating);
+        }
+    }
+
+    /**
+     * Returns the number of items a user rated.
+     *
+     * @param user The user (row).
+     * @return The number of ratings in the row.
+     */
+    public int rowSize(int user) {
+        return rowSizes[user];
+    }
+
+    /**
+     * Returns the number of users who rated an item.
+     *
+     * @param item The item (column).
+     * @return The number of ratings in the column.
+     */
+    public int columnSize(int item) {
+        if (item < 0 || item >= itemCount) {
+            throw new IllegalArgumentException("No column " + item + " in a rating matrix of "
+                + itemCount + " items.");
+        }
+        return columnSizes[item];
+    }
+
+    /**
+     * Returns the position in a row of the first rating of an item at or after a given
+     * item, so a range of items can be walked without scanning the row from the start.
+     *
+     * @param user The user (row).
+     * @param item The first item of interest.
+     * @return The position, rowSize(user) if the user rated no such item.
+     */
+    public int lowerBound(int user, int item) {
+        int position = Arrays.binarySearch(rowItems[user], 0, rowSizes[user], item);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Returns the item of a rating in a row.
+     *
+     * @param user The user (row).
+     * @param position The position in the row, between 0 and rowSize(user) - 1.
+     * @return The item index, ascending with the position.
+     */
+    public int itemAt(int user, int position) {
+        return rowItems[user][position];
+    }
+
+    /**
+     * Returns a rating in a row.
+     *
+     * @param user The user (row).
+     * @param position The position in the row, between 0 and rowSize(user) - 1.
+     * @return The rating.
+     */
+    public int ratingAt(int user, int position) {
+        return rowRatings[user][position];
+    }
+
+    /**
+     * Returns an independent copy of this matrix.
+     *
+     * @return The copy.
+     */
+    public RatingMatrix copy() {
+        RatingMatrix copy = new RatingMatrix(userCount, itemCount);
+        for (int user = 0; user < userCount; user++) {
+            copy.rowItems[user] = Arrays.copyOf(rowItems[user], rowSizes[user]);
+            copy.rowRatings[user] = Arrays.copyOf(rowRatings[user], rowSizes[user]);
+            copy.rowSizes[user] = rowSizes[user];
+        }
+        copy.columnSizes = Arrays.copyOf(columnSizes, itemCount);
+        copy.ratingCount = ratingCount;
+        return copy;
+    }
+
+    /**
+     * Returns the item-user matrix holding the same ratings, so the ratings of an item
+     * can be walked like a row.
+     *
+     * @return The transposed matrix.
+     */
+    public RatingMatrix transpose() {
+        RatingMatrix transposed = new RatingMatrix(itemCount, userCount);
+        for (int item = 0; item < itemCount; item++) {
+            transposed.rowItems[item] = new int[columnSizes[item]];
+            transposed.rowRatings[item] = new byte[columnSizes[item]];
+        }
+        // Users are visited in ascending order, so every transposed row stays sorted.
+        for (int user = 0; user < userCount; user++) {
+            for (int k = 0; k < rowSizes[user]; k++) {
+                int item = rowItems[user][k];
+                int position = transposed.rowSizes[item]++;
+                transposed.rowItems[item][position] = user;
+                transposed.rowRatings[item][position] = rowRatings[user][k];
+            }
+        }
+        System.arraycopy(rowSizes, 0, transposed.columnSizes, 0, userCount);
+        transposed.ratingCount = ratingCount;
+        return transposed;
+    }
+
+    /**
+     * Computes the cosine similarity of two users over the items both rated, merging the
+     * two sorted rows.
+     *
+     * @param userA The first user.
+     * @param userB The second user.
+     * @return The similarity, or 0 if the users rated no item in common.
+     */
+    public float similarity(int userA, int userB) {
+        int[] itemsA = rowItems[userA];
+        int[] itemsB = rowItems[userB];
+        byte[] ratingsA = rowRatings[userA];
+        byte[] ratingsB = rowRatings[userB];
+        float dot = 0;
+        float normA = 0;
+        float normB = 0;
+        int i = 0;
+        int j = 0;
+        while (i < rowSizes[userA] && j < rowSizes[userB]) {
+            if (itemsA[i] == itemsB[j]) {
+                float a = ratingsA[i++];
+                float b = ratingsB[j++];
+                dot += a * b;
+                normA += a * a;
+                normB += b * b;
+            } else if (itemsA[i] < itemsB[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        if (normA == 0 || normB == 0) {
+            return 0;
+        }
+        return (float) (dot / (Math.sqrt(normA) * Math.sqrt(normB)));
+    }
+
+    private int find(int user, int item) {
+        checkBounds(user, item);
+        return Arrays.binarySearch(rowItems[user], 0, rowSizes[user], item);
+    }
+
+    private void checkBounds(int user, int item) {
+        if (user < 0 || user >= userCount || item < 0 || item >= itemCount) {
+            throw new IllegalArgumentException("No cell (" + user + ", " + item + ") in a "
+                + userCount + "x" + itemCount + " rating matrix.");
+        }
+    }
+
+    private void insertAt(int user, int position, int item, byte rating) {
+        int size = rowSizes[user];
+        if (size == rowItems[user].length) {
+            int capacity = Math.max(4, size * 2);
+            rowItems[user] = Arrays.copyOf(rowItems[user], capacity);
+            rowRatings[user] = Arrays.copyOf(rowRatings[user], capacity);
+        }
+        System.arraycopy(rowItems[user], position, rowItems[user], position + 1, size - position);
+        System.arraycopy(rowRatings[user], position, rowRatings[user], position + 1,
+            size - position);
+        rowItems[user][position] = item;
+        rowRatings[user][position] = rating;
+        rowSizes[user]++;
+        columnSizes[item]++;
+        ratingCount++;
+    }
+
+    private void removeAt(int user, int position) {
+        columnSizes[rowItems[user][position]]--;
+        int moved = rowSizes[user] - position - 1;
+        System.arraycopy(rowItems[user], position + 1, rowItems[user], position, moved);
+        System.arraycopy(rowRatings[user], position + 1, rowRatings[user], position, moved);
+        rowSizes[user]--;
+        ratingCount--;
+    }
+}
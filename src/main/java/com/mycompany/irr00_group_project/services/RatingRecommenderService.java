@@ -2,54 +2,143 @@ package com.mycompany.irr00_group_project.services;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
 import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
 
 /**
  *  This class provides a service for recommending songs based on user ratings.
+ *  The rating matrix is built once and then kept up to date from the change events of the
+ *  reviews and users tables, so a recommendation request does not read the tables again.
+ *  The table listeners only queue the changes, which the next request applies, so saving a
+ *  review never waits for a request. Requests score against the matrix outside the lock;
+ *  a shared matrix is copied before the next change is applied to it.
+ *  Recommendations are user-based by default; the item-based mode predicts from
+ *  precomputed neighbour lists of the items a user rated, and the latent factor mode
+ *  scores every item with one dot product of ALS factors trained in the background.
  */
 public class RatingRecommenderService {
 
     static final int RATING_THRESHOLD = 5;
+    static final int DEFAULT_NEIGHBOUR_COUNT = 20;
+    static final int INCREMENTAL_ITERATIONS = 2;
+    // Users compared and items scored per parallel task.
+    static final int USER_BLOCK = 512;
+    static final int ITEM_BLOCK = 2048;
+    // Columns hold the songs first, then the albums, then the artists, each in table order.
+    private static final ReviewableType[] ITEM_ORDER = {
+        ReviewableType.SONG, ReviewableType.ALBUM, ReviewableType.ARTIST
+    };
     static int numRatings;
 
+    private static RatingRecommenderService instance;
+
     /**
      * The rating matrix where each row represents
      * a user and each column represents a reviewable item.
-     * The value at [i][j] is the rating given by user i to reviewable item j.
+     * The value at (i, j) is the rating given by user i to reviewable item j.
+     * Only the ratings that exist are stored.
      */
-    private float[][] ratingMatrix;
-    private List<String> users;
+    private RatingMatrix ratingMatrix;
+
+    // Set when the catalog or the user ids change, which moves columns or rows.
+    private volatile boolean stale;
+    // Set while requests or training may read the matrix outside the lock.
+    private boolean matrixShared;
+    // Changes of the reviews and users tables not yet applied to the matrix.
+    private final Queue<TableChange> pendingReviewChanges = new ConcurrentLinkedQueue<>();
+    private final Queue<TableChange> pendingUserChanges = new ConcurrentLinkedQueue<>();
+
+    private Mode mode = Mode.USER_BASED;
+    private int neighbourCount = DEFAULT_NEIGHBOUR_COUNT;
+    // Built on the first item-based request and again after rebuildItemNeighbours().
+    private ItemNeighbours itemNeighbours;
+
+    private AlsModel.Parameters factorParameters = new AlsModel.Parameters(16, 0.1f, 10, 42);
+    private AlsModel factorModel;
+    // Counts rating changes, and matrix rebuilds, which move the columns under a model.
+    private long ratingVersion;
+    private long trainedVersion;
+    private int matrixGeneration;
+    private ScheduledExecutorService retrainScheduler;
+
+    private final Database database;
+    private final Table reviewTable;
+
+    // The catalog item of every column of the rating matrix.
+    private ItemIndex itemIndex;
 
-    private Database database;
-    private Table reviewTable;
-    private Table songTable;
+    /**
+     * The collaborative filtering method used to score items.
+     */
+    public enum Mode {
+        /** Weights the ratings of similar users, computed per request. */
+        USER_BASED,
+        /** Weights the user's own ratings of similar items, from precomputed lists. */
+        ITEM_BASED,
+        /** Scores items by the dot product of user and item factors trained with ALS. */
+        LATENT_FACTOR
+    }
 
-    private int numSongs;
-    private int numAlbums;
-    private int numArtists;
+    /**
+     * The state one request scores against. The matrix is shared, so it does not change
+     * while the request reads it.
+     */
+    private record Snapshot(RatingMatrix matrix, ItemIndex items, Mode mode,
+        ItemNeighbours neighbours, int neighbourCount, AlsModel factors, int generation) {
+    }
 
     /**
-     * Constructor for the RatingRecommenderService.
-     * Initializes the rating matrix and retrieves user and song data from the database.
+     * Constructor for the RatingRecommenderService, using the current database.
      *
      * @throws IllegalArgumentException if there is an issue with the database connection.
      * @throws IOException if there is an error reading from the database.
      */
     public RatingRecommenderService() throws IllegalArgumentException, IOException {
+        this(Database.getInstance());
+    }
+
+    /**
+     * Constructor for the RatingRecommenderService.
+     * Builds the rating matrix and subscribes to the tables it is built from.
+     *
+     * @param database The database to recommend from.
+     * @throws IOException if there is an error reading from the database.
+     */
+    public RatingRecommenderService(Database database) throws IOException {
         numRatings = 0;
-        database = Database.getInstance();
+        this.database = database;
         reviewTable = database.getReviewsTable();
-        songTable = database.getReviewableTable(ReviewableType.SONG);
-        users = database.getUsersTable().getEverythingInHeader("id");
 
         constructRatingMatrix();
+        reviewTable.addChangeListener(this::onReviewChange);
+        database.getUsersTable().addChangeListener(this::onUserChange);
+        database.addCatalogChangeListener(this::markStale);
         // printRatingMatrix();
     }
 
+    /**
+     * Returns the service of the current database, creating it when the database changed.
+     *
+     * @return The shared RatingRecommenderService.
+     * @throws IOException if the rating matrix cannot be built.
+     */
+    public static synchronized RatingRecommenderService getInstance() throws IOException {
+        if (instance == null || instance.database != Database.getInstance()) {
+            instance = new RatingRecommenderService(Database.getInstance());
+        }
+        return instance;
+    }
+
     /**
      * Gets song recommendations for a user based on their ratings.
      *
@@ -60,88 +149,463 @@ public class RatingRecommenderService {
      */
     public List<Reviewable> getRecommendations(String userID, int numRecommendations)
         throws IOException {
-        constructRatingMatrix();
-        int numUsers = users.size();
-        int numReviewables = ratingMatrix[0].length;
-        float[] similarityScores = userSimilarity(userID);
+        if (getMode() == Mode.LATENT_FACTOR && getFactorModel() == null) {
+            retrainFactorModel();
+        }
         int targetUser = Integer.parseInt(userID);
+        Snapshot snapshot = snapshot(targetUser);
+        RatingMatrix matrix = snapshot.matrix();
 
         // Clamp the number of requested recommendations to the max number of songs
-        numRecommendations = Math.min(numRecommendations, numReviewables);
+        numRecommendations = Math.min(numRecommendations, matrix.getItemCount());
+
+        int[] best = topItems(matrix, scoreItems(snapshot, targetUser), numRecommendations);
+        ReviewableType[] types = new ReviewableType[best.length];
+        String[] ids = new String[best.length];
+        for (int i = 0; i < best.length; i++) {
+            types[i] = snapshot.items().typeAt(best[i]);
+            ids[i] = snapshot.items().idAt(best[i]);
+        }
+        return database.getReviewables(types, ids);
+    }
+
+    /**
+     * Applies the queued table changes and shares the resulting state with a request.
+     *
+     * @param targetUser the row of the user of the request.
+     * @return the state to score against.
+     * @throws IOException if the rating matrix has to be rebuilt and cannot be read.
+     */
+    private synchronized Snapshot snapshot(int targetUser) throws IOException {
+        applyPendingChanges();
+        if (stale) {
+            constructRatingMatrix();
+        }
+        if (targetUser >= ratingMatrix.getUserCount()) {
+            unshareMatrix();
+            ratingMatrix.ensureSize(targetUser + 1, ratingMatrix.getItemCount());
+        }
+        matrixShared = true;
+        return new Snapshot(ratingMatrix, itemIndex, mode, itemNeighbours, neighbourCount,
+            factorModel, matrixGeneration);
+    }
+
+    /**
+     * Scores every item for a user with the mode of a snapshot. The latent factor mode
+     * falls back to user-based scores for users the model has no factors for yet.
+     *
+     * @param snapshot the state to score against.
+     * @param targetUser the row of the user.
+     * @return the score of every item.
+     * @throws IOException if the follows table cannot be read.
+     */
+    private float[] scoreItems(Snapshot snapshot, int targetUser) throws IOException {
+        RatingMatrix matrix = snapshot.matrix();
+        if (snapshot.mode() == Mode.ITEM_BASED) {
+            return itemNeighbours(snapshot).predict(matrix, targetUser);
+        }
+        AlsModel factors = snapshot.factors();
+        if (snapshot.mode() == Mode.LATENT_FACTOR && factors != null
+            && factors.hasUserFactors(targetUser)) {
+            return factorScores(factors, matrix, targetUser);
+        }
+        return calculateRecommendations(matrix, userSimilarity(matrix, targetUser), targetUser);
+    }
+
+    /**
+     * Returns the neighbour lists of a snapshot, building them outside the lock if the
+     * snapshot has none. The lists are kept unless the matrix was rebuilt or the
+     * neighbour count changed meanwhile.
+     *
+     * @param snapshot the state to score against.
+     * @return the neighbour lists of the matrix of the snapshot.
+     */
+    private ItemNeighbours itemNeighbours(Snapshot snapshot) {
+        if (snapshot.neighbours() != null) {
+            return snapshot.neighbours();
+        }
+        ItemNeighbours built = ItemNeighbours.build(snapshot.matrix(), snapshot.neighbourCount());
+        synchronized (this) {
+            if (itemNeighbours == null && snapshot.generation() == matrixGeneration
+                && snapshot.neighbourCount() == neighbourCount) {
+                itemNeighbours = built;
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Scores every item by its predicted rating. Items the user rated rank last, as
+     * predictions may be negative.
+     *
+     * @param factors the trained model.
+     * @param matrix the rating matrix the model belongs to.
+     * @param targetUser the row of the user.
+     * @return the score of every item.
+     */
+    private static float[] factorScores(AlsModel factors, RatingMatrix matrix, int targetUser) {
+        float[] predictions = factors.predictAll(targetUser);
+        float[] recommendations = new float[matrix.getItemCount()];
+        // Items added after training keep a score of 0.
+        System.arraycopy(predictions, 0, recommendations, 0,
+            Math.min(predictions.length, recommendations.length));
+        for (int k = 0; k < matrix.rowSize(targetUser); k++) {
+            recommendations[matrix.itemAt(targetUser, k)] = Float.NEGATIVE_INFINITY;
+        }
+        return recommendations;
+    }
+
+    /**
+     * Trains the latent factor model on the current ratings, unless they did not change
+     * since the last training. A previous model of the same matrix is the starting point,
+     * so only a few iterations are run. Training reads the shared matrix outside the
+     * lock, so requests are not held up.
+     *
+     * @throws IOException if the rating matrix has to be rebuilt and cannot be read.
+     */
+    public void retrainFactorModel() throws IOException {
+        RatingMatrix snapshot;
+        AlsModel previous;
+        AlsModel.Parameters parameters;
+        long version;
+        int generation;
+        synchronized (this) {
+            applyPendingChanges();
+            if (stale) {
+                constructRatingMatrix();
+            }
+            if (factorModel != null && trainedVersion == ratingVersion) {
+                return;
+            }
+            snapshot = ratingMatrix;
+            matrixShared = true;
+            previous = factorModel;
+            parameters = previous == null
+                ? factorParameters : factorParameters.withIterations(INCREMENTAL_ITERATIONS);
+            version = ratingVersion;
+            generation = matrixGeneration;
+        }
+        AlsModel trained = AlsModel.train(snapshot, parameters, previous);
+        synchronized (this) {
+            // A rebuilt matrix may have moved the columns the model was trained on.
+            if (generation == matrixGeneration
+                && (factorModel == null || version > trainedVersion)) {
+                factorModel = trained;
+                trainedVersion = version;
+            }
+        }
+    }
+
+    /**
+     * Retrains the latent factor model periodically on a background thread, replacing
+     * an earlier schedule. Runs without rating changes return immediately.
+     *
+     * @param period The time between the end of one run and the start of the next.
+     * @param unit The unit of the period.
+     * @throws IllegalArgumentException if the period is not positive.
+     */
+    public synchronized void scheduleRetraining(long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        stopRetraining();
+        retrainScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "factor-retraining");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retrainScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                retrainFactorModel();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops the periodic retraining, if any. A run in progress finishes.
+     */
+    public synchronized void stopRetraining() {
+        if (retrainScheduler != null) {
+            retrainScheduler.shutdown();
+            retrainScheduler = null;
+        }
+    }
+
+    public synchronized AlsModel getFactorModel() {
+        return factorModel;
+    }
 
-        float[] recommendations = calculateRecommendations(
-            numUsers, numReviewables, similarityScores, targetUser);
+    /**
+     * Sets the ALS parameters. The next latent factor request or scheduled run trains a
+     * new model from scratch.
+     *
+     * @param parameters The parameters.
+     * @throws IllegalArgumentException if the parameters are null.
+     */
+    public synchronized void setFactorParameters(AlsModel.Parameters parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("Parameters must not be null.");
+        }
+        factorParameters = parameters;
+        factorModel = null;
+    }
 
-        List<Reviewable> recommendedObjects = buildRecommendedObjectsList(
-            recommendations, numRecommendations);
+    public synchronized Mode getMode() {
+        return mode;
+    }
 
-        return recommendedObjects;
+    /**
+     * Sets the collaborative filtering method used by later requests.
+     *
+     * @param mode The method.
+     * @throws IllegalArgumentException if the mode is null.
+     */
+    public synchronized void setMode(Mode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode must not be null.");
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * Sets the number of neighbours kept per item in the item-based mode. The lists are
+     * built again on the next item-based request.
+     *
+     * @param neighbourCount The number of neighbours, at least 1.
+     * @throws IllegalArgumentException if the count is not positive.
+     */
+    public synchronized void setNeighbourCount(int neighbourCount) {
+        if (neighbourCount <= 0) {
+            throw new IllegalArgumentException(
+                "Neighbour count must be positive: " + neighbourCount);
+        }
+        this.neighbourCount = neighbourCount;
+        itemNeighbours = null;
+    }
+
+    /**
+     * Recomputes the item neighbour lists from the current ratings. Review events only
+     * update the rating matrix, so the lists drift from it until they are rebuilt.
+     * The lists are built outside the lock, so requests keep using the old lists meanwhile.
+     */
+    public void rebuildItemNeighbours() {
+        RatingMatrix matrix;
+        int count;
+        int generation;
+        synchronized (this) {
+            applyPendingChanges();
+            if (stale) {
+                // The next request rebuilds the matrix and then the lists.
+                itemNeighbours = null;
+                return;
+            }
+            matrix = ratingMatrix;
+            matrixShared = true;
+            count = neighbourCount;
+            generation = matrixGeneration;
+        }
+        ItemNeighbours built = ItemNeighbours.build(matrix, count);
+        synchronized (this) {
+            if (generation == matrixGeneration && count == neighbourCount) {
+                itemNeighbours = built;
+            }
+        }
+    }
+
+    /**
+     * Queues a change of the reviews table for the next request. Runs on the thread that
+     * saved the review, so it takes no lock.
+     *
+     * @param change The change of the reviews table.
+     */
+    private void onReviewChange(TableChange change) {
+        pendingReviewChanges.add(change);
+    }
+
+    /**
+     * Queues a change of the users table for the next request.
+     *
+     * @param change The change of the users table.
+     */
+    private void onUserChange(TableChange change) {
+        pendingUserChanges.add(change);
+    }
+
+    /**
+     * Marks the matrix for a rebuild, as catalog changes move the item columns.
+     */
+    private void markStale() {
+        stale = true;
+    }
+
+    /**
+     * Applies the queued table changes to the rating matrix. Changes queued while the
+     * matrix is stale are dropped, as the rebuild reads them from the tables. Must be
+     * called with the lock held.
+     */
+    private void applyPendingChanges() {
+        TableChange change;
+        while ((change = pendingUserChanges.poll()) != null) {
+            applyUserChange(change);
+        }
+        while ((change = pendingReviewChanges.poll()) != null) {
+            applyReviewChange(change);
+        }
+    }
+
+    /**
+     * Applies a change of the reviews table to the rating matrix. Every user reviews an
+     * item at most once, so the cell of a review only changes with that review.
+     *
+     * @param change The change of the reviews table.
+     */
+    private void applyReviewChange(TableChange change) {
+        if (change.getKind() == TableChange.Kind.REPLACED) {
+            stale = true;
+            return;
+        }
+        if (stale || change.getKind() == TableChange.Kind.RESEQUENCED) {
+            // Renumbering reviews moves no rating.
+            return;
+        }
+        unshareMatrix();
+        ratingVersion++;
+        if (change.getOldLine() != null) {
+            setRating(change.getOldLine(), 0);
+        }
+        if (change.getNewLine() != null) {
+            setRating(change.getNewLine(), -1);
+        }
+    }
+
+    /**
+     * Applies a change of the users table: new users get an empty row, any other change
+     * may move rows, so the matrix is rebuilt before the next request.
+     *
+     * @param change The change of the users table.
+     */
+    private void applyUserChange(TableChange change) {
+        if (stale) {
+            return;
+        }
+        if (change.getKind() != TableChange.Kind.ADDED) {
+            stale = true;
+            return;
+        }
+        try {
+            int userId = Integer.parseInt(change.getId());
+            unshareMatrix();
+            ratingMatrix.ensureSize(userId + 1, ratingMatrix.getItemCount());
+        } catch (NumberFormatException e) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Replaces a matrix that requests may still be reading by a copy, so it can be
+     * changed. Must be called with the lock held.
+     */
+    private void unshareMatrix() {
+        if (matrixShared) {
+            ratingMatrix = ratingMatrix.copy();
+            matrixShared = false;
+        }
+    }
+
+    /**
+     * Sets the cell of a review line.
+     *
+     * @param line The review line.
+     * @param rating The rating to store, 0 to remove it, or -1 to store the rating of
+     *     the line.
+     */
+    private void setRating(Map<String, String> line, int rating) {
+        try {
+            int userId = Integer.parseInt(line.get("user_id"));
+            int column = itemColumn(line.get("reviewable_type"), line.get("target_id"));
+            int value = rating < 0 ? Integer.parseInt(line.get("rating")) : rating;
+            if (column < 0 || userId < 0 || value < 0) {
+                return;
+            }
+            ratingMatrix.ensureSize(userId + 1, ratingMatrix.getItemCount());
+            ratingMatrix.set(userId, column, value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping unreadable review line: " + line);
+        }
     }
 
     /**
      * Helper method to calculate recommendation scores for unrated items.
-     * @param numUsers the total number of users.
-     * @param numReviewables the total number of reviewable items.
+     * The items are split into blocks scored in parallel. Each block walks only its own
+     * slice of the rows of the similar users, so its sums stay in cache and no two
+     * workers write to the same entries.
+     * @param matrix the rating matrix.
      * @param similarityScores the array of similarity scores for each user.
      * @param targetUser the index of the target user for whom recommendations are being calculated.
      * @return an array of recommendation scores for each reviewable item.
+     * @throws IOException if a block fails.
      */
-    private float[] calculateRecommendations(int numUsers,
-        int numReviewables, float[] similarityScores, int targetUser) {
+    private float[] calculateRecommendations(RatingMatrix matrix, float[] similarityScores,
+        int targetUser) throws IOException {
+        // Users with similarity 0 add nothing to either sum.
+        int[] similarUsers = new int[similarityScores.length];
+        int similarCount = 0;
+        for (int i = 0; i < similarityScores.length; i++) {
+            if (i != targetUser && similarityScores[i] != 0) {
+                similarUsers[similarCount++] = i;
+            }
+        }
+        int numReviewables = matrix.getItemCount();
         float[] recommendations = new float[numReviewables];
-        for (int j = 0; j < numReviewables; j++) {
-            if (ratingMatrix[targetUser][j] == 0) {
-                double total = 0;
-                double simSum = 0;
-                for (int i = 0; i < numUsers; i++) {
-                    if (i != targetUser && ratingMatrix[i][j] > 0) {
-                        total += similarityScores[i] * ratingMatrix[i][j];
-                        simSum += Math.abs(similarityScores[i]);
-                    }
+        int users = similarCount;
+        ComputePool.getInstance().invokeBlocks(numReviewables, ITEM_BLOCK, (from, to) -> {
+            double[] total = new double[to - from];
+            double[] simSum = new double[to - from];
+            for (int u = 0; u < users; u++) {
+                int i = similarUsers[u];
+                int k = matrix.lowerBound(i, from);
+                for (; k < matrix.rowSize(i) && matrix.itemAt(i, k) < to; k++) {
+                    int j = matrix.itemAt(i, k) - from;
+                    total[j] += similarityScores[i] * matrix.ratingAt(i, k);
+                    simSum[j] += Math.abs(similarityScores[i]);
                 }
-                recommendations[j] = (float) (simSum > 0 ? total / simSum : 0);
             }
+            for (int j = 0; j < total.length; j++) {
+                recommendations[from + j] = (float) (simSum[j] > 0 ? total[j] / simSum[j] : 0);
+            }
+        });
+        // Items the user rated already rank last, as predictions may be negative.
+        for (int k = 0; k < matrix.rowSize(targetUser); k++) {
+            recommendations[matrix.itemAt(targetUser, k)] = Float.NEGATIVE_INFINITY;
         }
         return recommendations;
     }
 
     /**
-     * Helper method to build the list of recommended Reviewable objects.
+     * Helper method to select the best scoring items without sorting the whole catalog.
+     * Equal scores go to the item more users rated, then to the lower column, so users
+     * without similar users get the most rated items first. Items scored negative
+     * infinity, the items the user rated, are never selected.
+     * @param matrix the rating matrix.
      * @param recommendations the array of recommendation scores.
-     * @param numRecommendations the number of recommendations to return.
-     * @return a list of Reviewable objects representing the recommended items.
-     * @throws IOException if there is an error reading from the database.
+     * @param numRecommendations the number of items to return.
+     * @return the columns of the best items, best first.
      */
-    private List<Reviewable> buildRecommendedObjectsList(
-        float[] recommendations, int numRecommendations) throws IOException {
-        List<float[]> indexedList = new ArrayList<>();
-        for (int i = 0; i < recommendations.length; i++) {
-            indexedList.add(new float[]{i + 1, recommendations[i]});
-        }
-        indexedList.sort((a, b) -> Float.compare(b[1], a[1]));
-
-        List<Reviewable> recommendedObjects = new ArrayList<>();
-        int limit = Math.min(numRecommendations, indexedList.size());
-        for (int i = 0; i < limit; i++) {
-            ReviewableType type = ReviewableType.SONG;
-            int currIndex = (int) indexedList.get(i)[0];
-            int offset = 0;
-            if (currIndex > numSongs) {
-                if (currIndex > numSongs + numAlbums) {
-                    type = ReviewableType.ARTIST;
-                    offset = numSongs + numAlbums;
-                } else {
-                    type = ReviewableType.ALBUM;
-                    offset = numSongs;
-                }
-            }
-            recommendedObjects.add(database.turnLineToReviewable(
-                database.getReviewableTable(type).getLines(
-                    "id",
-                    Integer.toString((int) currIndex - offset)).get(0)
-            ));
+    private static int[] topItems(RatingMatrix matrix, float[] recommendations,
+        int numRecommendations) {
+        int[] ratingCounts = new int[recommendations.length];
+        for (int j = 0; j < ratingCounts.length; j++) {
+            ratingCounts[j] = matrix.columnSize(j);
+        }
+        int[] best = TopK.select(recommendations, ratingCounts, numRecommendations);
+        // Excluded items rank last, so only the tail of a short catalog can hold them.
+        int size = best.length;
+        while (size > 0 && recommendations[best[size - 1]] == Float.NEGATIVE_INFINITY) {
+            size--;
         }
-        return recommendedObjects;
+        return size == best.length ? best : Arrays.copyOf(best, size);
     }
 
     /**
@@ -166,89 +630,101 @@ public class RatingRecommenderService {
 
     /**
      * Calculates the similarity scores between a user and all other users.
-     * The similarity is calculated using the cosine similarity formula.
+     * The similarity is calculated using the cosine similarity formula over the items both
+     * users rated. The users are split into blocks compared in parallel.
      *
-     * @param userID the ID of the user for whom to calculate similarity scores.
+     * @param matrix the rating matrix.
+     * @param targetUser the row of the user for whom to calculate similarity scores.
      * @return an array of similarity scores for each user.
+     * @throws IOException if the follows table cannot be read.
      */
-    private float[] userSimilarity(String userID) {
-        float[] res = new float[users.size()];
-        float[] a = ratingMatrix[Integer.parseInt(userID)];
-        for (int i = 0; i < users.size(); i++) {
-            if (userID != users.get(i)) {
-                float dot = 0;
-                float normA = 0;
-                float normB = 0;
-                float[] b = ratingMatrix[Integer.parseInt(users.get(i))];
-                for (int j = 0; j < a.length; j++) {
-                    if (a[j] != 0 && b[j] != 0) {
-                        dot += a[j] * b[j];
-                        normA += a[j] * a[j];
-                        normB += b[j] * b[j];
-                    }
-
+    private float[] userSimilarity(RatingMatrix matrix, int targetUser) throws IOException {
+        // Read once, so the blocks do not take the lock of the graph for every user.
+        BitSet followed = new BitSet();
+        for (int followee : database.getSocialGraph().followees(targetUser)) {
+            if (followee >= 0) {
+                followed.set(followee);
+            }
+        }
+        float[] res = new float[matrix.getUserCount()];
+        // Blocks of users are compared with the target in parallel.
+        ComputePool.getInstance().invokeBlocks(res.length, USER_BLOCK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (i == targetUser) {
+                    continue;
                 }
-                try {
-                    // Compute cosine similarity
-                    double similarity = 0;
-                    if (normA != 0 && normB != 0) {
-                        similarity = dot / (Math.sqrt(normA) * Math.sqrt(normB));
-                    }
-
-                    // Check if the current user is followed by the given userID
-                    boolean isFollowed = database.getFollowedUsers(userID)
-                        .contains(database.getUserById(users.get(i)));
-
-                    // Apply boost if followed
-                    float boost = isFollowed ? 1.25f : 1.0f;
-
-                    // Store the result
-                    res[i] = (float) similarity * boost;
-                } catch (Exception e) {
-                    e.printStackTrace();
+                float similarity = matrix.similarity(targetUser, i);
+                // Apply boost if the current user is followed by the given userID
+                if (similarity != 0 && followed.get(i)) {
+                    similarity *= 1.25f;
                 }
+                res[i] = similarity;
             }
-        }
+        });
         return res;
     }
 
     /**
      * Constructs the rating matrix from the database.
      * This method retrieves all ratings from the database and populates the rating matrix.
+     * It only runs on construction and after the catalog or the user ids changed.
+     * Lines that do not refer to a known user and item are skipped.
      *
      * @throws IOException if there is an error reading from the database.
      */
     private void constructRatingMatrix() throws IOException {
-        numSongs = songTable.getEverythingInHeader("id").size();
-        numAlbums = database.getReviewableTable(ReviewableType.ALBUM)
-            .getEverythingInHeader("id").size();
-        numArtists = database.getReviewableTable(ReviewableType.ARTIST)
-            .getEverythingInHeader("id").size();
-
-        int numReviewables = numSongs + numAlbums + numArtists;
-
-        ratingMatrix = new float[users.size()][numReviewables];
+        stale = false;
+        matrixShared = false;
+        itemNeighbours = null;
+        factorModel = null;
+        ratingVersion++;
+        matrixGeneration++;
+        int numUsers = database.getUsersTable().getEverythingInHeader("id").size();
+        itemIndex = new ItemIndex();
+        for (ReviewableType type : ITEM_ORDER) {
+            for (String id : database.getReviewableTable(type).getEverythingInHeader("id")) {
+                itemIndex.add(type, id);
+            }
+        }
 
-        List<Map<String, String>> ratingLines = reviewTable.getAllLines();
+        int numReviewables = itemIndex.size();
 
-        for (int i = 0; i < ratingLines.size() - 1; i++) {
+        ratingMatrix = new RatingMatrix(numUsers, numReviewables);
 
-            int userId = Integer.parseInt(ratingLines.get(i).get("user_id"));
-            int targetId = Integer.parseInt(ratingLines.get(i).get("target_id")) - 1;
-            int rating = Integer.parseInt(ratingLines.get(i).get("rating"));
-            int offset = 0;
+        for (Map<String, String> line : reviewTable.getAllLines()) {
+            try {
+                int userId = Integer.parseInt(line.get("user_id"));
+                int column = itemColumn(line.get("reviewable_type"), line.get("target_id"));
+                int rating = Integer.parseInt(line.get("rating"));
+                if (column < 0 || userId < 0 || rating <= 0) {
+                    continue;
+                }
+                ratingMatrix.ensureSize(userId + 1, numReviewables);
 
-            if (ratingLines.get(i).get("reviewable_type").equals("ALBUM")) {
-                offset = numSongs;
-            }
-            if (ratingLines.get(i).get("reviewable_type").equals("ARTIST")) {
-                offset = numSongs + numAlbums;
+                // The first review of an item counts.
+                if (ratingMatrix.get(userId, column) == 0) {
+                    ratingMatrix.set(userId, column, rating);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping unreadable review line: " + line);
             }
+        }
+    }
 
-            if (ratingMatrix[userId][targetId + offset] == 0) {
-                ratingMatrix[userId][targetId + offset] = rating;
+    /**
+     * Returns the column of an item.
+     *
+     * @param type The reviewable type name.
+     * @param targetId The id of the item.
+     * @return The column, or -1 if there is no such item.
+     */
+    private int itemColumn(String type, String targetId) {
+        for (ReviewableType reviewableType : ITEM_ORDER) {
+            if (reviewableType.name().equals(type)) {
+                return itemIndex.column(reviewableType, targetId);
             }
         }
+        return -1;
     }
 
     /**
@@ -256,13 +732,14 @@ public class RatingRecommenderService {
      * This method is used for debugging purposes
      * to visualize the current state of the rating matrix.
      */
-    public void printRatingMatrix() {
-        String output = "";
-        for (int i = 0; i < ratingMatrix.length; i++) {
-            for (int j = 0; j < ratingMatrix[i].length; j++) {
-                output += ratingMatrix[i][j] + " ";
+    public synchronized void printRatingMatrix() {
+        applyPendingChanges();
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < ratingMatrix.getUserCount(); i++) {
+            for (int j = 0; j < ratingMatrix.getItemCount(); j++) {
+                output.append((float) ratingMatrix.get(i, j)).append(' ');
             }
-            output += "\n";
+            output.append('\n');
         }
         System.out.println(output);
     }
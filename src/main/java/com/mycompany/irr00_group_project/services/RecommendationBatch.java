@@ -0,0 +1,98 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.services.RecommendationStore.Entry;
+
+/**
+ * Offline job that computes the comment and rating recommendations of every user and
+ * stores them in the recommendations table, so logging in only reads them back.
+ * Meant to run headless, e.g. nightly, with {@code mvn -Precommendation-batch compile
+ * exec:java}.
+ */
+public final class RecommendationBatch {
+
+    private static final int RATING_RECOMMENDATIONS = 10;
+
+    private RecommendationBatch() { }
+
+    /**
+     * Computes the recommendations of every user: the comment recommendations first, then
+     * the rating recommendations that are not among them, like the app shows them.
+     *
+     * @param db The database with the users, reviewables and reviews.
+     * @return The entries of every user, best first, in the order of the users table.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public static Map<String, List<Entry>> computeAll(Database db) throws IOException {
+        List<String> userIds = new ArrayList<>();
+        for (Map<String, String> line : db.getUsersTable().getAllLines()) {
+            userIds.add(line.get("id"));
+        }
+
+        // The comment recommender is safe to share, so users are spread over the pool.
+        CommentRecommenderService comments = new CommentRecommenderService(db);
+        comments.setAllReviewables();
+        comments.prepareModel();
+        Map<String, List<Reviewable>> byComments = new ConcurrentHashMap<>();
+        ComputePool.getInstance().invokeAll(userIds,
+            userId -> byComments.put(userId, comments.getRecommendations(userId)));
+
+        // The rating recommender scores one user at a time on the pool already.
+        RatingRecommenderService ratings = new RatingRecommenderService(db);
+        Map<String, List<Entry>> all = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            List<Entry> entries = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Reviewable item : byComments.get(userId)) {
+                add(entries, seen, RecommendationStore.COMMENT_SOURCE, item);
+            }
+            for (Reviewable item : ratings.getRecommendations(userId, RATING_RECOMMENDATIONS)) {
+                add(entries, seen, RecommendationStore.RATING_SOURCE, item);
+            }
+            all.put(userId, entries);
+        }
+        return all;
+    }
+
+    /**
+     * Computes the recommendations of every user and replaces the stored ones.
+     *
+     * @param db The database to read from and write to.
+     * @return The number of users.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public static int run(Database db) throws IOException {
+        Map<String, List<Entry>> all = computeAll(db);
+        db.getRecommendationStore().replaceAll(all);
+        return all.size();
+    }
+
+    /**
+     * Precomputes the recommendations of all users of the app database.
+     *
+     * @param args Not used.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        int users = run(Database.getInstance());
+        System.out.printf("Stored recommendations of %d users in %d ms%n", users,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void add(List<Entry> entries, Set<String> seen, String source,
+        Reviewable item) {
+        if (seen.add(item.getId() + "|" + item.getType())) {
+            entries.add(new Entry(source, item.getType(), item.getId()));
+        }
+    }
+}
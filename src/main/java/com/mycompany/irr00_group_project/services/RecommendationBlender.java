@@ -0,0 +1,194 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+
+/**
+ * Hybrid recommender that runs several candidate generators at the same time and merges
+ * their lists into one ranking.
+ * Every generator runs on its own background thread, and all of them share one latency
+ * budget: a generator that has not answered when the budget is spent, or that fails, is
+ * left out of the ranking. A late generator is not interrupted, so the caches it warms
+ * are there for the next request.
+ * The lists are merged by weighted reciprocal rank fusion: an item gets
+ * weight / (60 + rank) from every list it is on, with rank 1 for the first item, so items
+ * suggested by several generators rise to the top without comparing their raw scores.
+ */
+public class RecommendationBlender {
+
+    /** The default latency budget of one request, in milliseconds. */
+    public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+    // Damps the lead of the first ranks, as in the usual reciprocal rank fusion.
+    private static final int RANK_OFFSET = 60;
+
+    private final List<Source> sources = new CopyOnWriteArrayList<>();
+    private final ExecutorService workers;
+    private volatile long budgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET_MILLIS);
+
+    /**
+     * A generator with its name and weight.
+     */
+    private record Source(String name, CandidateGenerator generator, double weight) {
+    }
+
+    /**
+     * Constructor for the RecommendationBlender class, creating a blender without
+     * generators.
+     */
+    public RecommendationBlender() {
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "recommendation-blender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a blender of the comment-based (TF-IDF), rating-based (user CF), social and
+     * popularity recommendations of a database.
+     *
+     * @param database The database.
+     * @param comments The comment recommender of the database.
+     * @param ratings The rating recommender of the database.
+     * @return The blender.
+     */
+    public static RecommendationBlender createDefault(Database database,
+        CommentRecommenderService comments, RatingRecommenderService ratings) {
+        RecommendationBlender blender = new RecommendationBlender();
+        blender.addGenerator("tf-idf", (userId, n) -> comments.getRecommendations(userId), 1.0);
+        blender.addGenerator("user-cf", ratings::getRecommendations, 1.0);
+        blender.addGenerator("social", new SocialCandidates(database), 0.5);
+        blender.addGenerator("popularity", new PopularityCandidates(database), 0.25);
+        return blender;
+    }
+
+    /**
+     * Adds a candidate generator.
+     *
+     * @param name The name of the generator, used in reports of dropped generators.
+     * @param generator The generator.
+     * @param weight The weight of its candidates in the ranking.
+     * @throws IllegalArgumentException if the name or generator is null or the weight is
+     *     not positive.
+     */
+    public void addGenerator(String name, CandidateGenerator generator, double weight) {
+        if (name == null || generator == null) {
+            throw new IllegalArgumentException("Generator and its name must not be null.");
+        }
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("Weight must be positive: " + weight);
+        }
+        sources.add(new Source(name, generator, weight));
+    }
+
+    /**
+     * Sets the time a request may take before late generators are left out.
+     *
+     * @param budget The budget.
+     * @param unit The unit of the budget.
+     * @throws IllegalArgumentException if the budget is not positive.
+     */
+    public void setLatencyBudget(long budget, TimeUnit unit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Latency budget must be positive: " + budget);
+        }
+        budgetNanos = unit.toNanos(budget);
+    }
+
+    public long getLatencyBudgetMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(budgetNanos);
+    }
+
+    /**
+     * Returns the blended recommendations of a user. Waits at most the latency budget for
+     * the generators.
+     *
+     * @param userId The id of the user.
+     * @param n The maximum number of recommendations.
+     * @return The recommendations, best first.
+     * @throws IllegalArgumentException if the user id is null or n is negative.
+     */
+    public List<Reviewable> getRecommendations(String userId, int n) {
+        if (userId == null || n < 0) {
+            throw new IllegalArgumentException("User id must not be null and n not negative.");
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        List<Source> current = new ArrayList<>(sources);
+        List<Future<List<Reviewable>>> futures = new ArrayList<>();
+        for (Source source : current) {
+            futures.add(workers.submit(() -> source.generator().generate(userId, n)));
+        }
+
+        Map<String, Reviewable> items = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < current.size(); i++) {
+            List<Reviewable> candidates = await(current.get(i), futures.get(i), deadline);
+            for (int rank = 0; rank < candidates.size(); rank++) {
+                Reviewable item = candidates.get(rank);
+                String key = item.getId() + "|" + item.getType();
+                items.putIfAbsent(key, item);
+                scores.merge(key, current.get(i).weight() / (RANK_OFFSET + rank + 1), Double::sum);
+            }
+        }
+
+        // The sort is stable, so equal scores keep the order the items were first seen in.
+        List<String> ranked = new ArrayList<>(items.keySet());
+        ranked.sort(Comparator.comparingDouble(key -> -scores.get(key)));
+        List<Reviewable> recommendations = new ArrayList<>();
+        for (String key : ranked.subList(0, Math.min(n, ranked.size()))) {
+            recommendations.add(items.get(key));
+        }
+        return recommendations;
+    }
+
+    /**
+     * Stops the generator threads. Requests made afterwards fail.
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Waits for the candidates of a generator until the deadline.
+     *
+     * @param source The generator.
+     * @param future The pending candidates.
+     * @param deadline The deadline, in System.nanoTime() terms.
+     * @return The candidates, or an empty list if the generator failed or missed the deadline.
+     */
+    private static List<Reviewable> await(Source source, Future<List<Reviewable>> future,
+        long deadline) {
+        try {
+            List<Reviewable> candidates =
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return candidates == null ? List.of() : candidates;
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            System.err.println("Dropped candidate generator " + source.name()
+                + ": it missed the latency budget.");
+        } catch (ExecutionException e) {
+            System.err.println("Dropped candidate generator " + source.name() + ":");
+            e.getCause().printStackTrace();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,357 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+
+/**
+ * Offline evaluation of recommendation engines on a held-out split of the reviews.
+ * The latest reviews of every user are held out, the engines are built on the remaining
+ * reviews, and every user is asked for k recommendations. An engine is scored by how many
+ * of the held-out items the user liked it recommends (precision@k, recall@k and NDCG@k),
+ * and its request latency (p50 and p99) and peak heap use are recorded, so changes to an
+ * engine can be checked for both speed and quality.
+ * Any {@link CandidateGenerator} can be evaluated next to the built-in engines.
+ */
+public final class RecommendationEvaluation {
+
+    /** The default number of recommendations per user. */
+    public static final int DEFAULT_K = 10;
+    /** The default share of the reviews of every user that is held out. */
+    public static final double DEFAULT_TEST_FRACTION = 0.2;
+
+    private static final int LIKED_RATING = 3;
+    private static final String DEFAULT_DB_PATH = "src/main/resources/db";
+
+    private RecommendationEvaluation() { }
+
+    /**
+     * Reviews split into the reviews engines are built on and the liked items held out.
+     *
+     * @param training The training reviews, as lines of the reviews table without id.
+     * @param heldOut The held-out items every user liked, as "TYPE|id" keys, by user id.
+     */
+    public record Split(List<String[]> training, Map<String, Set<String>> heldOut) {
+    }
+
+    /**
+     * The quality and cost of one engine.
+     *
+     * @param engine The name of the engine.
+     * @param users The number of users evaluated.
+     * @param precision The mean precision@k.
+     * @param recall The mean recall@k.
+     * @param ndcg The mean NDCG@k.
+     * @param p50Millis The median request latency.
+     * @param p99Millis The 99th percentile request latency.
+     * @param peakHeapBytes The peak heap use while building and querying the engine.
+     */
+    public record Result(String engine, int users, double precision, double recall,
+        double ndcg, double p50Millis, double p99Millis, long peakHeapBytes) {
+    }
+
+    /**
+     * Builds an engine on the training database.
+     */
+    @FunctionalInterface
+    public interface EngineFactory {
+        /**
+         * Creates the engine.
+         *
+         * @param training The database with the training reviews.
+         * @return The engine.
+         * @throws IOException if there is an error accessing the database.
+         */
+        CandidateGenerator create(Database training) throws IOException;
+    }
+
+    /**
+     * Holds out the latest reviews of every user with at least two reviews, by creation
+     * time. Held-out reviews rated below 3 are left out of both sides, and users who liked
+     * none of their held-out items are not evaluated.
+     *
+     * @param reviews The reviews table.
+     * @param testFraction The share of the reviews of a user to hold out, rounded up.
+     * @return The split.
+     * @throws IllegalArgumentException if the fraction is not between 0 and 1.
+     * @throws IOException if the reviews table cannot be read.
+     */
+    public static Split split(Table reviews, double testFraction) throws IOException {
+        if (!(testFraction > 0 && testFraction < 1)) {
+            throw new IllegalArgumentException(
+                "Test fraction must be between 0 and 1: " + testFraction);
+        }
+        Map<String, List<Map<String, String>>> byUser = new TreeMap<>();
+        for (Map<String, String> review : reviews.getAllLines()) {
+            byUser.computeIfAbsent(review.get("user_id"), id -> new ArrayList<>()).add(review);
+        }
+        String[] headers = reviews.getHeaders();
+        List<String[]> training = new ArrayList<>();
+        Map<String, Set<String>> heldOut = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Map<String, String>>> user : byUser.entrySet()) {
+            List<Map<String, String>> lines = user.getValue();
+            lines.sort(Comparator.comparing((Map<String, String> line) -> line.get("created_at"))
+                .thenComparing(line -> Integer.parseInt(line.get("id"))));
+            int held = lines.size() < 2 ? 0 : (int) Math.ceil(lines.size() * testFraction);
+            for (Map<String, String> line : lines.subList(0, lines.size() - held)) {
+                training.add(withoutId(line, headers));
+            }
+            Set<String> liked = new HashSet<>();
+            for (Map<String, String> line : lines.subList(lines.size() - held, lines.size())) {
+                if (isLiked(line)) {
+                    liked.add(line.get("reviewable_type") + "|" + line.get("target_id"));
+                }
+            }
+            if (!liked.isEmpty()) {
+                heldOut.put(user.getKey(), liked);
+            }
+        }
+        return new Split(training, heldOut);
+    }
+
+    /**
+     * Creates a database in a new directory with the tables of a source directory and
+     * the training reviews of a split.
+     *
+     * @param source The directory of the source database.
+     * @param target The directory for the training database; it must be empty.
+     * @param split The split.
+     * @return The training database.
+     * @throws IOException if the tables cannot be copied or written.
+     */
+    public static Database createTrainingDatabase(Path source, Path target, Split split)
+        throws IOException {
+        Files.createDirectories(target);
+        try (DirectoryStream<Path> tables = Files.newDirectoryStream(source, "*.csv")) {
+            for (Path table : tables) {
+                if (!table.getFileName().toString().equals("reviews.csv")) {
+                    Files.copy(table, target.resolve(table.getFileName()));
+                }
+            }
+        }
+        Database training = new Database(target.toString());
+        training.getReviewsTable().replaceAllLines(split.training());
+        return training;
+    }
+
+    /**
+     * Evaluates an engine on every user with held-out items.
+     *
+     * @param name The name of the engine.
+     * @param engine The engine.
+     * @param split The split the engine was built on.
+     * @param k The number of recommendations per user.
+     * @return The result.
+     * @throws IOException if the engine fails.
+     */
+    public static Result evaluate(String name, CandidateGenerator engine, Split split, int k)
+        throws IOException {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        int users = split.heldOut().size();
+        long[] nanos = new long[users];
+        double precision = 0;
+        double recall = 0;
+        double ndcg = 0;
+        int user = 0;
+        for (Map.Entry<String, Set<String>> heldOut : split.heldOut().entrySet()) {
+            long start = System.nanoTime();
+            List<Reviewable> recommendations = engine.generate(heldOut.getKey(), k);
+            nanos[user++] = System.nanoTime() - start;
+
+            Set<String> relevant = heldOut.getValue();
+            int hits = 0;
+            double dcg = 0;
+            for (int rank = 0; rank < Math.min(k, recommendations.size()); rank++) {
+                Reviewable item = recommendations.get(rank);
+                if (relevant.contains(item.getType() + "|" + item.getId())) {
+                    hits++;
+                    dcg += 1 / log2(rank + 2);
+                }
+            }
+            precision += (double) hits / k;
+            recall += (double) hits / relevant.size();
+            ndcg += dcg / idealDcg(Math.min(k, relevant.size()));
+        }
+        // Exact percentiles: the buckets of a LatencyHistogram could hide a 2x regression.
+        Arrays.sort(nanos);
+        return new Result(name, users, mean(precision, users), mean(recall, users),
+            mean(ndcg, users), percentileMillis(nanos, 50), percentileMillis(nanos, 99),
+            peakHeapBytes());
+    }
+
+    /**
+     * Builds and evaluates engines one after another on the same split. Every engine
+     * answers one request before it is measured, so lazily built models do not count as
+     * request latency; they do count towards the peak heap.
+     *
+     * @param training The database with the training reviews of the split.
+     * @param split The split.
+     * @param engines The engines to compare, by name.
+     * @param k The number of recommendations per user.
+     * @return The result of every engine, in the given order.
+     * @throws IOException if an engine fails.
+     */
+    public static List<Result> compare(Database training, Split split,
+        Map<String, EngineFactory> engines, int k) throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, EngineFactory> factory : engines.entrySet()) {
+            resetPeakHeap();
+            CandidateGenerator engine = factory.getValue().create(training);
+            if (!split.heldOut().isEmpty()) {
+                engine.generate(split.heldOut().keySet().iterator().next(), k);
+            }
+            results.add(evaluate(factory.getKey(), engine, split, k));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the built-in engines: the comment recommender (TF-IDF), the rating
+     * recommender (user CF), the social and popularity generators and the blend of all.
+     *
+     * @return The engines, by name.
+     */
+    public static Map<String, EngineFactory> defaultEngines() {
+        Map<String, EngineFactory> engines = new LinkedHashMap<>();
+        engines.put("tf-idf", db -> {
+            CommentRecommenderService comments = preparedComments(db);
+            return (userId, n) -> comments.getRecommendations(userId);
+        });
+        engines.put("user-cf", db -> new RatingRecommenderService(db)::getRecommendations);
+        engines.put("social", SocialCandidates::new);
+        engines.put("popularity", PopularityCandidates::new);
+        engines.put("blender", db -> RecommendationBlender.createDefault(db,
+            preparedComments(db), new RatingRecommenderService(db))::getRecommendations);
+        return engines;
+    }
+
+    /**
+     * Evaluates the built-in engines on the app database and prints the results.
+     *
+     * @param args Optionally the database directory, k and the test fraction.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public static void main(String[] args) throws IOException {
+        Path source = Paths.get(args.length >= 1 ? args[0] : DEFAULT_DB_PATH);
+        int k = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_K;
+        double fraction = args.length >= 3 ? Double.parseDouble(args[2]) : DEFAULT_TEST_FRACTION;
+
+        Split split = split(new Database(source.toString()).getReviewsTable(), fraction);
+        Path target = Files.createTempDirectory("recommendation-evaluation");
+        try {
+            Database training = createTrainingDatabase(source, target, split);
+            System.out.printf("%-12s %6s %8s %8s %8s %9s %9s %10s%n", "engine", "users",
+                "P@" + k, "R@" + k, "NDCG@" + k, "p50 ms", "p99 ms", "heap MB");
+            for (Result result : compare(training, split, defaultEngines(), k)) {
+                System.out.printf("%-12s %6d %8.3f %8.3f %8.3f %9.2f %9.2f %10.1f%n",
+                    result.engine(), result.users(), result.precision(), result.recall(),
+                    result.ndcg(), result.p50Millis(), result.p99Millis(),
+                    result.peakHeapBytes() / (1024.0 * 1024.0));
+            }
+        } finally {
+            deleteRecursively(target);
+        }
+    }
+
+    private static CommentRecommenderService preparedComments(Database db) throws IOException {
+        CommentRecommenderService comments = new CommentRecommenderService(db);
+        comments.setAllReviewables();
+        comments.prepareModel();
+        return comments;
+    }
+
+    private static String[] withoutId(Map<String, String> line, String[] headers) {
+        String[] values = new String[headers.length - 1];
+        for (int i = 1; i < headers.length; i++) {
+            values[i - 1] = line.get(headers[i]);
+        }
+        return values;
+    }
+
+    private static boolean isLiked(Map<String, String> review) {
+        try {
+            return Integer.parseInt(review.get("rating")) >= LIKED_RATING;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static double idealDcg(int relevant) {
+        double dcg = 0;
+        for (int rank = 0; rank < relevant; rank++) {
+            dcg += 1 / log2(rank + 2);
+        }
+        return dcg;
+    }
+
+    private static double log2(int value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    private static double mean(double sum, int count) {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(sortedNanos.length * percentile / 100);
+        return sortedNanos[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    /**
+     * Collects garbage and resets the peak usage of the heap pools, so the next peak
+     * reflects the work done from now on.
+     */
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the peak usage of the heap pools since the last reset. The pools
+     * peak at different moments, so this is an upper bound of the peak heap use.
+     *
+     * @return The peak heap use in bytes.
+     */
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
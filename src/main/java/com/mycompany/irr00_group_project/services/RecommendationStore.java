@@ -0,0 +1,168 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+/**
+ * Precomputed recommendations of every user, stored in the recommendations table by the
+ * offline {@link RecommendationBatch} and indexed by user in memory, so the recommendations
+ * of a user are a map lookup followed by one batched catalog read.
+ * The index is built on first use and kept in sync with the table: appended lines are
+ * added directly, any other change triggers a rebuild.
+ */
+public class RecommendationStore {
+
+    /** The headers of the recommendations table. */
+    static final String[] HEADERS =
+        {"id", "user_id", "rank", "source", "reviewable_type", "target_id"};
+
+    /** The source of recommendations made by the CommentRecommenderService. */
+    public static final String COMMENT_SOURCE = "comment";
+    /** The source of recommendations made by the RatingRecommenderService. */
+    public static final String RATING_SOURCE = "rating";
+
+    private final Table table;
+    private final Database database;
+    private boolean loaded;
+    private final Map<String, List<Entry>> entriesByUser = new HashMap<>();
+
+    /**
+     * One recommended item.
+     *
+     * @param source The recommender that suggested the item.
+     * @param type The type of the item.
+     * @param id The id of the item.
+     */
+    public record Entry(String source, ReviewableType type, String id) {
+    }
+
+    /**
+     * Constructor for the RecommendationStore class.
+     *
+     * @param table The recommendations table.
+     * @param database The database to hydrate the recommended items from.
+     */
+    public RecommendationStore(Table table, Database database) {
+        this.table = table;
+        this.database = database;
+        table.addChangeListener(this::onTableChanged);
+    }
+
+    /**
+     * Returns the stored recommendations of a user, best first.
+     *
+     * @param userId The id of the user.
+     * @return The entries, empty if none were stored for the user.
+     * @throws IOException if the index has to be built and the table cannot be read.
+     */
+    public synchronized List<Entry> getEntries(String userId) throws IOException {
+        ensureLoaded();
+        List<Entry> entries = entriesByUser.get(userId);
+        return entries == null ? new ArrayList<>() : new ArrayList<>(entries);
+    }
+
+    /**
+     * Returns the stored recommendations of a user as Reviewables, best first.
+     *
+     * @param userId The id of the user.
+     * @return The recommended items that still exist, empty if none were stored.
+     * @throws IOException if the index has to be built and the table cannot be read.
+     */
+    public List<Reviewable> getRecommendations(String userId) throws IOException {
+        List<Entry> entries = getEntries(userId);
+        ReviewableType[] types = new ReviewableType[entries.size()];
+        String[] ids = new String[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            types[i] = entries.get(i).type();
+            ids[i] = entries.get(i).id();
+        }
+        return database.getReviewables(types, ids);
+    }
+
+    /**
+     * Replaces all stored recommendations in one write of the table.
+     *
+     * @param recommendations The entries of every user, best first.
+     * @throws IOException if the table cannot be written.
+     */
+    public void replaceAll(Map<String, List<Entry>> recommendations) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        for (Map.Entry<String, List<Entry>> user : recommendations.entrySet()) {
+            List<Entry> entries = user.getValue();
+            for (int rank = 0; rank < entries.size(); rank++) {
+                Entry entry = entries.get(rank);
+                lines.add(new String[]{user.getKey(), Integer.toString(rank), entry.source(),
+                    entry.type().name(), entry.id()});
+            }
+        }
+        table.replaceAllLines(lines);
+    }
+
+    /**
+     * Builds the index from the table if it is not loaded.
+     *
+     * @throws IOException if the table cannot be read.
+     */
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        entriesByUser.clear();
+        List<Map<String, String>> lines = new ArrayList<>();
+        for (Map<String, String> line : table.getAllLines()) {
+            if (toEntry(line) != null) {
+                lines.add(line);
+            }
+        }
+        // The batch writes every user in rank order; sorting keeps hand edits in order too.
+        lines.sort(Comparator.comparingInt(line -> Integer.parseInt(line.get("rank"))));
+        for (Map<String, String> line : lines) {
+            entriesByUser.computeIfAbsent(line.get("user_id"), id -> new ArrayList<>())
+                .add(toEntry(line));
+        }
+        loaded = true;
+    }
+
+    /**
+     * Keeps the index in sync with a change to the table.
+     *
+     * @param change The change made to the table.
+     */
+    private synchronized void onTableChanged(TableChange change) {
+        if (!loaded) {
+            return;
+        }
+        Entry entry = change.getKind() == TableChange.Kind.ADDED
+            ? toEntry(change.getNewLine()) : null;
+        if (entry == null) {
+            loaded = false;
+            return;
+        }
+        entriesByUser.computeIfAbsent(change.getNewLine().get("user_id"),
+            id -> new ArrayList<>()).add(entry);
+    }
+
+    /**
+     * Reads an entry from a line of the table.
+     *
+     * @param line The line.
+     * @return The entry, or null if the line is unreadable.
+     */
+    private static Entry toEntry(Map<String, String> line) {
+        try {
+            Integer.parseInt(line.get("rank"));
+            ReviewableType type = ReviewableType.valueOf(line.get("reviewable_type"));
+            return new Entry(line.get("source"), type, line.get("target_id"));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("Skipping unreadable recommendation line: " + line);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.mycompany.irr00_group_project.services;
+
+/**
+ * Splits review text into lower-case words in a single pass over its characters.
+ * A word is a run of ASCII letters, digits and underscores, the same as splitting the
+ * lower-cased text on "\\W+", but without a regex, a String[] or a String per word.
+ */
+public final class ReviewTokenizer {
+
+    // Per-thread scratch buffer the text is copied into and lower-cased in place.
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[256]);
+
+    private ReviewTokenizer() { }
+
+    /**
+     * Counts the words of a text by term id, adding new words to the dictionary.
+     *
+     * @param text The text to tokenise.
+     * @param dictionary The dictionary assigning term ids.
+     * @param counts The map the number of occurrences of every term id is added to.
+     * @return The number of words in the text.
+     */
+    public static int tokenize(String text, TermDictionary dictionary, IntCountMap counts) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        char[] chars = BUFFER.get();
+        if (chars.length < text.length()) {
+            chars = new char[Math.max(text.length(), chars.length * 2)];
+            BUFFER.set(chars);
+        }
+        text.getChars(0, text.length(), chars, 0);
+
+        int words = 0;
+        int wordStart = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = chars[i];
+            if (c >= 'A' && c <= 'Z') {
+                chars[i] = (char) (c + ('a' - 'A'));
+            } else if (!isWordChar(c)) {
+                if (wordStart >= 0) {
+                    counts.increment(dictionary.intern(chars, wordStart, i - wordStart));
+                    words++;
+                    wordStart = -1;
+                }
+                continue;
+            }
+            if (wordStart < 0) {
+                wordStart = i;
+            }
+        }
+        if (wordStart >= 0) {
+            counts.increment(dictionary.intern(chars, wordStart, text.length() - wordStart));
+            words++;
+        }
+        return words;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
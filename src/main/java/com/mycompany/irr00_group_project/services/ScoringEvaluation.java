@@ -0,0 +1,59 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mycompany.irr00_group_project.services.CommentRecommenderService.HitRate;
+
+/**
+ * Offline comparison of the scoring models of the comment recommender by leave-one-out
+ * hit rate on the reviews in the database.
+ */
+public final class ScoringEvaluation {
+
+    private static final int DEFAULT_TOP_N = 10;
+
+    private ScoringEvaluation() { }
+
+    /**
+     * Evaluates every scoring model on the same database.
+     *
+     * @param db The database with the reviewables and reviews.
+     * @param models The scoring models to compare.
+     * @param n The number of recommendations a hidden item has to be among.
+     * @return The hit rate of every model, keyed by its name, in the given order.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public static Map<String, HitRate> compare(Database db, List<ScoringModel> models, int n)
+        throws IOException {
+        CommentRecommenderService service = new CommentRecommenderService(db);
+        service.setAllReviewables();
+        Map<String, HitRate> results = new LinkedHashMap<>();
+        for (ScoringModel model : models) {
+            service.setScoringModel(model);
+            results.put(model.getName(), service.evaluateHitRate(n));
+        }
+        return results;
+    }
+
+    /**
+     * Prints the hit rate of TF-IDF and BM25 on the app database.
+     *
+     * @param args Optionally the BM25 parameters k1 and b.
+     * @throws IOException if there is an error accessing the database.
+     */
+    public static void main(String[] args) throws IOException {
+        ScoringModel bm25 = args.length >= 2
+            ? new Bm25Scoring(Double.parseDouble(args[0]), Double.parseDouble(args[1]))
+            : new Bm25Scoring();
+        Map<String, HitRate> results = compare(Database.getInstance(),
+            List.of(new TfIdfScoring(), bm25), DEFAULT_TOP_N);
+        for (Map.Entry<String, HitRate> result : results.entrySet()) {
+            System.out.printf("%-24s hit rate@%d = %.3f (%d/%d)%n", result.getKey(),
+                DEFAULT_TOP_N, result.getValue().rate(), result.getValue().hits(),
+                result.getValue().trials());
+        }
+    }
+}
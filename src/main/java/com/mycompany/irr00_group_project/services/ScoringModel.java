@@ -0,0 +1,35 @@
+package com.mycompany.irr00_group_project.services;
+
+/**
+ * Weighting of the terms of a reviewable for comment-based recommendations. The weight of
+ * a term is its term weight in the reviewable times its inverse document frequency, both
+ * computed from the raw term counts.
+ */
+public interface ScoringModel {
+
+    /**
+     * Returns the name of the model, for logs and evaluation reports.
+     *
+     * @return The name.
+     */
+    String getName();
+
+    /**
+     * Computes the inverse document frequency of a term.
+     *
+     * @param docFreq The number of reviewables containing the term, at least 1.
+     * @param totalDocs The number of reviewables.
+     * @return The IDF weight.
+     */
+    double idf(int docFreq, int totalDocs);
+
+    /**
+     * Computes the weight of a term within one reviewable.
+     *
+     * @param count The number of occurrences of the term in the reviews of the reviewable.
+     * @param length The total number of words in the reviews of the reviewable.
+     * @param averageLength The average number of words per reviewable.
+     * @return The term weight.
+     */
+    double termWeight(int count, int length, double averageLength);
+}
@@ -0,0 +1,127 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs search queries on a background thread so the UI thread never blocks on a search.
+ * Submitting a new query cancels the one still in flight, and only the result of the most
+ * recently submitted query is ever handed to the delivery executor.
+ *
+ * @param <T> The type of the search result.
+ */
+public class SearchExecutor<T> {
+
+    private final ExecutorService worker;
+    private final Executor deliveryExecutor;
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> inFlight;
+
+    /**
+     * Constructor for the SearchExecutor class.
+     *
+     * @param name The name of the background worker thread.
+     * @param deliveryExecutor The executor results are delivered on (e.g. Platform::runLater).
+     */
+    public SearchExecutor(String name, Executor deliveryExecutor) {
+        if (deliveryExecutor == null) {
+            throw new IllegalArgumentException("Delivery executor must not be null.");
+        }
+        this.deliveryExecutor = deliveryExecutor;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a query, cancelling the previous one if it has not finished yet.
+     * The result is only delivered if no newer query was submitted in the meantime.
+     *
+     * @param query The query to run on the background thread.
+     * @param onResult The callback receiving the result on the delivery executor.
+     */
+    public void submit(Callable<T> query, Consumer<T> onResult) {
+        submit(query, onResult, null);
+    }
+
+    /**
+     * Submits a query like {@link #submit(Callable, Consumer)}, telling the caller when
+     * the query fails, so it can undo what it did while waiting for the result.
+     *
+     * @param query The query to run on the background thread.
+     * @param onResult The callback receiving the result on the delivery executor.
+     * @param onFailure The callback receiving the failure on the delivery executor, or
+     *     null to only report it.
+     */
+    public synchronized void submit(Callable<T> query, Consumer<T> onResult,
+        Consumer<Exception> onFailure) {
+        long myGeneration = generation.incrementAndGet();
+        if (inFlight != null) {
+            inFlight.cancel(true);
+        }
+        inFlight = worker.submit(() -> {
+            try {
+                T result = query.call();
+                if (isStale(myGeneration)) {
+                    return;
+                }
+                deliveryExecutor.execute(() -> {
+                    // A newer query may have been submitted while this delivery was queued.
+                    if (!isStale(myGeneration)) {
+                        onResult.accept(result);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                if (isStale(myGeneration)) {
+                    return;
+                }
+                e.printStackTrace();
+                if (onFailure != null) {
+                    deliveryExecutor.execute(() -> {
+                        if (!isStale(myGeneration)) {
+                            onFailure.accept(e);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels the query in flight, if any, and suppresses any result not yet delivered.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Stops the background worker. Queries still running are interrupted.
+     */
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    /**
+     * Checks whether a query has been superseded by a newer one or was interrupted.
+     *
+     * @param queryGeneration The generation the query was submitted with.
+     * @return true if the result of the query must not be delivered.
+     */
+    private boolean isStale(long queryGeneration) {
+        return generation.get() != queryGeneration || Thread.currentThread().isInterrupted();
+    }
+}
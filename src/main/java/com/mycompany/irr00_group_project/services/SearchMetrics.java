@@ -0,0 +1,176 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the latency of searches per phase and keeps a log of slow queries.
+ * Searches are measured with a {@link SearchTrace}; finishing the trace records every
+ * phase in its histogram and logs the query if it took longer than the slow-query
+ * threshold. The threshold defaults to the "search.slowQueryMillis" system property.
+ */
+public class SearchMetrics {
+
+    /**
+     * The phases of a search.
+     */
+    public enum Phase {
+        // Normalising the raw query.
+        TOKENISE,
+        // Finding the matching hits, from the result cache or the tables.
+        INDEX_LOOKUP,
+        // Building full Reviewable objects for the hits that are shown.
+        HYDRATION,
+        // Handing the results to the JavaFX thread and showing them.
+        RENDER
+    }
+
+    /**
+     * A search that took longer than the slow-query threshold.
+     *
+     * @param query The query that was searched for.
+     * @param totalMillis The total time the search took.
+     * @param phaseMillis The time spent in each phase.
+     * @param candidates The number of hits found before hydration.
+     * @param results The number of results returned.
+     */
+    public record SlowQuery(String query, long totalMillis, Map<Phase, Long> phaseMillis,
+        int candidates, int results) { }
+
+    private static final long DEFAULT_SLOW_QUERY_MILLIS =
+        Long.getLong("search.slowQueryMillis", 200);
+    private static final int SLOW_QUERY_LOG_CAPACITY = 100;
+
+    private static SearchMetrics instance;
+
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private volatile long slowQueryThresholdMillis = DEFAULT_SLOW_QUERY_MILLIS;
+
+    /**
+     * Constructor for the SearchMetrics class.
+     */
+    public SearchMetrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Starts measuring a search.
+     *
+     * @param query The query being searched for.
+     * @return The trace to record the phases of the search in.
+     */
+    public SearchTrace startTrace(String query) {
+        return new SearchTrace(this, query);
+    }
+
+    /**
+     * Records a finished search. Called by {@link SearchTrace#finish()}.
+     *
+     * @param trace The finished trace.
+     */
+    void record(SearchTrace trace) {
+        Map<Phase, Long> phaseMillis = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            long nanos = trace.getPhaseNanos(phase);
+            if (nanos > 0) {
+                phases.get(phase).record(nanos);
+                phaseMillis.put(phase, nanos / 1_000_000);
+            }
+        }
+        total.record(trace.getTotalNanos());
+
+        long totalMillis = trace.getTotalNanos() / 1_000_000;
+        if (totalMillis >= slowQueryThresholdMillis) {
+            SlowQuery slowQuery = new SlowQuery(trace.getQuery(), totalMillis, phaseMillis,
+                trace.getCandidates(), trace.getResults());
+            System.err.println("Slow search: " + slowQuery);
+            synchronized (slowQueries) {
+                if (slowQueries.size() == SLOW_QUERY_LOG_CAPACITY) {
+                    slowQueries.removeFirst();
+                }
+                slowQueries.addLast(slowQuery);
+            }
+        }
+    }
+
+    /**
+     * Returns the latency histogram of a phase.
+     *
+     * @param phase The phase of the search.
+     * @return The histogram of the phase.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return phases.get(phase);
+    }
+
+    /**
+     * Returns the latency histogram of whole searches.
+     *
+     * @return The histogram of the total search time.
+     */
+    public LatencyHistogram getTotalHistogram() {
+        return total;
+    }
+
+    /**
+     * Returns the most recent slow queries, oldest first.
+     *
+     * @return A copy of the slow-query log.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    /**
+     * Sets the time after which a search is logged as slow.
+     *
+     * @param thresholdMillis The threshold in milliseconds.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public void setSlowQueryThresholdMillis(long thresholdMillis) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        this.slowQueryThresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Returns a summary of the histograms, one line per phase.
+     *
+     * @return The summary.
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder("TOTAL " + total);
+        for (Phase phase : Phase.values()) {
+            summary.append(System.lineSeparator()).append(phase).append(' ')
+                .append(phases.get(phase));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Returns the single instance of SearchMetrics.
+     *
+     * @return The SearchMetrics instance.
+     */
+    public static synchronized SearchMetrics getInstance() {
+        if (instance == null) {
+            instance = new SearchMetrics();
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,169 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+/**
+ * Bounded LRU cache of search results keyed by normalised query and reviewable type.
+ * When a query misses, the cached result of its longest cached prefix is narrowed down
+ * instead, so typing "radio" after "radi" never needs a fresh scan.
+ *
+ * @param <T> The type of the cached search results.
+ */
+public class SearchResultCache<T> {
+
+    /**
+     * Key of a cache entry.
+     *
+     * @param type The reviewable type that was searched.
+     * @param query The normalised query.
+     */
+    private record CacheKey(ReviewableType type, String query) { }
+
+    private final LinkedHashMap<CacheKey, List<T>> entries;
+    private final BiFunction<List<T>, String, List<T>> refiner;
+
+    private long generation;
+    private long hits;
+    private long refinements;
+    private long misses;
+
+    /**
+     * Constructor for the SearchResultCache class.
+     *
+     * @param capacity The maximum number of cached queries.
+     * @param refiner Narrows the cached results of a prefix down to a longer query.
+     */
+    public SearchResultCache(int capacity, BiFunction<List<T>, String, List<T>> refiner) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        if (refiner == null) {
+            throw new IllegalArgumentException("Refiner must not be null.");
+        }
+        this.refiner = refiner;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, List<T>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Normalises a query so equivalent queries share a cache entry.
+     *
+     * @param query The raw query.
+     * @return The trimmed, lower-cased query, or an empty string for null.
+     */
+    public static String normalise(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the cached results for a query, narrowing the results of a cached prefix
+     * if the query itself is not cached.
+     *
+     * @param type The reviewable type searched for.
+     * @param query The normalised query.
+     * @return The cached results, or null if neither the query nor a prefix is cached.
+     */
+    public synchronized List<T> get(ReviewableType type, String query) {
+        List<T> cached = entries.get(new CacheKey(type, query));
+        if (cached != null) {
+            hits++;
+            return new ArrayList<>(cached);
+        }
+        for (int length = query.length() - 1; length > 0; length--) {
+            List<T> prefixResults = entries.get(new CacheKey(type, query.substring(0, length)));
+            if (prefixResults != null) {
+                List<T> narrowed = new ArrayList<>(refiner.apply(prefixResults, query));
+                refinements++;
+                entries.put(new CacheKey(type, query), narrowed);
+                return new ArrayList<>(narrowed);
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores the results of a query.
+     *
+     * @param type The reviewable type searched for.
+     * @param query The normalised query.
+     * @param results The results of the query.
+     */
+    public synchronized void put(ReviewableType type, String query, List<T> results) {
+        put(type, query, results, generation);
+    }
+
+    /**
+     * Stores the results of a query, unless the cache was invalidated since the search
+     * started, in which case the results may predate the change and are dropped.
+     *
+     * @param type The reviewable type searched for.
+     * @param query The normalised query.
+     * @param results The results of the query.
+     * @param searchGeneration The {@link #getGeneration()} taken before the search ran.
+     * @return true if the results were stored.
+     */
+    public synchronized boolean put(ReviewableType type, String query, List<T> results,
+        long searchGeneration) {
+        if (searchGeneration != generation) {
+            return false;
+        }
+        entries.put(new CacheKey(type, query), new ArrayList<>(results));
+        return true;
+    }
+
+    /**
+     * Drops every cached result, e.g. after the catalog has changed.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of invalidations so far. Take it before running a search and
+     * pass it to {@link #put(ReviewableType, String, List, long)}.
+     *
+     * @return The current generation.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getRefinements() {
+        return refinements;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache, including refined prefixes.
+     *
+     * @return The hit rate between 0 and 1, or 0 if there were no lookups yet.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + refinements + misses;
+        return lookups == 0 ? 0 : (double) (hits + refinements) / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
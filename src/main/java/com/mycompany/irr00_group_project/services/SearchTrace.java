@@ -0,0 +1,103 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.services.SearchMetrics.Phase;
+
+/**
+ * Measures the phases of a single search.
+ * A trace is used by one thread at a time; it may be handed to another thread together
+ * with the results (e.g. to time the render hand-off on the JavaFX thread).
+ */
+public class SearchTrace {
+
+    private final SearchMetrics metrics;
+    private final String query;
+    private final long startNanos = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long handOffNanos;
+    private long totalNanos;
+    private int candidates;
+    private int results;
+    private boolean finished;
+
+    /**
+     * Constructor for the SearchTrace class.
+     *
+     * @param metrics The metrics the trace is recorded in when finished.
+     * @param query The query being searched for.
+     */
+    SearchTrace(SearchMetrics metrics, String query) {
+        this.metrics = metrics;
+        this.query = query;
+    }
+
+    /**
+     * Adds the time elapsed since a phase started to that phase.
+     *
+     * @param phase The phase that just ended.
+     * @param phaseStartNanos The System.nanoTime() at which the phase started.
+     */
+    public void endPhase(Phase phase, long phaseStartNanos) {
+        phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStartNanos;
+    }
+
+    /**
+     * Adds to the number of hits found before hydration.
+     *
+     * @param count The number of hits found.
+     */
+    public void addCandidates(int count) {
+        candidates += count;
+    }
+
+    /**
+     * Adds to the number of results returned.
+     *
+     * @param count The number of results.
+     */
+    public void addResults(int count) {
+        results += count;
+    }
+
+    /**
+     * Marks the moment the results are handed to the thread that shows them.
+     * The time until {@link #finish()} is recorded as the render phase.
+     */
+    public void markHandOff() {
+        handOffNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the search and records it in the metrics. Later calls have no effect.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (handOffNanos != 0) {
+            endPhase(Phase.RENDER, handOffNanos);
+        }
+        totalNanos = System.nanoTime() - startNanos;
+        metrics.record(this);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public int getResults() {
+        return results;
+    }
+}
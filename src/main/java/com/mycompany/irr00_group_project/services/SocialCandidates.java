@@ -0,0 +1,52 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+
+/**
+ * Candidate generator suggesting the items liked by the users a user follows, the items
+ * liked by more of them first, leaving out the items the user reviewed. The follows come
+ * from the in-memory social graph and the likes from the in-memory review index, so a
+ * request reads no file.
+ */
+public class SocialCandidates implements CandidateGenerator {
+
+    private final Database database;
+
+    /**
+     * Constructor for the SocialCandidates class.
+     *
+     * @param database The database with the follows and reviews.
+     */
+    public SocialCandidates(Database database) {
+        if (database == null) {
+            throw new IllegalArgumentException("Database must not be null.");
+        }
+        this.database = database;
+    }
+
+    @Override
+    public List<Reviewable> generate(String userId, int n) throws IOException {
+        int follower;
+        try {
+            follower = Integer.parseInt(userId);
+        } catch (NumberFormatException e) {
+            return new ArrayList<>();
+        }
+        // The graph holds every followed user once, however often the follow is stored.
+        UserReviewIndex reviews = database.getUserReviewIndex();
+        LikeCounts likes = new LikeCounts();
+        for (int followed : database.getSocialGraph().followees(follower)) {
+            for (UserReviewIndex.Rating rating : reviews.getRatings(Integer.toString(followed))) {
+                likes.add(rating);
+            }
+        }
+        for (UserReviewIndex.Rating rating : reviews.getRatings(userId)) {
+            likes.exclude(rating);
+        }
+        return likes.top(n, database);
+    }
+}
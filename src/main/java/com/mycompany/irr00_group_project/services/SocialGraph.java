@@ -0,0 +1,244 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory follow graph over the follows table, answering "does A follow B" in constant
+ * time. Every edge is packed into one long key in an open-addressing hash table, so a
+ * lookup allocates nothing and touches no file. The users every user follows are kept as
+ * well, in the order they were followed.
+ * The graph is built on first use and kept in sync with the follows table: follows and
+ * unfollows update the edges directly. Each edge counts its lines, so a duplicated follow
+ * line does not drop the edge when only one copy is deleted.
+ */
+public class SocialGraph {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long EMPTY = -1L;
+
+    private final Table follows;
+    private boolean loaded;
+
+    // Open-addressing table of edge keys with the number of lines of each edge.
+    private long[] keys = newKeys(INITIAL_CAPACITY);
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+    // Follower to the users it follows, in the order of the follows.
+    private final Map<Integer, Set<Integer>> followees = new HashMap<>();
+
+    /**
+     * Constructor for the SocialGraph class.
+     *
+     * @param follows The follows table to index.
+     */
+    public SocialGraph(Table follows) {
+        this.follows = follows;
+        follows.addChangeListener(this::onFollowsChanged);
+    }
+
+    /**
+     * Checks whether a user follows another user.
+     *
+     * @param followerId The id of the follower.
+     * @param followedId The id of the user who may be followed.
+     * @return true if the follower follows the other user.
+     * @throws IOException if the graph has to be built and the follows table cannot be read.
+     */
+    public synchronized boolean follows(int followerId, int followedId) throws IOException {
+        ensureLoaded();
+        if (followerId < 0 || followedId < 0) {
+            return false;
+        }
+        return keys[find(edge(followerId, followedId))] != EMPTY;
+    }
+
+    /**
+     * Returns the users a user follows, in the order they were followed.
+     *
+     * @param followerId The id of the follower.
+     * @return The ids of the followed users, each once.
+     * @throws IOException if the graph has to be built and the follows table cannot be read.
+     */
+    public synchronized int[] followees(int followerId) throws IOException {
+        ensureLoaded();
+        Set<Integer> followed = followees.get(followerId);
+        if (followed == null) {
+            return new int[0];
+        }
+        return followed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the number of distinct follow edges.
+     *
+     * @return The number of edges.
+     * @throws IOException if the graph has to be built and the follows table cannot be read.
+     */
+    public synchronized int getEdgeCount() throws IOException {
+        ensureLoaded();
+        return size;
+    }
+
+    /**
+     * Builds the graph from the follows table if it is not loaded.
+     *
+     * @throws IOException if the follows table cannot be read.
+     */
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        keys = newKeys(INITIAL_CAPACITY);
+        counts = new int[INITIAL_CAPACITY];
+        size = 0;
+        followees.clear();
+        for (Map<String, String> line : follows.getAllLines()) {
+            update(line, 1);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Keeps the graph in sync with a change to the follows table.
+     *
+     * @param change The change made to the follows table.
+     */
+    private synchronized void onFollowsChanged(TableChange change) {
+        if (!loaded) {
+            return;
+        }
+        if (change.getKind() == TableChange.Kind.REPLACED) {
+            loaded = false;
+            return;
+        }
+        // Resequencing renumbers the lines but keeps every edge.
+        if (change.getOldLine() != null) {
+            update(change.getOldLine(), -1);
+        }
+        if (change.getNewLine() != null) {
+            update(change.getNewLine(), 1);
+        }
+    }
+
+    /**
+     * Adds or removes one line of an edge.
+     *
+     * @param line The line of the follows table.
+     * @param delta 1 to add the line, -1 to remove it.
+     */
+    private void update(Map<String, String> line, int delta) {
+        long key;
+        try {
+            int followerId = Integer.parseInt(line.get("follower_id"));
+            int followedId = Integer.parseInt(line.get("followed_id"));
+            if (followerId < 0 || followedId < 0) {
+                return;
+            }
+            key = edge(followerId, followedId);
+        } catch (NumberFormatException e) {
+            System.err.println("Skipping unreadable follow line: " + line);
+            return;
+        }
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            if (delta > 0) {
+                insert(slot, key);
+                followees.computeIfAbsent((int) (key >>> 32), id -> new LinkedHashSet<>())
+                    .add((int) key);
+            }
+        } else if (counts[slot] + delta > 0) {
+            counts[slot] += delta;
+        } else {
+            remove(slot);
+            Set<Integer> followed = followees.get((int) (key >>> 32));
+            followed.remove((int) key);
+            if (followed.isEmpty()) {
+                followees.remove((int) (key >>> 32));
+            }
+        }
+    }
+
+    private void insert(int slot, long key) {
+        keys[slot] = key;
+        counts[slot] = 1;
+        size++;
+        // Keep the table at most half full so probe sequences stay short.
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the key in a slot, moving later keys of its probe sequence back so that
+     * lookups never stop early at the freed slot.
+     *
+     * @param slot The slot to free.
+     */
+    private void remove(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // Move the key back unless its home lies cyclically in (free, next].
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                counts[free] = counts[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        counts[free] = 0;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = newKeys(capacity);
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it would be inserted.
+     *
+     * @param key The edge key.
+     * @return The slot.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long edge(int followerId, int followedId) {
+        return ((long) followerId << 32) | followedId;
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] newKeys = new long[capacity];
+        Arrays.fill(newKeys, EMPTY);
+        return newKeys;
+    }
+}
@@ -0,0 +1,255 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable sparse vector of term weights, stored as ascending term ids with a
+ * weight per id. Only the terms that occur in a document take up space, and the dot
+ * product merges the two id lists instead of looping over the whole vocabulary.
+ */
+public final class SparseVector {
+
+    public static final SparseVector EMPTY = new SparseVector(new int[0], new float[0], 0);
+
+    private final int[] termIds;
+    private final float[] weights;
+    private final double norm;
+
+    /**
+     * Constructor for the SparseVector class. Takes ownership of the arrays.
+     *
+     * @param termIds The term ids in strictly ascending order.
+     * @param weights The weight of each term.
+     * @param norm The Euclidean norm of the weights.
+     */
+    private SparseVector(int[] termIds, float[] weights, double norm) {
+        this.termIds = termIds;
+        this.weights = weights;
+        this.norm = norm;
+    }
+
+    /**
+     * Creates a vector from term ids and weights in any order. Zero weights are dropped.
+     *
+     * @param termIds The term ids, each at most once.
+     * @param weights The weight of each term.
+     * @return The sparse vector.
+     * @throws IllegalArgumentException if the arrays differ in length or an id repeats.
+     */
+    public static SparseVector of(int[] termIds, float[] weights) {
+        if (termIds.length != weights.length) {
+            throw new IllegalArgumentException("Term ids and weights must have the same length.");
+        }
+        // Sort positions by term id without boxing: id in the high bits, position in the low.
+        long[] order = new long[termIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ((long) termIds[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] sortedIds = new int[termIds.length];
+        float[] sortedWeights = new float[termIds.length];
+        int size = 0;
+        for (int i = 0; i < order.length; i++) {
+            int index = (int) order[i];
+            if (i > 0 && (int) (order[i - 1] >> 32) == termIds[index]) {
+                throw new IllegalArgumentException("Duplicate term id: " + termIds[index]);
+            }
+            if (weights[index] != 0) {
+                sortedIds[size] = termIds[index];
+                sortedWeights[size++] = weights[index];
+            }
+        }
+        return trimmed(sortedIds, sortedWeights, size);
+    }
+
+    /**
+     * Returns the number of terms with a non-zero weight.
+     *
+     * @return The number of stored terms.
+     */
+    public int size() {
+        return termIds.length;
+    }
+
+    public boolean isEmpty() {
+        return termIds.length == 0;
+    }
+
+    /**
+     * Returns the term id at a position.
+     *
+     * @param position The position, between 0 and size() - 1.
+     * @return The term id.
+     */
+    public int termId(int position) {
+        return termIds[position];
+    }
+
+    /**
+     * Returns the weight at a position.
+     *
+     * @param position The position, between 0 and size() - 1.
+     * @return The weight of the term at that position.
+     */
+    public float weight(int position) {
+        return weights[position];
+    }
+
+    public double norm() {
+        return norm;
+    }
+
+    /**
+     * Computes the dot product with another vector by merging the term ids.
+     *
+     * @param other The other vector.
+     * @return The dot product.
+     */
+    public double dot(SparseVector other) {
+        double dot = 0;
+        int i = 0;
+        int j = 0;
+        while (i < termIds.length && j < other.termIds.length) {
+            int a = termIds[i];
+            int b = other.termIds[j];
+            if (a == b) {
+                dot += (double) weights[i++] * other.weights[j++];
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dot;
+    }
+
+    /**
+     * Computes the dot product with a dense vector, e.g. a query scattered into an array
+     * indexed by term id. Terms beyond the end of the array count as zero.
+     *
+     * @param dense The dense vector.
+     * @return The dot product.
+     */
+    public float dot(float[] dense) {
+        float dot = 0;
+        for (int i = 0; i < termIds.length; i++) {
+            if (termIds[i] < dense.length) {
+                dot += weights[i] * dense[termIds[i]];
+            }
+        }
+        return dot;
+    }
+
+    /**
+     * Returns this vector scaled to length 1, so the dot product of two normalised
+     * vectors is their cosine.
+     *
+     * @return The unit vector, or EMPTY if this vector is zero.
+     */
+    public SparseVector normalize() {
+        if (norm == 0) {
+            return EMPTY;
+        }
+        return norm == 1 ? this : scale((float) (1 / norm));
+    }
+
+    /**
+     * Computes the cosine of the angle between this vector and another one.
+     *
+     * @param other The other vector.
+     * @return The cosine between -1 and 1, or NaN if either vector is zero.
+     */
+    public double cosine(SparseVector other) {
+        if (norm == 0 || other.norm == 0) {
+            return Double.NaN;
+        }
+        return Math.max(-1.0, Math.min(1.0, dot(other) / (norm * other.norm)));
+    }
+
+    /**
+     * Computes the average of vectors by merging them pairwise.
+     *
+     * @param vectors The vectors to average.
+     * @return The average, or EMPTY if there are no vectors.
+     */
+    public static SparseVector average(List<SparseVector> vectors) {
+        if (vectors.isEmpty()) {
+            return EMPTY;
+        }
+        SparseVector sum = EMPTY;
+        for (SparseVector vector : vectors) {
+            sum = sum.plus(vector);
+        }
+        return sum.scale(1.0f / vectors.size());
+    }
+
+    /**
+     * Adds another vector to this one.
+     *
+     * @param other The vector to add.
+     * @return The sum of both vectors.
+     */
+    public SparseVector plus(SparseVector other) {
+        int[] ids = new int[termIds.length + other.termIds.length];
+        float[] sums = new float[ids.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < termIds.length || j < other.termIds.length) {
+            int a = i < termIds.length ? termIds[i] : Integer.MAX_VALUE;
+            int b = j < other.termIds.length ? other.termIds[j] : Integer.MAX_VALUE;
+            ids[size] = Math.min(a, b);
+            sums[size] = (a <= b ? weights[i++] : 0) + (b <= a ? other.weights[j++] : 0);
+            if (sums[size] != 0) {
+                size++;
+            }
+        }
+        return trimmed(ids, sums, size);
+    }
+
+    /**
+     * Multiplies every weight by a factor.
+     *
+     * @param factor The factor to multiply by.
+     * @return The scaled vector.
+     */
+    public SparseVector scale(float factor) {
+        float[] scaled = new float[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            scaled[i] = weights[i] * factor;
+        }
+        return trimmed(termIds.clone(), scaled, scaled.length);
+    }
+
+    /**
+     * Creates a vector from the first size entries of sorted arrays.
+     *
+     * @param ids The ascending term ids.
+     * @param values The weights.
+     * @param size The number of entries to keep.
+     * @return The vector.
+     */
+    private static SparseVector trimmed(int[] ids, float[] values, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        int[] keptIds = size == ids.length ? ids : Arrays.copyOf(ids, size);
+        float[] keptWeights = size == values.length ? values : Arrays.copyOf(values, size);
+        double squares = 0;
+        for (float weight : keptWeights) {
+            squares += (double) weight * weight;
+        }
+        return new SparseVector(keptIds, keptWeights, Math.sqrt(squares));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < termIds.length; i++) {
+            text.append(i == 0 ? "" : ", ").append(termIds[i]).append('=').append(weights[i]);
+        }
+        return text.append('}').toString();
+    }
+}
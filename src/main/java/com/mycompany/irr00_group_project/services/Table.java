@@ -10,6 +10,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Represents a table with headers and a file path.
@@ -19,6 +21,7 @@ public class Table {
     private String[] headers;
     private String path;
     private int id;
+    private final List<Consumer<TableChange>> changeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs a Table with the specified headers and file path.
@@ -71,13 +74,17 @@ public class Table {
             throw new IllegalArgumentException("Line must match the number of headers");
         }
         line = removeCommas(line);
+        String newLine;
         try (FileWriter writer = new FileWriter(path, true)) {
             // Build the line with ID and data
-            String newLine = String.valueOf(id++) + "," + String.join(",", line);
+            newLine = String.valueOf(id++) + "," + String.join(",", line);
             writer.append(newLine).append("\n");
         } catch (IOException e) {
             throw e;
         }
+        String[] values = newLine.split(",", -1);
+        notifyChanged(new TableChange(
+            TableChange.Kind.ADDED, values[0], null, parseLineToMap(values)));
     }
 
     /**
@@ -253,6 +260,7 @@ public class Table {
         }
         File inputFile = new File(path);
         File tempFile = new File(path.replace(".csv", "_tmp.csv"));
+        Map<String, String> oldLine = null;
 
         try (
             BufferedReader reader = new BufferedReader(new FileReader(inputFile));
@@ -271,6 +279,7 @@ public class Table {
                 }
                 String[] values = line.split(",", -1);
                 if (values.length > 0 && values[0].equals(id)) {
+                    oldLine = parseLineToMap(values);
                     newLine = removeCommas(newLine);
                     writer.write(id + ",");
                     writer.write(String.join(",", newLine));
@@ -286,6 +295,11 @@ public class Table {
         if (!inputFile.delete() || !tempFile.renameTo(inputFile)) {
             throw new IOException("Failed to replace the original file with the updated file.");
         }
+        if (oldLine != null) {
+            String[] values = (id + "," + String.join(",", newLine)).split(",", -1);
+            notifyChanged(new TableChange(
+                TableChange.Kind.CHANGED, id, oldLine, parseLineToMap(values)));
+        }
     }    
     
     /**
@@ -316,6 +330,7 @@ public class Table {
 
         File inputFile = new File(path);
         File tempFile = new File(path.replace(".csv", "_tmp.csv"));
+        Map<String, String> oldLine = null;
 
         try (
             BufferedReader reader = new BufferedReader(new FileReader(inputFile));
@@ -338,6 +353,8 @@ public class Table {
                     // Write original line if ID does not match
                     writer.write(line);
                     writer.newLine();
+                } else if (oldLine == null) {
+                    oldLine = parseLineToMap(values);
                 }
             }
         }
@@ -348,12 +365,50 @@ public class Table {
 
         // Resequence all IDs to remove gaps and ensure sequential numbering
         resequenceIds();
+        notifyChanged(new TableChange(TableChange.Kind.DELETED, id, oldLine, null));
     }
 
     public String[] getHeaders() {
         return headers;
     }
 
+    /**
+     * Registers a listener that is notified after every change to the table.
+     *
+     * @param listener the listener to notify, must not be null
+     * @throws IllegalArgumentException if the listener is null
+     */
+    public void addChangeListener(Runnable listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        changeListeners.add(change -> listener.run());
+    }
+
+    /**
+     * Registers a listener that receives a description of every change to the table.
+     *
+     * @param listener the listener to notify, must not be null
+     * @throws IllegalArgumentException if the listener is null
+     */
+    public void addChangeListener(Consumer<TableChange> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Notifies all registered listeners of a change to the table.
+     *
+     * @param change the change that was made
+     */
+    private void notifyChanged(TableChange change) {
+        for (Consumer<TableChange> listener : changeListeners) {
+            listener.accept(change);
+        }
+    }
+
     /**
      * Returns the next available ID for the table.
      * This represents the number of data lines (excluding header) in the table.
@@ -469,6 +524,39 @@ public class Table {
         }
     }
 
+    /**
+     * Replaces every line of the table in one write, numbering the new lines from 0.
+     * The lines are written to a temporary file that then replaces the table, so readers
+     * never see a half-written table. Listeners are notified once with REPLACED.
+     *
+     * @param lines the new lines, each matching the number of headers without the id
+     * @throws IllegalArgumentException if a line is null or does not match the headers
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public void replaceAllLines(List<String[]> lines) throws IllegalArgumentException,
+        IOException {
+        for (String[] line : lines) {
+            if (line == null || line.length != headers.length - 1) {
+                throw new IllegalArgumentException("Line must match the number of headers");
+            }
+        }
+        File inputFile = new File(path);
+        File tempFile = new File(path.replace(".csv", "_replace_tmp.csv"));
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
+            writer.write(String.join(",", headers));
+            writer.newLine();
+            for (int i = 0; i < lines.size(); i++) {
+                writer.write(i + "," + String.join(",", removeCommas(lines.get(i).clone())));
+                writer.newLine();
+            }
+        }
+        if (!inputFile.delete() || !tempFile.renameTo(inputFile)) {
+            throw new IOException("Failed to replace the original file with the new lines.");
+        }
+        this.id = lines.size();
+        notifyChanged(new TableChange(TableChange.Kind.REPLACED, null, null, null));
+    }
+
     /**
      * Manually resequences all IDs in the table to remove gaps.
      * This can be called to clean up ID sequences in existing files.
@@ -477,6 +565,7 @@ public class Table {
      */
     public void resequenceTable() throws IOException {
         resequenceIds();
+        notifyChanged(new TableChange(TableChange.Kind.RESEQUENCED, null, null, null));
     }
 
 }
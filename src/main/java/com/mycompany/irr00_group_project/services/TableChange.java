@@ -0,0 +1,60 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.Map;
+
+/**
+ * Describes a single change made to a Table, passed to the table's change listeners.
+ */
+public class TableChange {
+
+    /**
+     * The kind of change made to the table.
+     */
+    public enum Kind {
+        ADDED,
+        CHANGED,
+        /** A line was deleted; the remaining ids were renumbered afterwards. */
+        DELETED,
+        /** All ids were renumbered; listeners holding ids must reload the table. */
+        RESEQUENCED,
+        /** All lines were replaced; listeners must reload the table. */
+        REPLACED
+    }
+
+    private final Kind kind;
+    private final String id;
+    private final Map<String, String> oldLine;
+    private final Map<String, String> newLine;
+
+    /**
+     * Constructor for the TableChange class.
+     *
+     * @param kind    The kind of change.
+     * @param id      The id of the changed line, or null for RESEQUENCED and REPLACED.
+     * @param oldLine The line before the change, or null if it was added or not found.
+     * @param newLine The line after the change, or null if it was deleted.
+     */
+    public TableChange(Kind kind, String id, Map<String, String> oldLine,
+        Map<String, String> newLine) {
+        this.kind = kind;
+        this.id = id;
+        this.oldLine = oldLine;
+        this.newLine = newLine;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Map<String, String> getOldLine() {
+        return oldLine;
+    }
+
+    public Map<String, String> getNewLine() {
+        return newLine;
+    }
+}
@@ -0,0 +1,144 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe dictionary assigning every word a dense int term id, starting at 0.
+ * Words are looked up straight from a slice of a char array, so tokenising a review
+ * only creates a String the first time a word is seen. Ids are never reassigned.
+ */
+public final class TermDictionary {
+
+    private static final int NO_ID = -1;
+
+    private String[] words = new String[64];
+    private int[] slots = newSlots(128); // Open addressing table of term ids.
+    private int size;
+
+    /**
+     * Returns the id of a word given as a slice of a char array, adding it if it is new.
+     *
+     * @param chars The characters holding the word.
+     * @param start The index of the first character of the word.
+     * @param length The number of characters in the word.
+     * @return The term id of the word.
+     */
+    public synchronized int intern(char[] chars, int start, int length) {
+        int slot = findSlot(chars, start, length);
+        if (slots[slot] != NO_ID) {
+            return slots[slot];
+        }
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+        }
+        words[size] = new String(chars, start, length);
+        slots[slot] = size;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Returns the id of a word, adding it if it is new.
+     *
+     * @param word The word.
+     * @return The term id of the word.
+     */
+    public int intern(String word) {
+        return intern(word.toCharArray(), 0, word.length());
+    }
+
+    /**
+     * Returns the id of a word without adding it.
+     *
+     * @param word The word.
+     * @return The term id of the word, or -1 if the word is unknown.
+     */
+    public synchronized int idOf(String word) {
+        return slots[findSlot(word.toCharArray(), 0, word.length())];
+    }
+
+    /**
+     * Returns the word with a term id.
+     *
+     * @param termId The term id.
+     * @return The word.
+     * @throws IllegalArgumentException if no word has the id.
+     */
+    public synchronized String word(int termId) {
+        if (termId < 0 || termId >= size) {
+            throw new IllegalArgumentException("Unknown term id: " + termId);
+        }
+        return words[termId];
+    }
+
+    /**
+     * Returns the number of words, which is also the next term id.
+     *
+     * @return The number of words in the dictionary.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot holding a word, or the empty slot where it belongs.
+     *
+     * @param chars The characters holding the word.
+     * @param start The index of the first character.
+     * @param length The number of characters.
+     * @return The slot index.
+     */
+    private int findSlot(char[] chars, int start, int length) {
+        int mask = slots.length - 1;
+        int slot = hash(chars, start, length) & mask;
+        while (slots[slot] != NO_ID && !matches(words[slots[slot]], chars, start, length)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the slot table and re-inserts every word.
+     */
+    private void rehash() {
+        slots = newSlots(slots.length * 2);
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            char[] chars = words[id].toCharArray();
+            int slot = hash(chars, 0, chars.length) & mask;
+            while (slots[slot] != NO_ID) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] empty = new int[capacity];
+        Arrays.fill(empty, NO_ID);
+        return empty;
+    }
+
+    private static int hash(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String word, char[] chars, int start, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,204 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Stores the TF-IDF model of the comment recommender in a compact binary file, so the
+ * app does not have to scan every review at startup.
+ * The file starts with a format version and a fingerprint (size and modification time)
+ * of the reviews file it was built from; a file with another version or fingerprint is
+ * ignored. Saves requested while one is pending are coalesced into one write.
+ */
+public class TfIdfModelStore {
+
+    private static final int MAGIC = 0x54464944; // "TFID"
+    private static final int FORMAT_VERSION = 1;
+    private static final long SAVE_DELAY_MILLIS = 2_000;
+
+    /**
+     * Term counts of the reviews of one reviewable.
+     *
+     * @param total The total number of words.
+     * @param termIds The term ids occurring in the reviews.
+     * @param counts The number of occurrences of each term id.
+     */
+    public record ItemCounts(int total, int[] termIds, int[] counts) { }
+
+    /**
+     * The stored model.
+     *
+     * @param totalDocs The number of reviewables the model was built over.
+     * @param words The vocabulary, indexed by term id.
+     * @param idf The IDF weight of each term id.
+     * @param items The term counts of every reviewable, keyed by "id::TYPE".
+     */
+    public record StoredModel(int totalDocs, List<String> words, double[] idf,
+        Map<String, ItemCounts> items) { }
+
+    private final Path modelFile;
+    private final Path sourceFile;
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    // Runs the delayed saves; its thread is only started by the first save.
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "tfidf-model-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    /**
+     * Constructor for the TfIdfModelStore class.
+     *
+     * @param modelFile The binary file holding the model.
+     * @param sourceFile The reviews file the model is built from.
+     */
+    public TfIdfModelStore(Path modelFile, Path sourceFile) {
+        this.modelFile = modelFile;
+        this.sourceFile = sourceFile;
+    }
+
+    /**
+     * Loads the stored model if it matches the current reviews file.
+     *
+     * @return The model, or null if there is none or it is outdated or unreadable.
+     */
+    public synchronized StoredModel load() {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(modelFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                || in.readLong() != sourceFingerprint()) {
+                return null;
+            }
+            int totalDocs = in.readInt();
+            int vocabularySize = in.readInt();
+            List<String> words = new ArrayList<>(vocabularySize);
+            double[] idf = new double[vocabularySize];
+            for (int termId = 0; termId < vocabularySize; termId++) {
+                words.add(in.readUTF());
+                idf[termId] = in.readDouble();
+            }
+            int itemCount = in.readInt();
+            Map<String, ItemCounts> items = new HashMap<>();
+            for (int i = 0; i < itemCount; i++) {
+                String key = in.readUTF();
+                int total = in.readInt();
+                int[] termIds = new int[in.readInt()];
+                int[] counts = new int[termIds.length];
+                for (int j = 0; j < termIds.length; j++) {
+                    termIds[j] = in.readInt();
+                    counts[j] = in.readInt();
+                }
+                items.put(key, new ItemCounts(total, termIds, counts));
+            }
+            return new StoredModel(totalDocs, words, idf, items);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable TF-IDF model " + modelFile + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the model, replacing the stored one atomically.
+     *
+     * @param model The model to store.
+     * @throws IOException if the model cannot be written.
+     */
+    public synchronized void save(StoredModel model) throws IOException {
+        Path tempFile = modelFile.resolveSibling(modelFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(sourceFingerprint());
+            out.writeInt(model.totalDocs());
+            out.writeInt(model.words().size());
+            for (int termId = 0; termId < model.words().size(); termId++) {
+                out.writeUTF(model.words().get(termId));
+                out.writeDouble(termId < model.idf().length ? model.idf()[termId] : 0);
+            }
+            out.writeInt(model.items().size());
+            for (Map.Entry<String, ItemCounts> item : model.items().entrySet()) {
+                out.writeUTF(item.getKey());
+                out.writeInt(item.getValue().total());
+                int[] termIds = item.getValue().termIds();
+                out.writeInt(termIds.length);
+                for (int j = 0; j < termIds.length; j++) {
+                    out.writeInt(termIds[j]);
+                    out.writeInt(item.getValue().counts()[j]);
+                }
+            }
+        }
+        Files.move(tempFile, modelFile, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Saves the model in the background after a short delay. Requests arriving while a
+     * save is pending are merged into it, so a burst of reviews causes a single write.
+     *
+     * @param snapshot Supplies the model to write once the save runs.
+     */
+    public void scheduleSave(Supplier<StoredModel> snapshot) {
+        if (!savePending.compareAndSet(false, true)) {
+            return;
+        }
+        writer.schedule(() -> {
+            savePending.set(false);
+            try {
+                StoredModel model = snapshot.get();
+                if (model != null) {
+                    save(model);
+                }
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deletes the stored model, e.g. when it should be rebuilt from the reviews.
+     */
+    public synchronized void delete() {
+        try {
+            Files.deleteIfExists(modelFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public Path getModelFile() {
+        return modelFile;
+    }
+
+    /**
+     * Returns a fingerprint of the reviews file, changing whenever the file is written.
+     *
+     * @return The fingerprint, or 0 if the file does not exist.
+     * @throws IOException if the file attributes cannot be read.
+     */
+    private long sourceFingerprint() throws IOException {
+        if (!Files.exists(sourceFile)) {
+            return 0;
+        }
+        return Files.size(sourceFile) * 31 + Files.getLastModifiedTime(sourceFile).toMillis();
+    }
+}
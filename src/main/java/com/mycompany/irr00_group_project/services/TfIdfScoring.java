@@ -0,0 +1,23 @@
+package com.mycompany.irr00_group_project.services;
+
+/**
+ * Classic TF-IDF: the share of the words of a reviewable that are the term, times
+ * log(total reviewables / reviewables containing the term).
+ */
+public class TfIdfScoring implements ScoringModel {
+
+    @Override
+    public String getName() {
+        return "tf-idf";
+    }
+
+    @Override
+    public double idf(int docFreq, int totalDocs) {
+        return Math.log((double) totalDocs / docFreq);
+    }
+
+    @Override
+    public double termWeight(int count, int length, double averageLength) {
+        return length <= 0 ? 0 : (double) count / length;
+    }
+}
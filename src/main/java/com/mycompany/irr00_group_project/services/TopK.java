@@ -0,0 +1,117 @@
+package com.mycompany.irr00_group_project.services;
+
+/**
+ * Selection of the k best entries of a score array with a bounded min-heap of indices.
+ * The heap holds the best k entries seen so far with the worst of them at the root, so
+ * every other entry costs one comparison and at most a log k sift, and nothing is boxed
+ * or sorted beyond the k winners.
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * Returns the indices of the k highest scores, best first.
+     *
+     * @param scores The scores.
+     * @param k The number of indices to return, at most the number of scores.
+     * @return The indices of the best scores.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public static int[] select(float[] scores, int k) {
+        return select(scores, null, k);
+    }
+
+    /**
+     * Returns the indices of the k highest scores, best first. Equal scores are ordered by
+     * the higher priority, then by the lower index, like a stable sort would.
+     *
+     * @param scores The scores.
+     * @param priorities The tie-breaking priority of every index, or null for none.
+     * @param k The number of indices to return, at most the number of scores.
+     * @return The indices of the best scores.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public static int[] select(float[] scores, int[] priorities, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        int capacity = Math.min(k, scores.length);
+        int[] heap = new int[capacity];
+        int size = 0;
+        for (int index = 0; index < scores.length && capacity > 0; index++) {
+            if (size < capacity) {
+                heap[size] = index;
+                siftUp(heap, size++, scores, priorities);
+            } else if (better(index, heap[0], scores, priorities)) {
+                heap[0] = index;
+                siftDown(heap, size, scores, priorities);
+            }
+        }
+        // Taking the worst off the root fills the result from the back.
+        int[] best = new int[size];
+        while (size > 0) {
+            best[size - 1] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, scores, priorities);
+        }
+        return best;
+    }
+
+    private static void siftUp(int[] heap, int position, float[] scores, int[] priorities) {
+        int index = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!better(heap[parent], index, scores, priorities)) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = index;
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores, int[] priorities) {
+        if (size == 0) {
+            return;
+        }
+        int index = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && better(heap[child], heap[child + 1], scores, priorities)) {
+                child++;
+            }
+            if (!better(index, heap[child], scores, priorities)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = index;
+    }
+
+    /**
+     * Checks whether an index ranks before another.
+     *
+     * @param a The first index.
+     * @param b The second index.
+     * @param scores The scores.
+     * @param priorities The tie-breaking priorities, or null.
+     * @return true if a ranks before b.
+     */
+    private static boolean better(int a, int b, float[] scores, int[] priorities) {
+        int byScore = Float.compare(scores[a], scores[b]);
+        if (byScore != 0) {
+            return byScore > 0;
+        }
+        if (priorities != null && priorities[a] != priorities[b]) {
+            return priorities[a] > priorities[b];
+        }
+        return a < b;
+    }
+}
@@ -0,0 +1,155 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+/**
+ * In-memory index of the ratings of every user over the reviews table, so the items a user
+ * reviewed are a map lookup instead of a scan of the reviews file. Only the reviewed item
+ * and the rating of a review are kept, not its text.
+ * The index is built on first use and kept in sync with the reviews table: added, changed
+ * and deleted reviews update the ratings directly.
+ */
+public class UserReviewIndex {
+
+    private final Table reviews;
+    private boolean loaded;
+    private final Map<String, List<Rating>> ratingsByUser = new HashMap<>();
+
+    /**
+     * The rating a user gave an item.
+     *
+     * @param type The type of the item.
+     * @param targetId The id of the item.
+     * @param rating The rating, 0 if it is unreadable.
+     */
+    public record Rating(ReviewableType type, String targetId, int rating) {
+    }
+
+    /**
+     * Constructor for the UserReviewIndex class.
+     *
+     * @param reviews The reviews table to index.
+     */
+    public UserReviewIndex(Table reviews) {
+        this.reviews = reviews;
+        reviews.addChangeListener(this::onReviewsChanged);
+    }
+
+    /**
+     * Returns the ratings of a user. A changed review moves to the end of the ratings.
+     *
+     * @param userId The id of the user.
+     * @return The ratings, empty if the user reviewed nothing.
+     * @throws IOException if the index has to be built and the table cannot be read.
+     */
+    public synchronized List<Rating> getRatings(String userId) throws IOException {
+        ensureLoaded();
+        List<Rating> ratings = ratingsByUser.get(userId);
+        return ratings == null ? new ArrayList<>() : new ArrayList<>(ratings);
+    }
+
+    /**
+     * Passes every rating of every user to a consumer, holding the index meanwhile.
+     *
+     * @param consumer The consumer.
+     * @throws IOException if the index has to be built and the table cannot be read.
+     */
+    public synchronized void forEachRating(Consumer<Rating> consumer) throws IOException {
+        ensureLoaded();
+        for (List<Rating> ratings : ratingsByUser.values()) {
+            ratings.forEach(consumer);
+        }
+    }
+
+    /**
+     * Builds the index from the reviews table if it is not loaded.
+     *
+     * @throws IOException if the table cannot be read.
+     */
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        ratingsByUser.clear();
+        for (Map<String, String> line : reviews.getAllLines()) {
+            update(line, true);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Keeps the index in sync with a change to the reviews table.
+     *
+     * @param change The change made to the reviews table.
+     */
+    private synchronized void onReviewsChanged(TableChange change) {
+        if (!loaded) {
+            return;
+        }
+        if (change.getKind() == TableChange.Kind.REPLACED) {
+            loaded = false;
+            return;
+        }
+        // Resequencing renumbers the lines but keeps every rating.
+        if (change.getOldLine() != null) {
+            update(change.getOldLine(), false);
+        }
+        if (change.getNewLine() != null) {
+            update(change.getNewLine(), true);
+        }
+    }
+
+    /**
+     * Adds or removes the rating of one line.
+     *
+     * @param line The line of the reviews table.
+     * @param add true to add the rating, false to remove it.
+     */
+    private void update(Map<String, String> line, boolean add) {
+        Rating rating = toRating(line);
+        if (rating == null) {
+            return;
+        }
+        String userId = line.get("user_id");
+        if (add) {
+            ratingsByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(rating);
+            return;
+        }
+        List<Rating> ratings = ratingsByUser.get(userId);
+        if (ratings != null) {
+            ratings.remove(rating);
+        }
+    }
+
+    /**
+     * Reads the rating of a line of the reviews table.
+     *
+     * @param line The line.
+     * @return The rating, or null if the line names no item.
+     */
+    private static Rating toRating(Map<String, String> line) {
+        try {
+            ReviewableType type = ReviewableType.valueOf(line.get("reviewable_type"));
+            if (line.get("target_id") == null || line.get("user_id") == null) {
+                return null;
+            }
+            int rating;
+            try {
+                rating = Integer.parseInt(line.get("rating"));
+            } catch (NumberFormatException e) {
+                rating = 0;
+            }
+            return new Rating(type, line.get("target_id"), rating);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("Skipping unreadable review line: " + line);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.mycompany.irr00_group_project.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * In-memory index over the usernames of the users table.
+ * Prefix lookups binary search a sorted array of usernames, substring lookups only verify
+ * the users sharing the rarest trigram of the query, so neither scans the whole table.
+ * Every one- and two-character substring is indexed as well, so the short queries of the
+ * first keystrokes are answered from their postings too.
+ * The index is built on first use and kept in sync with the users table: new users are
+ * inserted directly, while deletions and username changes trigger a rebuild.
+ */
+public final class UsernameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Table users;
+    private boolean loaded;
+
+    // Users by slot, in the order they were added to the index.
+    private int size;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] usernames = new String[INITIAL_CAPACITY];
+    private String[] emails = new String[INITIAL_CAPACITY];
+    private String[] lowerNames = new String[INITIAL_CAPACITY];
+
+    // Slots ordered by lower-case username, for prefix lookups.
+    private int[] sortedSlots = new int[INITIAL_CAPACITY];
+
+    // Substring of one to GRAM_LENGTH characters to the ascending slots of the usernames
+    // containing it.
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * Growable list of slots containing a trigram.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int count;
+
+        private void add(int slot) {
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count * 2);
+            }
+            slots[count++] = slot;
+        }
+    }
+
+    /**
+     * Constructor for the UsernameIndex class.
+     *
+     * @param users The users table to index.
+     */
+    public UsernameIndex(Table users) {
+        this.users = users;
+        users.addChangeListener(this::onUsersChanged);
+    }
+
+    /**
+     * Searches for users whose username contains the query, ignoring case.
+     * Usernames starting with the query come first, in alphabetical order,
+     * followed by the other matches in the order the users were added.
+     *
+     * @param query The text to search for.
+     * @param limit The maximum number of users to return.
+     * @param excludeId The id of a user to leave out of the results, or null.
+     * @return The matching users as lines with the id, username and email.
+     * @throws IOException if the index has to be built and the users table cannot be read.
+     */
+    public synchronized List<Map<String, String>> search(String query, int limit,
+        String excludeId) throws IOException {
+        ensureLoaded();
+        String lowerQuery = query.toLowerCase();
+        List<Map<String, String>> results = new ArrayList<>();
+        Set<Integer> added = new HashSet<>();
+
+        int position = lowerBound(lowerQuery, size);
+        while (position < size && results.size() < limit
+            && lowerNames[sortedSlots[position]].startsWith(lowerQuery)) {
+            addResult(sortedSlots[position++], excludeId, results, added);
+        }
+
+        if (results.size() < limit) {
+            addSubstringMatches(lowerQuery, limit, excludeId, results, added);
+        }
+        return results;
+    }
+
+    /**
+     * Adds the users containing the query anywhere in their username.
+     *
+     * @param lowerQuery The lower-case query.
+     * @param limit The maximum number of results.
+     * @param excludeId The id of a user to leave out, or null.
+     * @param results The results to add to.
+     * @param added The slots already in the results.
+     */
+    private void addSubstringMatches(String lowerQuery, int limit, String excludeId,
+        List<Map<String, String>> results, Set<Integer> added) {
+        // Every username contains the empty query, so only that one is scanned.
+        Postings candidates = lowerQuery.isEmpty() ? null : rarestGram(lowerQuery);
+        int count = candidates != null ? candidates.count : size;
+        if (!lowerQuery.isEmpty() && candidates == null) {
+            return; // A gram of the query occurs in no username at all.
+        }
+        for (int i = 0; i < count && results.size() < limit; i++) {
+            int slot = candidates != null ? candidates.slots[i] : i;
+            if (!added.contains(slot) && lowerNames[slot].contains(lowerQuery)) {
+                addResult(slot, excludeId, results, added);
+            }
+        }
+    }
+
+    /**
+     * Returns the postings of the gram of the query that occurs in the fewest usernames.
+     * Queries shorter than a trigram are a gram themselves.
+     *
+     * @param lowerQuery The lower-case, non-empty query.
+     * @return The shortest postings, or null if some gram occurs in no username.
+     */
+    private Postings rarestGram(String lowerQuery) {
+        int gramLength = Math.min(GRAM_LENGTH, lowerQuery.length());
+        Postings rarest = null;
+        for (int i = 0; i + gramLength <= lowerQuery.length(); i++) {
+            Postings gramPostings = postings.get(lowerQuery.substring(i, i + gramLength));
+            if (gramPostings == null) {
+                return null;
+            }
+            if (rarest == null || gramPostings.count < rarest.count) {
+                rarest = gramPostings;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Adds the user in a slot to the results unless it is excluded.
+     *
+     * @param slot The slot of the user.
+     * @param excludeId The id of a user to leave out, or null.
+     * @param results The results to add to.
+     * @param added The slots already in the results.
+     */
+    private void addResult(int slot, String excludeId, List<Map<String, String>> results,
+        Set<Integer> added) {
+        if (Objects.equals(ids[slot], excludeId)) {
+            return;
+        }
+        added.add(slot);
+        Map<String, String> line = new HashMap<>();
+        line.put("id", ids[slot]);
+        line.put("username", usernames[slot]);
+        line.put("email", emails[slot]);
+        results.add(line);
+    }
+
+    /**
+     * Returns the first position in the sorted slots whose username is not less than a key.
+     *
+     * @param key The lower-case key to search for.
+     * @param count The number of sorted slots to search, from the start.
+     * @return The insertion position of the key.
+     */
+    private int lowerBound(String key, int count) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lowerNames[sortedSlots[mid]].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Builds the index from the users table if it is not loaded.
+     *
+     * @throws IOException if the users table cannot be read.
+     */
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        clear();
+        for (Map<String, String> line : users.getAllLines()) {
+            append(line);
+        }
+        sortSlots();
+        loaded = true;
+    }
+
+    /**
+     * Keeps the index in sync with a change to the users table.
+     *
+     * @param change The change made to the users table.
+     */
+    private synchronized void onUsersChanged(TableChange change) {
+        if (!loaded) {
+            return;
+        }
+        switch (change.getKind()) {
+            case ADDED -> insert(change.getNewLine());
+            case CHANGED -> {
+                // Logins only update last_login, which the index does not hold.
+                if (!sameIndexedValues(change.getOldLine(), change.getNewLine())) {
+                    loaded = false;
+                }
+            }
+            default -> loaded = false;
+        }
+    }
+
+    /**
+     * Checks whether two lines agree on the values held by the index.
+     *
+     * @param oldLine The line before the change.
+     * @param newLine The line after the change.
+     * @return true if the username and email are unchanged.
+     */
+    private static boolean sameIndexedValues(Map<String, String> oldLine,
+        Map<String, String> newLine) {
+        return Objects.equals(oldLine.get("username"), newLine.get("username"))
+            && Objects.equals(oldLine.get("email"), newLine.get("email"));
+    }
+
+    /**
+     * Adds a user to the index, keeping the sorted slots sorted.
+     *
+     * @param line The line of the users table describing the user.
+     */
+    private void insert(Map<String, String> line) {
+        int slot = append(line);
+        // Insert after equal names so users with the same name stay in insertion order.
+        // Only the slots before the new one are placed yet.
+        int position = lowerBound(lowerNames[slot] + Character.MIN_VALUE, slot);
+        System.arraycopy(sortedSlots, position, sortedSlots, position + 1, slot - position);
+        sortedSlots[position] = slot;
+    }
+
+    /**
+     * Adds a user to the slots and gram postings, without placing it in the sorted
+     * slots, so a full build appends every user and sorts once.
+     *
+     * @param line The line of the users table describing the user.
+     * @return The slot of the user.
+     */
+    private int append(Map<String, String> line) {
+        String username = line.get("username") == null ? "" : line.get("username");
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        ids[slot] = line.get("id");
+        usernames[slot] = username;
+        emails[slot] = line.get("email");
+        lowerNames[slot] = username.toLowerCase();
+
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= lowerNames[slot].length(); i++) {
+                grams.add(lowerNames[slot].substring(i, i + length));
+            }
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Orders all slots by lower-case username. The sort is stable, so users with the same
+     * name stay in insertion order, as with {@link #insert}.
+     */
+    private void sortSlots() {
+        Integer[] order = new Integer[size];
+        for (int slot = 0; slot < size; slot++) {
+            order[slot] = slot;
+        }
+        Arrays.sort(order, Comparator.comparing(slot -> lowerNames[slot]));
+        for (int i = 0; i < size; i++) {
+            sortedSlots[i] = order[i];
+        }
+    }
+
+    /**
+     * Doubles the capacity of the slot arrays.
+     */
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+        lowerNames = Arrays.copyOf(lowerNames, capacity);
+        sortedSlots = Arrays.copyOf(sortedSlots, capacity);
+    }
+
+    /**
+     * Removes every user from the index.
+     */
+    private void clear() {
+        size = 0;
+        Arrays.fill(ids, null);
+        Arrays.fill(usernames, null);
+        Arrays.fill(emails, null);
+        Arrays.fill(lowerNames, null);
+        postings.clear();
+    }
+}
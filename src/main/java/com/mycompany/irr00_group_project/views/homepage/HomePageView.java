@@ -55,8 +55,10 @@ public class HomePageView {
             this::displaySearchResultsView,
             this::resetToFriendsAndUpdateResults,
             centralView.getSearchResults().updateResults(),
+            centralView.getSearchResults().appendResults(),
             this::showUserProfile
         );
+        centralView.getSearchResults().setOnShowMore(topBarController::handleShowMore);
         this.topBar = viewFactory.createTopBarView(topBarController);
 
         this.rootStack = viewFactory.createMainStackPane(root);
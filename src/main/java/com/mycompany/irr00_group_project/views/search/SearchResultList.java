@@ -1,9 +1,14 @@
 package com.mycompany.irr00_group_project.views.search;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import com.mycompany.irr00_group_project.controllers.SearchController.ResultPage;
+import com.mycompany.irr00_group_project.controllers.SearchController.TopResults;
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
 import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
 import com.mycompany.irr00_group_project.models.reviewables.targets.Album;
@@ -17,18 +22,29 @@ import com.mycompany.irr00_group_project.views.cards.TopResultCard;
 
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 
 /**
  * SearchResultList is a custom VBox layout that displays search results.
  * It is used to show a list of search results in a scrollable view.
+ * Every section shows the first page of its type, with a "Show more" button that
+ * appends the next page as long as there are more results.
  */
 public class SearchResultList extends VBox {
 
     private boolean hasActualContent = false;
     private Consumer<Reviewable> onReviewableSelected;
+    private BiConsumer<ReviewableType, String> onShowMore;
+
+    private Reviewable topResult;
+    private final Map<ReviewableType, Pane> sectionBoxes = new EnumMap<>(ReviewableType.class);
+    private final Map<ReviewableType, Button> moreButtons = new EnumMap<>(ReviewableType.class);
+    private final Map<ReviewableType, String> nextCursors = new EnumMap<>(ReviewableType.class);
 
     /**
      * Constructor for the SearchResultList class.
@@ -39,23 +55,61 @@ public class SearchResultList extends VBox {
     }
 
     /**
-     * Updates the displayed results based on the provided list of reviewables.
+     * Updates the displayed results based on the first page of every type.
      *
-     * @param reviewables The list of reviewables to display.
+     * @param results The results to display, top result first, and the cursors of the
+     *     next pages.
      */
-    public void updateResults(List<Reviewable> reviewables) {
+    public void updateResults(TopResults results) {
         this.getChildren().clear();
+        sectionBoxes.clear();
+        moreButtons.clear();
+        nextCursors.clear();
+        topResult = null;
 
+        List<Reviewable> reviewables = results == null ? null : results.reviewables();
         if (reviewables == null || reviewables.isEmpty()) {
             showNoResults();
             return;
         }
 
         hasActualContent = true;
-        addTopResultSection(reviewables.get(0));
-        addSongsSection(reviewables);
-        addAlbumsSection(reviewables);
-        addArtistsSection(reviewables);
+        topResult = reviewables.get(0);
+        addTopResultSection(topResult);
+        addSection(ReviewableType.SONG, "Songs", reviewables, results.nextCursors());
+        addSection(ReviewableType.ALBUM, "Albums", reviewables, results.nextCursors());
+        addSection(ReviewableType.ARTIST, "Artists", reviewables, results.nextCursors());
+    }
+
+    /**
+     * Appends a further page of results to the section of its type.
+     *
+     * @param type The type of the results.
+     * @param page The page, with the cursor of the page after it.
+     */
+    public void appendResults(ReviewableType type, ResultPage page) {
+        Pane box = sectionBoxes.get(type);
+        if (box == null || page == null) {
+            return;
+        }
+        for (Reviewable reviewable : page.reviewables()) {
+            if (reviewable != topResult) {
+                box.getChildren().add(createCard(reviewable));
+            }
+        }
+        Button moreButton = moreButtons.get(type);
+        if (page.nextCursor() == null) {
+            nextCursors.remove(type);
+            if (moreButton != null) {
+                ((Pane) moreButton.getParent()).getChildren().remove(moreButton);
+                moreButtons.remove(type);
+            }
+        } else {
+            nextCursors.put(type, page.nextCursor());
+            if (moreButton != null) {
+                moreButton.setDisable(false);
+            }
+        }
     }
 
     /**
@@ -86,119 +140,107 @@ public class SearchResultList extends VBox {
     }
 
     /**
-     * Adds the songs section if there are songs to display.
+     * Adds the section of one type if there are results of that type to display.
      *
+     * @param type The type of the section.
+     * @param title The title of the section.
      * @param reviewables The list of all reviewables.
+     * @param cursors The cursors of the next pages, by type.
      */
-    private void addSongsSection(List<Reviewable> reviewables) {
-        List<Song> songs = getItemsByType(reviewables, ReviewableType.SONG, Song.class);
-        if (songs.isEmpty()) {
-            return;
-        }
-
-        Label songsLabel = GuiHelper.createTitleLabel("Songs");
-        ThemeUtils.setSmallTitleFont(songsLabel);
-        VBox songsBox = GuiHelper.createPaddedVBox(10, 0);
-
-        Reviewable topResult = reviewables.get(0);
-        for (Song song : songs) {
-            if (song != topResult) { // Don't duplicate the top result
-                SongCard songCard = new SongCard(song);
-                songCard.setOnMouseClicked(e -> onReviewableSelected.accept(song));
-                songsBox.getChildren().add(songCard);
+    private void addSection(ReviewableType type, String title, List<Reviewable> reviewables,
+        Map<ReviewableType, String> cursors) {
+        String cursor = cursors.get(type);
+        Pane box = type == ReviewableType.ARTIST ? createArtistBox()
+            : GuiHelper.createPaddedVBox(10, 0);
+        for (Reviewable reviewable : getItemsByType(reviewables, type)) {
+            if (reviewable != topResult) { // Don't duplicate the top result
+                box.getChildren().add(createCard(reviewable));
             }
         }
+        if (box.getChildren().isEmpty() && cursor == null) {
+            return;
+        }
 
-        if (!songsBox.getChildren().isEmpty()) {
-            VBox songSection = GuiHelper.createPaddedVBox(10, 0);
-            songSection.getChildren().addAll(songsLabel, songsBox);
-            this.getChildren().add(songSection);
+        Label sectionLabel = GuiHelper.createTitleLabel(title);
+        ThemeUtils.setSmallTitleFont(sectionLabel);
+        VBox section = GuiHelper.createPaddedVBox(10, 0);
+        section.getChildren().addAll(sectionLabel, box);
+        if (cursor != null) {
+            Button moreButton = GuiHelper.createStyledButton("Show more",
+                () -> requestMore(type));
+            section.getChildren().add(moreButton);
+            moreButtons.put(type, moreButton);
+            nextCursors.put(type, cursor);
         }
+        sectionBoxes.put(type, box);
+        this.getChildren().add(section);
     }
 
     /**
-     * Adds the albums section if there are albums to display.
+     * Asks for the next page of a section. The button stays disabled until the page is
+     * appended, so a page is never requested twice. A page that failed to load arrives
+     * empty with the same cursor, which enables the button again.
      *
-     * @param reviewables The list of all reviewables.
+     * @param type The type of the section.
      */
-    private void addAlbumsSection(List<Reviewable> reviewables) {
-        List<Album> albums = getItemsByType(reviewables, ReviewableType.ALBUM, Album.class);
-        if (albums.isEmpty()) {
+    private void requestMore(ReviewableType type) {
+        String cursor = nextCursors.get(type);
+        if (cursor == null || onShowMore == null) {
             return;
         }
-
-        Label albumsLabel = GuiHelper.createTitleLabel("Albums");
-        ThemeUtils.setSmallTitleFont(albumsLabel);
-        VBox albumsBox = GuiHelper.createPaddedVBox(10, 0);
-
-        Reviewable topResult = reviewables.get(0);
-        for (Album album : albums) {
-            if (album != topResult) { // Don't duplicate the top result
-                // Use SongCard as a generic card for albums - create wrapper song
-                Song albumAsSong = createAlbumWrapper(album);
-                SongCard albumCard = new SongCard(albumAsSong);
-                albumCard.setOnMouseClicked(e -> onReviewableSelected.accept(album));
-                albumsBox.getChildren().add(albumCard);
-            }
-        }
-
-        if (!albumsBox.getChildren().isEmpty()) {
-            VBox albumSection = GuiHelper.createPaddedVBox(10, 0);
-            albumSection.getChildren().addAll(albumsLabel, albumsBox);
-            this.getChildren().add(albumSection);
-        }
+        moreButtons.get(type).setDisable(true);
+        onShowMore.accept(type, cursor);
     }
 
     /**
-     * Adds the artists section if there are artists to display.
+     * Creates the box of the artists section.
      *
-     * @param reviewables The list of all reviewables.
+     * @return The box.
      */
-    private void addArtistsSection(List<Reviewable> reviewables) {
-        List<Artist> artists = getItemsByType(reviewables, ReviewableType.ARTIST, Artist.class);
-        if (artists.isEmpty()) {
-            return;
-        }
-
-        Label artistsLabel = GuiHelper.createTitleLabel("Artists");
-        ThemeUtils.setSmallTitleFont(artistsLabel);
+    private FlowPane createArtistBox() {
         FlowPane artistBox = new FlowPane();
-        artistBox.setHgap(10);  
+        artistBox.setHgap(10);
         artistBox.setVgap(10);
         artistBox.setPadding(new Insets(10));
-        artistBox.setPrefWrapLength(350); 
+        artistBox.setPrefWrapLength(350);
         artistBox.setAlignment(Pos.CENTER);
-        Reviewable topResult = reviewables.get(0);
-        for (Artist artist : artists) {
-            if (artist != topResult) { 
-                ArtistCard artistCard = new ArtistCard(artist);
-                artistCard.setOnMouseClicked(e -> onReviewableSelected.accept(artist));
-                artistBox.getChildren().add(artistCard);
-            }
-        }
+        return artistBox;
+    }
 
-        if (!artistBox.getChildren().isEmpty()) {
-            VBox artistSection = GuiHelper.createPaddedVBox(10, 0);
-            artistSection.getChildren().addAll(artistsLabel, artistBox);
-            this.getChildren().add(artistSection);
+    /**
+     * Creates the card of a result, opening the result when clicked.
+     *
+     * @param reviewable The result.
+     * @return The card.
+     */
+    private Node createCard(Reviewable reviewable) {
+        Node card;
+        switch (reviewable.getType()) {
+            case ARTIST:
+                card = new ArtistCard((Artist) reviewable);
+                break;
+            case ALBUM:
+                // Use SongCard as a generic card for albums - create wrapper song
+                card = new SongCard(createAlbumWrapper((Album) reviewable));
+                break;
+            default:
+                card = new SongCard((Song) reviewable);
+                break;
         }
+        card.setOnMouseClicked(e -> onReviewableSelected.accept(reviewable));
+        return card;
     }
 
     /**
      * Gets items of a specific type from the reviewables list.
      *
-     * @param <T> The type of items to extract
      * @param reviewables The list of reviewables
      * @param type The type to filter by
-     * @param clazz The class of the type
      * @return List of items of the specified type
      */
-    private <T> List<T> getItemsByType(List<Reviewable> reviewables, 
-        ReviewableType type, Class<T> clazz) {
-
+    private List<Reviewable> getItemsByType(List<Reviewable> reviewables, ReviewableType type) {
         return reviewables.stream()
             .filter(r -> r.getType() == type)
-            .map(clazz::cast)
             .collect(Collectors.toList());
     }
 
@@ -210,10 +252,10 @@ public class SearchResultList extends VBox {
      */
     private Song createAlbumWrapper(Album album) {
         return new Song(
-            album.getId(), 
-            album.getName(), 
+            album.getId(),
+            album.getName(),
             album.getImage().getUrl(),
-            album.getArtist(), 
+            album.getArtist(),
             album
         );
     }
@@ -227,6 +269,17 @@ public class SearchResultList extends VBox {
         this.onReviewableSelected = listener;
     }
 
+    /**
+     * Sets the listener asked for the next page of a section, with the type of the
+     * section and the cursor of the page. It should pass the page to
+     * {@link #appendResults}, or an empty page with the same cursor if it fails.
+     *
+     * @param listener The listener.
+     */
+    public void setOnShowMore(BiConsumer<ReviewableType, String> listener) {
+        this.onShowMore = listener;
+    }
+
     /**
      * Checks if the ResultsView has actual content (reviewables).
      *
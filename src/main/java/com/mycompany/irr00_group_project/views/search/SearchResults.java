@@ -1,9 +1,12 @@
 package com.mycompany.irr00_group_project.views.search;
 
-import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import com.mycompany.irr00_group_project.controllers.SearchController.ResultPage;
+import com.mycompany.irr00_group_project.controllers.SearchController.TopResults;
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
 import com.mycompany.irr00_group_project.utils.ThemeUtils;
 
 import javafx.geometry.Insets;
@@ -47,10 +50,27 @@ public class SearchResults extends VBox {
      * Retrieves the reviewable list view.
      * @return The reviewable list view.
      */
-    public Consumer<List<Reviewable>> updateResults() {
+    public Consumer<TopResults> updateResults() {
         return resultListVBox::updateResults;
     }
 
+    /**
+     * Retrieves the callback appending a further page of results of one type.
+     * @return The callback.
+     */
+    public BiConsumer<ReviewableType, ResultPage> appendResults() {
+        return resultListVBox::appendResults;
+    }
+
+    /**
+     * Sets the listener asked for the next page of a section.
+     *
+     * @param listener The listener, receiving the type of the section and the cursor.
+     */
+    public void setOnShowMore(BiConsumer<ReviewableType, String> listener) {
+        resultListVBox.setOnShowMore(listener);
+    }
+
     /**
      * Sets the listener for reviewable selection events.
      *
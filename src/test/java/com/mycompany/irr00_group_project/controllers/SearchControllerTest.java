@@ -1,7 +1,10 @@
 package com.mycompany.irr00_group_project.controllers;
 
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
 import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.models.reviewables.SearchPage;
 import com.mycompany.irr00_group_project.services.Database;
+import com.mycompany.irr00_group_project.services.SearchMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +15,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Comparator;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -113,6 +117,75 @@ public class SearchControllerTest {
         assertTrue(controller.getSearchResultsReviewables().isEmpty());
     }
 
+    @Test
+    public void testCachedResultsRefreshAfterCatalogChange() throws IOException {
+        assertEquals(1, controller.searchReviewables("queen").size());
+        assertEquals(1, controller.searchReviewables("queen").size());
+        // One lookup per reviewable type is answered from the cache.
+        assertEquals(3, controller.getResultCache().getHits());
+
+        db.getReviewableTable(ReviewableType.ARTIST)
+            .addLine(new String[]{"Queen Latifah", "queen2.png"});
+        assertEquals(2, controller.searchReviewables("queen").size());
+    }
+
+    @Test
+    public void testSearchPageFollowsCursor() throws IOException {
+        db.getReviewableTable(ReviewableType.ARTIST)
+            .addLine(new String[]{"Queens of the Stone Age", "qotsa.png"});
+        db.getReviewableTable(ReviewableType.ARTIST)
+            .addLine(new String[]{"Killer Queen", "killer.png"});
+
+        SearchPage first = controller.searchPage("queen", ReviewableType.ARTIST, null, 2);
+        assertEquals(2, first.getHits().size());
+        assertTrue(first.hasNext());
+        // The exact match ranks above the prefix match, which ranks above the word match.
+        assertEquals("Queen", first.getHits().get(0).getName());
+        assertEquals("Queens of the Stone Age", first.getHits().get(1).getName());
+
+        SearchPage second = controller.searchPage(
+            "queen", ReviewableType.ARTIST, first.getNextCursor(), 2);
+        assertEquals(1, second.getHits().size());
+        assertEquals("Killer Queen", second.getHits().get(0).getName());
+        assertFalse(second.hasNext());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> controller.searchPage("queen", ReviewableType.ARTIST, "not-a-cursor", 2));
+    }
+
+    @Test
+    public void testSearchTopResultsHydratesOnlyFirstPage() throws IOException {
+        db.getReviewableTable(ReviewableType.ARTIST)
+            .addLine(new String[]{"Killer Queen", "killer.png"});
+        db.getReviewableTable(ReviewableType.ARTIST)
+            .addLine(new String[]{"Queen", "queen2.png"});
+
+        List<Reviewable> results = controller.searchTopResults("queen", 2);
+        assertEquals(2, results.size());
+        assertEquals("Queen", results.get(0).getName());
+    }
+
+    @Test
+    public void testResultPagesReachEveryHit() throws IOException {
+        db.getReviewableTable(ReviewableType.ARTIST)
+            .addLine(new String[]{"Killer Queen", "killer.png"});
+        db.getReviewableTable(ReviewableType.ARTIST)
+            .addLine(new String[]{"Queen", "queen2.png"});
+
+        SearchController.TopResults top = controller.searchTopResultPages(
+            "queen", 2, SearchMetrics.getInstance().startTrace("queen"));
+        assertEquals(2, top.reviewables().size());
+        String cursor = top.nextCursors().get(ReviewableType.ARTIST);
+        assertNotNull(cursor);
+        assertFalse(top.nextCursors().containsKey(ReviewableType.SONG));
+
+        SearchController.ResultPage next =
+            controller.searchResultPage("queen", ReviewableType.ARTIST, cursor, 2);
+        assertEquals(1, next.reviewables().size());
+        assertEquals("Killer Queen", next.reviewables().get(0).getName());
+        assertNull(next.nextCursor());
+    }
+
     /**
      * Cleans the specified directory by deleting all files within it.
      *
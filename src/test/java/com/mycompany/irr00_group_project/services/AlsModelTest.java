@@ -0,0 +1,91 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AlsModel class.
+ */
+public class AlsModelTest {
+
+    /**
+     * Creates ratings of two groups of users who like two different groups of items.
+     */
+    private static RatingMatrix twoTasteRatings() {
+        RatingMatrix ratings = new RatingMatrix(200, 40);
+        Random random = new Random(5);
+        for (int user = 0; user < 200; user++) {
+            for (int item = 0; item < 40; item++) {
+                if (random.nextInt(3) == 0) {
+                    boolean sameGroup = user % 2 == item % 2;
+                    ratings.set(user, item, sameGroup ? 5 : 1);
+                }
+            }
+        }
+        return ratings;
+    }
+
+    @Test
+    public void testTrainingFitsLowRankRatings() {
+        RatingMatrix ratings = twoTasteRatings();
+        AlsModel model = AlsModel.train(ratings, new AlsModel.Parameters(4, 0.05f, 10, 1), null);
+
+        assertEquals(200, model.getUserCount());
+        assertEquals(40, model.getItemCount());
+        assertTrue(model.rootMeanSquaredError(ratings) < 0.5,
+            "RMSE " + model.rootMeanSquaredError(ratings));
+    }
+
+    @Test
+    public void testPredictsUnseenRatingsOfTheSameTaste() {
+        RatingMatrix ratings = twoTasteRatings();
+        AlsModel model = AlsModel.train(ratings, new AlsModel.Parameters(4, 0.05f, 10, 1), null);
+
+        float[] scores = model.predictAll(0);
+        for (int item = 0; item < 40; item++) {
+            if (ratings.get(0, item) == 0) {
+                assertEquals(item % 2 == 0, scores[item] > 3, "item " + item);
+            }
+            assertEquals(model.predict(0, item), scores[item], 1e-4f);
+        }
+    }
+
+    @Test
+    public void testWarmStartKeepsTheFitWithFewIterations() {
+        RatingMatrix ratings = twoTasteRatings();
+        AlsModel.Parameters parameters = new AlsModel.Parameters(4, 0.05f, 10, 1);
+        AlsModel model = AlsModel.train(ratings, parameters, null);
+
+        RatingMatrix grown = ratings.copy();
+        grown.ensureSize(201, 40);
+        grown.set(200, 0, 5);
+        grown.set(200, 2, 5);
+        AlsModel retrained = AlsModel.train(grown, parameters.withIterations(1), model);
+
+        assertEquals(201, retrained.getUserCount());
+        assertTrue(retrained.rootMeanSquaredError(grown) < 0.5);
+        assertTrue(retrained.predict(200, 4) > retrained.predict(200, 5));
+    }
+
+    @Test
+    public void testUsersWithoutRatingsHaveNoFactors() {
+        RatingMatrix ratings = new RatingMatrix(2, 3);
+        ratings.set(0, 1, 4);
+        AlsModel model = AlsModel.train(ratings, new AlsModel.Parameters(2, 0.1f, 3, 1), null);
+
+        assertTrue(model.hasUserFactors(0));
+        assertFalse(model.hasUserFactors(1));
+        assertFalse(model.hasUserFactors(2));
+        assertEquals(0f, model.predict(1, 1));
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new AlsModel.Parameters(0, 0.1f, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AlsModel.Parameters(2, -1f, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AlsModel.Parameters(2, 0.1f, 0, 1));
+    }
+}
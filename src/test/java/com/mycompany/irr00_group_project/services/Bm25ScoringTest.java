@@ -0,0 +1,54 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Bm25Scoring and TfIdfScoring classes.
+ */
+public class Bm25ScoringTest {
+
+    @Test
+    public void testRepetitionsSaturate() {
+        Bm25Scoring bm25 = new Bm25Scoring(1.2, 0.75);
+        double once = bm25.termWeight(1, 10, 10);
+        double twice = bm25.termWeight(2, 10, 10);
+        double often = bm25.termWeight(100, 10, 10);
+        assertTrue(twice > once);
+        assertTrue(twice < 2 * once);
+        assertTrue(often < 1.2 + 1);
+        assertEquals(0, bm25.termWeight(0, 10, 10));
+    }
+
+    @Test
+    public void testLongItemsAreNormalised() {
+        Bm25Scoring bm25 = new Bm25Scoring();
+        assertTrue(bm25.termWeight(3, 100, 20) < bm25.termWeight(3, 20, 20));
+
+        Bm25Scoring noLengthNormalisation = new Bm25Scoring(1.2, 0);
+        assertEquals(noLengthNormalisation.termWeight(3, 20, 20),
+            noLengthNormalisation.termWeight(3, 100, 20), 1e-12);
+    }
+
+    @Test
+    public void testIdfStaysPositive() {
+        Bm25Scoring bm25 = new Bm25Scoring();
+        assertTrue(bm25.idf(1, 100) > bm25.idf(10, 100));
+        assertTrue(bm25.idf(100, 100) > 0);
+        assertEquals(0, new TfIdfScoring().idf(100, 100), 1e-12);
+    }
+
+    @Test
+    public void testTfIdfIsShareOfWords() {
+        assertEquals(0.25, new TfIdfScoring().termWeight(2, 8, 100), 1e-12);
+        assertEquals(0, new TfIdfScoring().termWeight(2, 0, 100), 1e-12);
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new Bm25Scoring(-1, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new Bm25Scoring(1.2, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new Bm25Scoring(Double.NaN, 0.5));
+    }
+}
@@ -6,16 +6,24 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
 
 /**
  * Unit tests for the CommentRecommenderService class.
@@ -24,6 +32,8 @@ class CommentRecommenderServiceTest {
     private static final String TEST_DB_PATH = "src/test/resources/temporary-test-files/";
     private static final Path TEST_DB_DIR = Paths.get("src/test/resources/temporary-test-files");
 
+    private CommentRecommenderService service;
+
     /**
      * Sets up the test environment by creating a temporary database directory
      * and populating it with test CSV files.
@@ -84,14 +94,12 @@ class CommentRecommenderServiceTest {
         createTestCsv("tfidf_vectors.csv", 
             "id,reviewable_id,reviewable_type,vector\n");       
         Database testDb = new Database(TEST_DB_PATH);
-        CommentRecommenderService.setDbInstance(testDb);
-        CommentRecommenderService.setAllReviewables();
-        CommentRecommenderService.setCurrentUserId("1");
-        CommentRecommenderService.invalidateCaches();
+        service = new CommentRecommenderService(testDb);
+        service.setAllReviewables();
+        service.invalidateCaches();
 
         // Debug: Print some information about the test setup
         System.out.println("Test setup complete. Database path: " + TEST_DB_PATH);
-        System.out.println("Current user ID set to: 1");
     }
 
     @AfterAll
@@ -101,7 +109,7 @@ class CommentRecommenderServiceTest {
 
     @Test
     public void testRecommendationsDoNotIncludeLikedItems() throws IOException {
-        List<Reviewable> recs = CommentRecommenderService.getRecommendations();
+        List<Reviewable> recs = service.getRecommendations("1");
 
         // Debug information
         System.out.println("Number of recommendations returned: " + recs.size());
@@ -121,13 +129,160 @@ class CommentRecommenderServiceTest {
 
     @Test
     public void testRecommendationsLimit() throws IOException {
-        List<Reviewable> recs = CommentRecommenderService.getRecommendations();
+        List<Reviewable> recs = service.getRecommendations("1");
 
         // The method should return a list (possibly empty) and not crash
         assertTrue(recs.size() <= 10, 
             "Should return at most 10 recommendations, got: " + recs.size());
     }
 
+    @Test
+    public void testReviewsUpdateTermCountsIncrementally() throws IOException {
+        service.getRecommendations("1");
+        assertEquals(1, service.getDocumentFrequency("rock"));
+
+        Database db = Database.getInstance();
+        Reviewable popBallad = db.turnLineToReviewable(
+            db.getReviewableTable(ReviewableType.SONG).getLines("id", "song2").get(0));
+        service.onReviewAdded(popBallad, "Rock on, rock on!");
+        assertEquals(2, service.getDocumentFrequency("rock"));
+        assertEquals(1, service.getDocumentFrequency("on"));
+
+        // "Decent melody." plus "rock" and "on" twice: TF 1/6, 1/6, 2/6 and 2/6.
+        SparseVector tf = service.computeTfVector(popBallad);
+        assertEquals(4, tf.size());
+        assertEquals(10.0 / 36, tf.dot(tf), 1e-6);
+
+        service.onReviewEdited(popBallad, "Rock on, rock on!", "Smooth");
+        assertEquals(1, service.getDocumentFrequency("rock"));
+        assertEquals(0, service.getDocumentFrequency("on"));
+        assertEquals(1, service.getDocumentFrequency("smooth"));
+        assertEquals(3, service.computeTfVector(popBallad).size());
+    }
+
+    @Test
+    public void testReviewsTableChangesUpdateTermCounts() throws IOException {
+        service.getRecommendations("1");
+        Table reviews = Database.getInstance().getReviewsTable();
+        reviews.addLine(new String[]{ "1", "Rock on, rock on!", "2025-06-19T10:00:00",
+            "song2", "4", "SONG" });
+        String id = reviews.getLineId(new String[]{ "1", "Rock on, rock on!",
+            "2025-06-19T10:00:00", "song2", "4", "SONG" });
+        // The change is applied by the next request, not by the thread that saved it.
+        assertEquals(1, service.getDocumentFrequency("rock"));
+        service.getRecommendations("1");
+        assertEquals(2, service.getDocumentFrequency("rock"));
+
+        reviews.changeLine(id, new String[]{ "1", "Smooth", "2025-06-19T10:00:00",
+            "song2", "4", "SONG" });
+        reviews.deleteLine("2");
+        service.getRecommendations("1");
+        assertEquals(1, service.getDocumentFrequency("rock"));
+        assertEquals(1, service.getDocumentFrequency("smooth"));
+        assertEquals(0, service.getDocumentFrequency("melody"));
+    }
+
+    @Test
+    public void testModelIsStoredAfterBuild() throws IOException {
+        service.getRecommendations("1");
+
+        TfIdfModelStore.StoredModel stored = Database.getInstance().getModelStore().load();
+        assertNotNull(stored, "The model should be stored next to the reviews");
+        assertEquals(15, stored.totalDocs());
+        assertEquals(15, stored.items().size());
+        assertTrue(stored.words().contains("rock"));
+    }
+
+    @Test
+    public void testRecommendationsCanBeRequestedRepeatedly() throws IOException {
+        List<Reviewable> first = service.getRecommendations("1");
+        assertEquals(first, service.getRecommendations("1"));
+        assertEquals(first, service.getRecommendations("1"));
+        assertTrue(service.getRecommendations("2").size() <= 10);
+    }
+
+    @Test
+    public void testConcurrentSessionsShareTheModel() throws Exception {
+        List<Reviewable> expected = service.getRecommendations("2");
+        ExecutorService sessions = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Reviewable>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(sessions.submit(() -> service.getRecommendations("2")));
+            }
+            for (Future<List<Reviewable>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            sessions.shutdown();
+        }
+    }
+
+    @Test
+    public void testReviewUpdatesPublishedModel() throws IOException {
+        assertNotEquals("song4", service.getRecommendations("1").get(0).getId());
+        Database db = Database.getInstance();
+        Reviewable jazz = db.turnLineToReviewable(
+            db.getReviewableTable(ReviewableType.SONG).getLines("id", "song4").get(0));
+        service.onReviewAdded(jazz, "This rock song is a rock anthem.");
+
+        assertEquals(jazz, service.getRecommendations("1").get(0));
+    }
+
+    @Test
+    public void testReviewUpdateCopiesOnlyTheReviewedSlot() throws IOException {
+        service.getRecommendations("1");
+        CsrMatrix matrix = service.getMatrix();
+        LshIndex index = service.getIndex();
+        Database db = Database.getInstance();
+        Reviewable jazz = db.turnLineToReviewable(
+            db.getReviewableTable(ReviewableType.SONG).getLines("id", "song4").get(0));
+        service.onReviewAdded(jazz, "Smooth saxophone.");
+
+        // The new snapshot keeps the rows and buckets of every other slot.
+        assertTrue(service.getMatrix().sharesEntriesWith(matrix));
+        assertEquals(1, service.getMatrix().changedRowCount());
+        assertTrue(service.getIndex().sharesBucketsWith(index));
+        assertEquals(1, service.getIndex().changedItemCount());
+        assertEquals(0, matrix.changedRowCount());
+
+        List<Reviewable> beforeCompaction = service.getRecommendations("1");
+        service.compactModel();
+        assertEquals(0, service.getMatrix().changedRowCount());
+        assertEquals(0, service.getIndex().changedItemCount());
+        assertEquals(beforeCompaction, service.getRecommendations("1"));
+    }
+
+    @Test
+    public void testExactScanMatchesIndex() throws IOException {
+        List<Reviewable> approximate = service.getRecommendations("2");
+        service.setExactSearch(true);
+        assertEquals(approximate, service.getRecommendations("2"));
+    }
+
+    @Test
+    public void testBm25ScoringRecommends() throws IOException {
+        List<Reviewable> tfIdf = service.getRecommendations("1");
+        service.setScoringModel(new Bm25Scoring());
+        List<Reviewable> bm25 = service.getRecommendations("1");
+        assertEquals(tfIdf.size(), bm25.size());
+        assertTrue(bm25.stream().noneMatch(item -> item.getId().equals("song1")));
+    }
+
+    @Test
+    public void testScoringModelsAreEvaluatedOnHitRate() throws IOException {
+        // Only user 2 likes more than one item: four trials, one per liked song.
+        CommentRecommenderService.HitRate hitRate = service.evaluateHitRate(10);
+        assertEquals(4, hitRate.trials());
+        assertTrue(hitRate.rate() >= 0 && hitRate.rate() <= 1);
+
+        Map<String, CommentRecommenderService.HitRate> results = ScoringEvaluation.compare(
+            Database.getInstance(), List.of(new TfIdfScoring(), new Bm25Scoring()), 10);
+        assertEquals(List.of("tf-idf", new Bm25Scoring().getName()),
+            new ArrayList<>(results.keySet()));
+        assertEquals(4, results.get("tf-idf").trials());
+    }
+
     private void createTestCsv(String fileName, String content) throws IOException {
         Path file = TEST_DB_DIR.resolve(fileName);
         Files.writeString(file, content.stripIndent().trim() + "\n", StandardOpenOption.CREATE);
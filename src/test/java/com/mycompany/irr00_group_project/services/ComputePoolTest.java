@@ -0,0 +1,154 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ComputePool class.
+ */
+public class ComputePoolTest {
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testProcessesEveryItemOnceAndReportsProgress() throws IOException {
+        ComputePool pool = new ComputePool(4);
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger lastProgress = new AtomicInteger();
+
+        ComputePool.Job job = pool.forEach(range(1000), processed::add,
+            (completed, total) -> {
+                assertEquals(1000, total);
+                lastProgress.accumulateAndGet(completed, Math::max);
+            });
+        job.await();
+
+        assertTrue(job.isDone());
+        assertEquals(1000, job.getCompleted());
+        assertEquals(1000, lastProgress.get());
+        Collections.sort(processed);
+        assertEquals(range(1000), processed);
+    }
+
+    @Test
+    public void testEmptyJobCompletes() throws IOException {
+        ComputePool.Job job = new ComputePool(2).forEach(new ArrayList<Integer>(),
+            item -> fail("No items to process"), null);
+        job.await();
+        assertEquals(0, job.getTotal());
+    }
+
+    @Test
+    public void testFailurePropagatesAndStopsJob() {
+        ComputePool pool = new ComputePool(1);
+        AtomicInteger processed = new AtomicInteger();
+
+        IOException thrown = assertThrows(IOException.class, () -> pool.invokeAll(range(100),
+            item -> {
+                if (item == 10) {
+                    throw new IOException("broken item " + item);
+                }
+                processed.incrementAndGet();
+            }));
+
+        assertEquals("broken item 10", thrown.getMessage());
+        assertTrue(processed.get() < 99, "Items after the failure should be skipped");
+    }
+
+    @Test
+    public void testCancelSkipsRemainingItems() throws InterruptedException {
+        ComputePool pool = new ComputePool(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ComputePool.Job job = pool.forEach(range(100), item -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        job.cancel();
+        release.countDown();
+
+        assertThrows(CancellationException.class, job::await);
+        assertTrue(job.isCancelled());
+        assertTrue(job.getCompleted() < job.getTotal());
+    }
+
+    @Test
+    public void testMapReduceMergesPartialResults() throws IOException {
+        ComputePool pool = new ComputePool(4);
+        List<Integer> collected = pool.mapReduce(range(500), ArrayList::new,
+            List::add, (left, right) -> {
+                left.addAll(right);
+                return left;
+            });
+        assertEquals(range(500), collected);
+
+        long[] sum = pool.mapReduce(range(500), () -> new long[1],
+            (partial, item) -> partial[0] += item, (left, right) -> {
+                left[0] += right[0];
+                return left;
+            });
+        assertEquals(499L * 500 / 2, sum[0]);
+    }
+
+    @Test
+    public void testMapReduceFailurePropagates() {
+        ComputePool pool = new ComputePool(2);
+        assertThrows(IllegalStateException.class, () -> pool.mapReduce(range(50),
+            () -> new int[1], (partial, item) -> {
+                if (item == 30) {
+                    throw new IllegalStateException("bad item");
+                }
+            }, (left, right) -> left));
+    }
+
+    @Test
+    public void testInvokeBlocksCoversEveryIndexOnce() throws IOException {
+        ComputePool pool = new ComputePool(4);
+        int[] visits = new int[1000];
+        List<Integer> blockSizes = Collections.synchronizedList(new ArrayList<>());
+        pool.invokeBlocks(visits.length, 64, (from, to) -> {
+            blockSizes.add(to - from);
+            for (int i = from; i < to; i++) {
+                visits[i]++;
+            }
+        });
+
+        for (int visit : visits) {
+            assertEquals(1, visit);
+        }
+        assertEquals(16, blockSizes.size());
+        assertTrue(blockSizes.stream().allMatch(size -> size <= 64));
+
+        // A single block runs on the calling thread.
+        Thread caller = Thread.currentThread();
+        pool.invokeBlocks(10, 64, (from, to) -> assertSame(caller, Thread.currentThread()));
+        assertThrows(IllegalArgumentException.class, () -> pool.invokeBlocks(10, 0,
+            (from, to) -> { }));
+    }
+
+    @Test
+    public void testInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new ComputePool(0));
+        assertTrue(ComputePool.getInstance().getParallelism() >= 1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CsrMatrix class.
+ */
+public class CsrMatrixTest {
+
+    private static SparseVector vector(int[] ids, float[] weights) {
+        return SparseVector.of(ids, weights);
+    }
+
+    private final SparseVector[] rows = {
+        vector(new int[]{ 0, 3 }, new float[]{ 1f, 2f }),
+        null,
+        vector(new int[]{ 1 }, new float[]{ 4f }),
+        vector(new int[]{ 3, 5 }, new float[]{ 1f, 1f })
+    };
+
+    @Test
+    public void testMultiplyMatchesSparseDotProducts() {
+        CsrMatrix matrix = CsrMatrix.of(rows);
+        assertEquals(4, matrix.rowCount());
+        assertEquals(6, matrix.columnCount());
+        assertEquals(0, matrix.rowSize(1));
+
+        SparseVector query = vector(new int[]{ 0, 3, 7 }, new float[]{ 2f, 1f, 9f });
+        float[] scores = matrix.multiply(matrix.densify(query));
+        assertArrayEquals(new float[]{ 4f, 0f, 0f, 1f }, scores, 1e-6f);
+    }
+
+    @Test
+    public void testWithRowReplacesOneRow() {
+        CsrMatrix matrix = CsrMatrix.of(rows);
+        CsrMatrix changed = matrix.withRow(1, vector(new int[]{ 2, 8 }, new float[]{ 1f, 1f }));
+        assertEquals(9, changed.columnCount());
+        assertEquals(2, changed.rowSize(1));
+
+        SparseVector query = vector(new int[]{ 1, 3, 8 }, new float[]{ 1f, 1f, 1f });
+        assertArrayEquals(new float[]{ 2f, 1f, 4f, 1f },
+            changed.multiply(changed.densify(query)), 1e-6f);
+        // The original matrix is unchanged.
+        assertArrayEquals(new float[]{ 2f, 0f, 4f, 1f },
+            matrix.multiply(matrix.densify(query)), 1e-6f);
+
+        CsrMatrix emptied = changed.withRow(0, SparseVector.EMPTY);
+        assertEquals(0, emptied.rowSize(0));
+        assertArrayEquals(new float[]{ 0f, 1f, 4f, 1f },
+            emptied.multiply(emptied.densify(query)), 1e-6f);
+    }
+
+    @Test
+    public void testWithRowSharesUnchangedRows() {
+        CsrMatrix matrix = CsrMatrix.of(rows);
+        CsrMatrix changed = matrix.withRow(2, vector(new int[]{ 0 }, new float[]{ 3f }));
+        // Only the new row is stored; the other rows are read from the same arrays.
+        assertTrue(changed.sharesEntriesWith(matrix));
+        assertEquals(1, changed.changedRowCount());
+        assertEquals(0, matrix.changedRowCount());
+        assertEquals(vector(new int[]{ 3, 5 }, new float[]{ 1f, 1f }).toString(),
+            changed.row(3).toString());
+
+        CsrMatrix compacted = changed.withRow(2, vector(new int[]{ 4 }, new float[]{ 2f }))
+            .compact();
+        assertFalse(compacted.sharesEntriesWith(matrix));
+        assertEquals(0, compacted.changedRowCount());
+        SparseVector query = vector(new int[]{ 0, 4 }, new float[]{ 1f, 1f });
+        assertArrayEquals(new float[]{ 1f, 0f, 2f, 0f },
+            compacted.multiply(compacted.densify(query)), 1e-6f);
+        assertSame(compacted, compacted.compact());
+    }
+}
@@ -527,7 +527,6 @@ public class DatabaseTest {
         assertEquals(db.getFollowsTable(), db.getFollowsTable());
         assertEquals(db.getLikesTable(), db.getLikesTable());
         assertEquals(db.getReviewsTable(), db.getReviewsTable());
-        assertEquals(db.getVectorsTable(), db.getVectorsTable());
     }
 
     /**
@@ -0,0 +1,40 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ItemIndex class.
+ */
+public class ItemIndexTest {
+
+    @Test
+    public void testColumnsMapBothWays() {
+        ItemIndex index = new ItemIndex();
+        for (int id = 0; id < 20; id++) {
+            assertEquals(id, index.add(ReviewableType.SONG, Integer.toString(id)));
+        }
+        assertEquals(20, index.add(ReviewableType.ALBUM, "3"));
+
+        assertEquals(21, index.size());
+        assertEquals(3, index.column(ReviewableType.SONG, "3"));
+        assertEquals(20, index.column(ReviewableType.ALBUM, "3"));
+        assertEquals(-1, index.column(ReviewableType.ARTIST, "3"));
+        assertEquals(-1, index.column(null, "3"));
+        assertEquals(ReviewableType.ALBUM, index.typeAt(20));
+        assertEquals("17", index.idAt(17));
+    }
+
+    @Test
+    public void testAddingAnItemTwiceKeepsItsColumn() {
+        ItemIndex index = new ItemIndex();
+        index.add(ReviewableType.ARTIST, "1");
+        assertEquals(0, index.add(ReviewableType.ARTIST, "1"));
+        assertEquals(1, index.size());
+        assertThrows(IllegalArgumentException.class, () -> index.idAt(1));
+        assertThrows(IllegalArgumentException.class, () -> index.add(null, "1"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ItemNeighbours class.
+ */
+public class ItemNeighboursTest {
+
+    private static float cosine(RatingMatrix matrix, int itemA, int itemB) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int user = 0; user < matrix.getUserCount(); user++) {
+            int a = matrix.get(user, itemA);
+            int b = matrix.get(user, itemB);
+            dot += a * b;
+            normA += a * a;
+            normB += b * b;
+        }
+        return normA == 0 || normB == 0 ? 0 : (float) (dot / Math.sqrt(normA * normB));
+    }
+
+    @Test
+    public void testNeighboursAreMostSimilarItemsFirst() {
+        RatingMatrix matrix = new RatingMatrix(3, 4);
+        matrix.set(0, 0, 5);
+        matrix.set(0, 1, 5);
+        matrix.set(1, 0, 4);
+        matrix.set(1, 1, 4);
+        matrix.set(1, 2, 1);
+        matrix.set(2, 3, 3);
+
+        ItemNeighbours neighbours = ItemNeighbours.build(matrix, 5);
+
+        assertEquals(2, neighbours.neighbourCount(0));
+        assertEquals(1, neighbours.neighbourAt(0, 0));
+        assertEquals(1f, neighbours.similarityAt(0, 0), 1e-6f);
+        assertEquals(2, neighbours.neighbourAt(0, 1));
+        assertEquals(cosine(matrix, 0, 2), neighbours.similarityAt(0, 1), 1e-6f);
+        // Item 3 shares no rater with any other item.
+        assertEquals(0, neighbours.neighbourCount(3));
+    }
+
+    @Test
+    public void testListsAreCutToNeighbourCountWithTiesByLowerItem() {
+        RatingMatrix matrix = new RatingMatrix(1, 6);
+        for (int item = 0; item < 6; item++) {
+            matrix.set(0, item, 2);
+        }
+
+        ItemNeighbours neighbours = ItemNeighbours.build(matrix, 2);
+
+        assertEquals(2, neighbours.neighbourCount(3));
+        assertEquals(0, neighbours.neighbourAt(3, 0));
+        assertEquals(1, neighbours.neighbourAt(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> ItemNeighbours.build(matrix, 0));
+    }
+
+    @Test
+    public void testMatchesBruteForceOnRandomMatrix() {
+        Random random = new Random(3);
+        RatingMatrix matrix = new RatingMatrix(60, 40);
+        for (int i = 0; i < 500; i++) {
+            matrix.set(random.nextInt(60), random.nextInt(40), 1 + random.nextInt(5));
+        }
+
+        ItemNeighbours neighbours = ItemNeighbours.build(matrix, 40);
+
+        for (int item = 0; item < 40; item++) {
+            int expectedCount = 0;
+            for (int other = 0; other < 40; other++) {
+                if (other != item && cosine(matrix, item, other) > 0) {
+                    expectedCount++;
+                }
+            }
+            assertEquals(expectedCount, neighbours.neighbourCount(item));
+            for (int k = 0; k < neighbours.neighbourCount(item); k++) {
+                int other = neighbours.neighbourAt(item, k);
+                assertEquals(cosine(matrix, item, other), neighbours.similarityAt(item, k), 1e-5f);
+                if (k > 0) {
+                    assertTrue(neighbours.similarityAt(item, k - 1)
+                        >= neighbours.similarityAt(item, k));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPredictWeightsRatingsOfRatedItems() {
+        RatingMatrix matrix = new RatingMatrix(3, 3);
+        matrix.set(0, 0, 5);
+        matrix.set(0, 1, 5);
+        matrix.set(1, 1, 2);
+        matrix.set(1, 2, 2);
+        matrix.set(2, 0, 4);
+        ItemNeighbours neighbours = ItemNeighbours.build(matrix, 5);
+
+        float[] predictions = neighbours.predict(matrix, 2);
+
+        // The rated item ranks below every prediction.
+        assertEquals(Float.NEGATIVE_INFINITY, predictions[0]);
+        assertEquals(4f, predictions[1], 1e-6f);
+        // Item 2 does not neighbour item 0, the only item user 2 rated.
+        assertEquals(0f, predictions[2]);
+    }
+}
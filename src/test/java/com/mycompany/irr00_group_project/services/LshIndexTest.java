@@ -0,0 +1,128 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the LshIndex class.
+ */
+public class LshIndexTest {
+
+    private static SparseVector randomVector(Random random, int terms, int vocabulary) {
+        int[] ids = random.ints(0, vocabulary).distinct().limit(terms).toArray();
+        float[] weights = new float[ids.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextFloat() + 0.01f;
+        }
+        return SparseVector.of(ids, weights);
+    }
+
+    private static LshIndex randomIndex(LshIndex index, Random random, int items) {
+        for (int id = 0; id < items; id++) {
+            index.put(id, randomVector(random, 20, 500));
+        }
+        return index;
+    }
+
+    @Test
+    public void testExactQueryRanksByCosine() {
+        LshIndex index = new LshIndex(4, 6, 1, 1);
+        SparseVector query = SparseVector.of(new int[]{ 1, 2 }, new float[]{ 1f, 1f });
+        index.put(0, SparseVector.of(new int[]{ 3 }, new float[]{ 1f }));
+        index.put(1, SparseVector.of(new int[]{ 1 }, new float[]{ 1f }));
+        index.put(2, SparseVector.of(new int[]{ 1, 2 }, new float[]{ 2f, 2f }));
+        index.put(3, SparseVector.of(new int[]{ 2 }, new float[]{ 5f }));
+
+        // Orthogonal item 0 scores 0, items 1 and 3 tie and keep ascending id order.
+        assertArrayEquals(new int[]{ 2, 1, 3, 0 }, index.exactQuery(query, 10, null));
+        assertArrayEquals(new int[]{ 2, 3 }, index.exactQuery(query, 2, id -> id == 1));
+    }
+
+    @Test
+    public void testQueryFallsBackToExactWhenBucketsAreSparse() {
+        LshIndex index = randomIndex(new LshIndex(1, 30, 0, 7), new Random(3), 50);
+        SparseVector query = randomVector(new Random(4), 20, 500);
+        assertArrayEquals(index.exactQuery(query, 10, null), index.query(query, 10, null));
+    }
+
+    @Test
+    public void testFindsNearDuplicates() {
+        Random random = new Random(42);
+        LshIndex index = randomIndex(new LshIndex(8, 8, 2, 11), random, 2000);
+        SparseVector target = randomVector(random, 20, 500);
+        index.put(5000, target);
+
+        SparseVector nearTarget = target.plus(SparseVector.of(new int[]{ 499 }, new float[]{ 0.05f }));
+        assertEquals(5000, index.query(nearTarget, 1, null)[0]);
+        assertEquals(1.0, index.measureRecall(nearTarget, 1, null));
+    }
+
+    @Test
+    public void testRecallOnClusteredItems() {
+        Random random = new Random(9);
+        LshIndex index = new LshIndex(8, 6, 2, 5);
+        SparseVector[] centres = new SparseVector[10];
+        for (int c = 0; c < centres.length; c++) {
+            centres[c] = randomVector(random, 30, 1000);
+        }
+        for (int id = 0; id < 1000; id++) {
+            SparseVector noise = randomVector(random, 5, 1000).scale(0.2f);
+            index.put(id, centres[id % centres.length].plus(noise));
+        }
+        for (SparseVector centre : centres) {
+            assertTrue(index.measureRecall(centre, 5, null) >= 0.8);
+        }
+    }
+
+    @Test
+    public void testPutReplacesAndRemoves() {
+        LshIndex index = new LshIndex(4, 4, 0, 1);
+        SparseVector vector = SparseVector.of(new int[]{ 1 }, new float[]{ 1f });
+        index.put(1, vector);
+        index.put(1, SparseVector.of(new int[]{ 2 }, new float[]{ 1f }));
+        assertEquals(1, index.size());
+        assertArrayEquals(new int[]{ 1 }, index.exactQuery(vector, 5, null));
+        index.put(1, SparseVector.EMPTY);
+        assertEquals(0, index.size());
+        assertArrayEquals(new int[0], index.exactQuery(vector, 5, null));
+        assertThrows(IllegalArgumentException.class, () -> new LshIndex(1, 31, 0, 1));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        LshIndex index = randomIndex(new LshIndex(4, 4, 1, 3), new Random(5), 100);
+        SparseVector query = randomVector(new Random(6), 20, 500);
+        LshIndex copy = index.copy();
+        assertArrayEquals(index.query(query, 5, null), copy.query(query, 5, null));
+
+        copy.remove(index.query(query, 1, null)[0]);
+        assertEquals(100, index.size());
+        assertEquals(99, copy.size());
+    }
+
+    @Test
+    public void testWithItemSharesBuckets() {
+        LshIndex index = randomIndex(new LshIndex(4, 4, 1, 3), new Random(7), 100);
+        SparseVector query = randomVector(new Random(8), 20, 500);
+        int nearest = index.query(query, 1, null)[0];
+
+        LshIndex changed = index.withItem(nearest, SparseVector.EMPTY).withItem(500, query);
+        assertTrue(changed.sharesBucketsWith(index));
+        assertEquals(2, changed.changedItemCount());
+        assertEquals(100, changed.size());
+        assertEquals(500, changed.query(query, 1, null)[0]);
+        assertArrayEquals(changed.exactQuery(query, 10, null),
+            changed.compact().exactQuery(query, 10, null));
+        // The shared index answers as before and can no longer be changed in place.
+        assertEquals(nearest, index.query(query, 1, null)[0]);
+        assertThrows(IllegalStateException.class, () -> index.remove(nearest));
+
+        LshIndex compacted = changed.compact();
+        assertFalse(compacted.sharesBucketsWith(index));
+        assertEquals(0, compacted.changedItemCount());
+        assertEquals(500, compacted.query(query, 1, null)[0]);
+    }
+}
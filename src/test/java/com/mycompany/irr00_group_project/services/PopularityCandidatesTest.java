@@ -0,0 +1,108 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PopularityCandidates and SocialCandidates generators.
+ * Verifies that both rank items by likes and leave out the items the user reviewed.
+ */
+public class PopularityCandidatesTest {
+    private static final Path TEST_DB_DIR =
+        Paths.get("src/test/resources/temporary-test-files/popularity-candidates");
+
+    private Database db;
+
+    /**
+     * Creates a database with three songs: song 0 liked by users 1 and 2, song 1 liked by
+     * user 3 and song 2 disliked by everyone.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        deleteDirectoryRecursively(TEST_DB_DIR);
+        Files.createDirectories(TEST_DB_DIR);
+        db = new Database(TEST_DB_DIR.toString());
+        db.getReviewableTable(ReviewableType.ARTIST).addLine(new String[]{"Artist", "img"});
+        for (String title : List.of("SongA", "SongB", "SongC")) {
+            db.getReviewableTable(ReviewableType.SONG)
+                .addLine(new String[]{title, "0", "", "img"});
+        }
+        addReview("1", "0", "5");
+        addReview("2", "0", "4");
+        addReview("3", "1", "5");
+        addReview("1", "2", "1");
+        addReview("2", "2", "2");
+        addReview("3", "2", "1");
+    }
+
+    /**
+     * Deletes the test database.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        deleteDirectoryRecursively(TEST_DB_DIR);
+    }
+
+    @Test
+    public void testMostLikedFirstWithoutOwnReviews() throws IOException {
+        PopularityCandidates popularity = new PopularityCandidates(db);
+        assertEquals(List.of("0", "1"), ids(popularity.generate("4", 10)));
+        assertEquals(List.of("1"), ids(popularity.generate("1", 10)));
+        assertEquals(List.of("0"), ids(popularity.generate("4", 1)));
+    }
+
+    @Test
+    public void testNewReviewsChangeTheRanking() throws IOException {
+        PopularityCandidates popularity = new PopularityCandidates(db);
+        assertEquals(List.of("0", "1"), ids(popularity.generate("4", 10)));
+        addReview("5", "1", "5");
+        addReview("6", "1", "5");
+        assertEquals(List.of("1", "0"), ids(popularity.generate("4", 10)));
+    }
+
+    @Test
+    public void testSocialSuggestsLikesOfFollowedUsers() throws IOException {
+        SocialCandidates social = new SocialCandidates(db);
+        assertTrue(social.generate("4", 10).isEmpty());
+
+        db.getFollowsTable().addLine(new String[]{"4", "3"});
+        db.getFollowsTable().addLine(new String[]{"4", "3"});
+        db.getFollowsTable().addLine(new String[]{"4", "1"});
+        assertEquals(List.of("1", "0"), ids(social.generate("4", 10)));
+
+        addReview("4", "1", "2");
+        assertEquals(List.of("0"), ids(social.generate("4", 10)));
+    }
+
+    private void addReview(String userId, String songId, String rating) throws IOException {
+        db.getReviewsTable().addLine(new String[]{userId, "Review", "2025-01-01T00:00:00",
+            songId, rating, "SONG"});
+    }
+
+    private static List<String> ids(List<Reviewable> reviewables) {
+        return reviewables.stream().map(Reviewable::getId).toList();
+    }
+
+    private static void deleteDirectoryRecursively(Path dir) throws IOException {
+        if (Files.exists(dir)) {
+            try (var paths = Files.walk(dir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
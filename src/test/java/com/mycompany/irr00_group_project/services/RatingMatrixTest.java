@@ -0,0 +1,121 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RatingMatrix class.
+ */
+public class RatingMatrixTest {
+
+    @Test
+    public void testSetKeepsRowsSorted() {
+        RatingMatrix matrix = new RatingMatrix(2, 10);
+        matrix.set(0, 7, 3);
+        matrix.set(0, 2, 5);
+        matrix.set(0, 4, 1);
+
+        assertEquals(3, matrix.rowSize(0));
+        assertEquals(2, matrix.itemAt(0, 0));
+        assertEquals(4, matrix.itemAt(0, 1));
+        assertEquals(7, matrix.itemAt(0, 2));
+        assertEquals(5, matrix.ratingAt(0, 0));
+        assertEquals(0, matrix.rowSize(1));
+        assertEquals(3, matrix.getRatingCount());
+        assertEquals(1, matrix.columnSize(7));
+        assertEquals(0, matrix.columnSize(0));
+        assertEquals(1, matrix.lowerBound(0, 3));
+        assertEquals(1, matrix.lowerBound(0, 4));
+        assertEquals(3, matrix.lowerBound(0, 8));
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        RatingMatrix matrix = new RatingMatrix(1, 5);
+        matrix.set(0, 1, 2);
+        matrix.set(0, 1, 4);
+        assertEquals(4, matrix.get(0, 1));
+        assertEquals(1, matrix.getRatingCount());
+
+        matrix.set(0, 1, 0);
+        assertEquals(0, matrix.get(0, 1));
+        assertEquals(0, matrix.rowSize(0));
+        assertEquals(0, matrix.getRatingCount());
+    }
+
+    @Test
+    public void testManyRatingsInOneRow() {
+        RatingMatrix matrix = new RatingMatrix(1, 1000);
+        for (int item = 999; item >= 0; item -= 3) {
+            matrix.set(0, item, item % 5 + 1);
+        }
+        assertEquals(334, matrix.rowSize(0));
+        for (int k = 1; k < matrix.rowSize(0); k++) {
+            assertTrue(matrix.itemAt(0, k - 1) < matrix.itemAt(0, k));
+        }
+        assertEquals(999 % 5 + 1, matrix.get(0, 999));
+    }
+
+    @Test
+    public void testEnsureSizeKeepsRatings() {
+        RatingMatrix matrix = new RatingMatrix(1, 2);
+        matrix.set(0, 1, 5);
+        matrix.ensureSize(50, 20);
+        assertEquals(50, matrix.getUserCount());
+        assertEquals(20, matrix.getItemCount());
+        assertEquals(5, matrix.get(0, 1));
+        matrix.set(49, 19, 2);
+        assertEquals(2, matrix.get(49, 19));
+    }
+
+    @Test
+    public void testSimilarityOverCommonItems() {
+        RatingMatrix matrix = new RatingMatrix(3, 6);
+        matrix.set(0, 0, 5);
+        matrix.set(0, 2, 3);
+        matrix.set(0, 5, 1);
+        matrix.set(1, 2, 3);
+        matrix.set(1, 5, 1);
+        matrix.set(1, 4, 5);
+        matrix.set(2, 1, 4);
+
+        // Only items 2 and 5 are shared, with identical ratings.
+        assertEquals(1f, matrix.similarity(0, 1), 1e-6f);
+        assertEquals(matrix.similarity(0, 1), matrix.similarity(1, 0), 1e-6f);
+        assertEquals(0f, matrix.similarity(0, 2), 1e-6f);
+    }
+
+    @Test
+    public void testOutOfRange() {
+        RatingMatrix matrix = new RatingMatrix(2, 2);
+        assertThrows(IllegalArgumentException.class, () -> matrix.set(2, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> matrix.get(0, -1));
+        assertThrows(IllegalArgumentException.class, () -> matrix.set(0, 0, 200));
+        assertThrows(IllegalArgumentException.class, () -> new RatingMatrix(-1, 2));
+    }
+
+    @Test
+    public void testCopyAndTranspose() {
+        RatingMatrix matrix = new RatingMatrix(3, 4);
+        matrix.set(0, 3, 2);
+        matrix.set(2, 3, 5);
+        matrix.set(1, 0, 1);
+
+        RatingMatrix copy = matrix.copy();
+        matrix.set(0, 3, 0);
+        assertEquals(2, copy.get(0, 3));
+        assertEquals(3, copy.getRatingCount());
+
+        RatingMatrix transposed = copy.transpose();
+        assertEquals(4, transposed.getUserCount());
+        assertEquals(3, transposed.getItemCount());
+        assertEquals(2, transposed.rowSize(3));
+        assertEquals(0, transposed.itemAt(3, 0));
+        assertEquals(2, transposed.itemAt(3, 1));
+        assertEquals(5, transposed.get(3, 2));
+        assertEquals(1, transposed.get(0, 1));
+        assertEquals(3, transposed.getRatingCount());
+        assertEquals(1, transposed.columnSize(1));
+    }
+}
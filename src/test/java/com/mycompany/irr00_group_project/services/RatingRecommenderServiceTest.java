@@ -134,6 +134,126 @@ public class RatingRecommenderServiceTest {
         }
     }
 
+    @Test
+    public void testReviewAddedAfterConstructionIsUsed() throws IOException {
+        // User 1 now shares SongA with user 0, whose other song becomes the best match.
+        db.getReviewsTable().addLine(
+            new String[]{"1", "Nice", "2025-01-02T00:00:00", "1", "5", "SONG"});
+        List<Reviewable> rec = recommender.getRecommendations("1", 1);
+        assertEquals("2", rec.get(0).getId());
+    }
+
+    @Test
+    public void testReviewDeletedAfterConstructionIsRemoved() throws IOException {
+        db.getReviewsTable().addLine(
+            new String[]{"1", "Nice", "2025-01-02T00:00:00", "1", "5", "SONG"});
+        assertEquals("2", recommender.getRecommendations("1", 1).get(0).getId());
+
+        db.getReviewsTable().deleteLine("3");
+        assertEquals("1", recommender.getRecommendations("1", 1).get(0).getId());
+    }
+
+    @Test
+    public void testSavingReviewDoesNotWaitForRequests() throws Exception {
+        Thread writer = new Thread(() -> {
+            try {
+                db.getReviewsTable().addLine(
+                    new String[]{"1", "Nice", "2025-01-02T00:00:00", "1", "5", "SONG"});
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // Holding the service's lock stands in for a request being scored.
+        synchronized (recommender) {
+            writer.start();
+            writer.join(5000);
+            assertFalse(writer.isAlive(), "saving the review waited for the service");
+        }
+        assertEquals("2", recommender.getRecommendations("1", 1).get(0).getId());
+    }
+
+    @Test
+    public void testFollowedUsersWeighMore() throws IOException {
+        db.addUser(new User("0", "Carol", "Carol@example.com"), "1", "1");
+        // Users 1 and 2 are equally similar to user 0 and disagree on songs 3 and 4.
+        String[][] reviews = {
+            {"1", "5", "1"}, {"1", "4", "3"}, {"1", "2", "4"},
+            {"2", "5", "1"}, {"2", "2", "3"}, {"2", "4", "4"}
+        };
+        for (String[] review : reviews) {
+            db.getReviewsTable().addLine(new String[]{
+                review[0], "Ok", "2025-01-02T00:00:00", review[2], review[1], "SONG"});
+        }
+        List<Reviewable> rec = recommender.getRecommendations("0", 2);
+        assertEquals("3", rec.get(0).getId());
+        assertEquals("4", rec.get(1).getId());
+
+        db.getFollowsTable().addLine(new String[]{"0", "2"});
+        rec = recommender.getRecommendations("0", 2);
+        assertEquals("4", rec.get(0).getId());
+        assertEquals("3", rec.get(1).getId());
+    }
+
+    @Test
+    public void testNewUserGetsRecommendations() throws IOException {
+        db.addUser(new User("0", "Carol", "Carol@example.com"), "1", "1");
+        List<Reviewable> rec = recommender.getRecommendations("2", 2);
+        assertEquals(2, rec.size());
+    }
+
+    @Test
+    public void testUserWithoutNeighboursGetsNoRatedItem() throws IOException {
+        // No one else rated song 3, so user 1 has no similar users.
+        db.getReviewsTable().addLine(
+            new String[]{"1", "Nice", "2025-01-02T00:00:00", "3", "5", "SONG"});
+        List<Reviewable> rec = recommender.getRecommendations("1", 100);
+        assertFalse(rec.isEmpty());
+        for (Reviewable reviewable : rec) {
+            assertFalse(reviewable.getType() == ReviewableType.SONG
+                && reviewable.getId().equals("3"), "recommended a rated song");
+        }
+    }
+
+    @Test
+    public void testItemBasedModeUsesNeighboursOfRatedItems() throws IOException {
+        recommender.setMode(RatingRecommenderService.Mode.ITEM_BASED);
+        assertEquals("1", recommender.getRecommendations("1", 1).get(0).getId());
+
+        // SongA and SongB were rated together, so rating SongA recommends SongB.
+        db.getReviewsTable().addLine(
+            new String[]{"1", "Nice", "2025-01-02T00:00:00", "1", "5", "SONG"});
+        assertEquals("2", recommender.getRecommendations("1", 1).get(0).getId());
+        assertThrows(IllegalArgumentException.class, () -> recommender.setNeighbourCount(0));
+    }
+
+    @Test
+    public void testLatentFactorModeSkipsRatedItems() throws IOException {
+        recommender.setMode(RatingRecommenderService.Mode.LATENT_FACTOR);
+        List<Reviewable> rec = recommender.getRecommendations("0", 3);
+        assertEquals(3, rec.size());
+        for (Reviewable reviewable : rec) {
+            assertNotEquals("1", reviewable.getId());
+            assertNotEquals("2", reviewable.getId());
+        }
+        // User 1 rated nothing, so the user-based scores are used instead.
+        assertEquals("1", recommender.getRecommendations("1", 1).get(0).getId());
+    }
+
+    @Test
+    public void testRetrainingOnlyRunsAfterRatingChanges() throws IOException {
+        recommender.retrainFactorModel();
+        AlsModel model = recommender.getFactorModel();
+        assertNotNull(model);
+        recommender.retrainFactorModel();
+        assertSame(model, recommender.getFactorModel());
+
+        db.getReviewsTable().addLine(
+            new String[]{"1", "Nice", "2025-01-02T00:00:00", "1", "5", "SONG"});
+        recommender.retrainFactorModel();
+        assertNotSame(model, recommender.getFactorModel());
+        assertTrue(recommender.getFactorModel().hasUserFactors(1));
+    }
+
     /**
      * Deletes all files in the specified directory.
      * This method is used to clean up the test directory after each test.
@@ -0,0 +1,101 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.User;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.services.RecommendationStore.Entry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RecommendationBatch class.
+ * Verifies that the batch stores the recommendations of every user.
+ */
+public class RecommendationBatchTest {
+    private static final Path TEST_DB_DIR =
+        Paths.get("src/test/resources/temporary-test-files/recommendation-batch");
+
+    private static final String ALICE = "0";
+    private static final String BOB = "1";
+
+    private Database db;
+
+    /**
+     * Creates a database where Bob liked a song Alice has not rated yet.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        deleteDirectoryRecursively(TEST_DB_DIR);
+        Files.createDirectories(TEST_DB_DIR);
+        db = new Database(TEST_DB_DIR.toString());
+        db.addUser(new User("0", "Alice", "Alice@example.com"), "1", "1");
+        db.addUser(new User("0", "Bob", "Bob@example.com"), "1", "1");
+
+        db.getReviewableTable(ReviewableType.ARTIST).addLine(new String[]{"Artist", "img"});
+        db.getReviewableTable(ReviewableType.SONG)
+            .addLine(new String[]{"SongA", "0", "", "imgA"});
+        db.getReviewableTable(ReviewableType.SONG)
+            .addLine(new String[]{"SongB", "0", "", "imgB"});
+        db.getReviewsTable().addLine(new String[]{ALICE, "Catchy guitar riff",
+            "2025-01-01T00:00:00", "0", "5", "SONG"});
+        db.getReviewsTable().addLine(new String[]{BOB, "Catchy guitar riff",
+            "2025-01-01T00:00:00", "0", "5", "SONG"});
+        db.getReviewsTable().addLine(new String[]{BOB, "Another catchy riff",
+            "2025-01-01T00:00:00", "1", "5", "SONG"});
+    }
+
+    /**
+     * Deletes the test database.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        deleteDirectoryRecursively(TEST_DB_DIR);
+    }
+
+    @Test
+    public void testRunStoresRecommendationsOfEveryUser() throws IOException {
+        assertEquals(2, RecommendationBatch.run(db));
+
+        List<Entry> entries = db.getRecommendationStore().getEntries(ALICE);
+        assertFalse(entries.isEmpty());
+        Set<String> items = new HashSet<>();
+        for (Entry entry : entries) {
+            assertTrue(items.add(entry.type() + "|" + entry.id()), "duplicate " + entry);
+        }
+        assertFalse(items.contains(ReviewableType.SONG + "|0"), "recommended a rated song");
+        assertEquals(new Entry(RecommendationStore.COMMENT_SOURCE, ReviewableType.SONG, "1"),
+            entries.get(0));
+        assertEquals("SongB", db.getRecommendationStore().getRecommendations(ALICE)
+            .get(0).getName());
+    }
+
+    @Test
+    public void testComputeAllListsEveryUser() throws IOException {
+        Map<String, List<Entry>> all = RecommendationBatch.computeAll(db);
+        assertEquals(List.of(ALICE, BOB), List.copyOf(all.keySet()));
+        assertTrue(db.getRecommendationStore().getEntries(ALICE).isEmpty());
+    }
+
+    private static void deleteDirectoryRecursively(Path dir) throws IOException {
+        if (Files.exists(dir)) {
+            try (var paths = Files.walk(dir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
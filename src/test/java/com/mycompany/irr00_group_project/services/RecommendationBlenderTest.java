@@ -0,0 +1,132 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.targets.Artist;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RecommendationBlender class.
+ * Verifies the weighted rank fusion and that late or failing generators are left out.
+ */
+public class RecommendationBlenderTest {
+    private static final Artist A = new Artist("1", "A", "a.png");
+    private static final Artist B = new Artist("2", "B", "b.png");
+    private static final Artist C = new Artist("3", "C", "c.png");
+
+    private RecommendationBlender blender;
+    private CountDownLatch release;
+
+    /**
+     * Creates a blender without generators.
+     */
+    @BeforeEach
+    public void setUp() {
+        blender = new RecommendationBlender();
+        release = new CountDownLatch(1);
+    }
+
+    /**
+     * Lets blocked generators finish and stops the blender.
+     */
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        blender.shutdown();
+    }
+
+    @Test
+    public void testItemsOnSeveralListsRankFirst() {
+        blender.addGenerator("first", (userId, n) -> List.of(A, B), 1.0);
+        blender.addGenerator("second", (userId, n) -> List.of(C, B), 1.0);
+
+        assertEquals(List.of(B, A, C), blender.getRecommendations("1", 10));
+        assertEquals(List.of(B), blender.getRecommendations("1", 1));
+    }
+
+    @Test
+    public void testWeightsOrderTheLists() {
+        blender.addGenerator("light", (userId, n) -> List.of(A), 0.5);
+        blender.addGenerator("heavy", (userId, n) -> List.of(B), 2.0);
+
+        assertEquals(List.of(B, A), blender.getRecommendations("1", 10));
+    }
+
+    @Test
+    public void testLateGeneratorIsDropped() {
+        blender.setLatencyBudget(100, TimeUnit.MILLISECONDS);
+        blender.addGenerator("fast", (userId, n) -> List.of(A), 1.0);
+        blender.addGenerator("slow", (userId, n) -> {
+            awaitRelease();
+            return List.of(B);
+        }, 5.0);
+
+        long start = System.nanoTime();
+        List<Reviewable> recommendations = blender.getRecommendations("1", 10);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of(A), recommendations);
+        assertTrue(elapsedMillis < 2000, "took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void testFailingGeneratorIsDropped() {
+        blender.addGenerator("broken", (userId, n) -> {
+            throw new IOException("database unavailable");
+        }, 1.0);
+        blender.addGenerator("working", (userId, n) -> List.of(C), 1.0);
+
+        assertEquals(List.of(C), blender.getRecommendations("1", 10));
+    }
+
+    @Test
+    public void testGeneratorsRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        for (Artist artist : List.of(A, B)) {
+            blender.addGenerator(artist.getName(), (userId, n) -> {
+                bothStarted.countDown();
+                // Run one after another, neither generator would see the other start.
+                return awaitQuietly(bothStarted) ? List.of(artist) : List.of();
+            }, 1.0);
+        }
+
+        assertEquals(2, blender.getRecommendations("1", 10).size());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+            () -> blender.addGenerator("none", null, 1.0));
+        assertThrows(IllegalArgumentException.class,
+            () -> blender.addGenerator("zero", (userId, n) -> List.of(), 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> blender.setLatencyBudget(0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+            () -> blender.getRecommendations(null, 10));
+    }
+
+    private void awaitRelease() throws IOException {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) throws IOException {
+        try {
+            return latch.await(500, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
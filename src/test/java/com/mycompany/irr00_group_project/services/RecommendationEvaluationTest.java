@@ -0,0 +1,141 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.User;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.services.RecommendationEvaluation.Result;
+import com.mycompany.irr00_group_project.services.RecommendationEvaluation.Split;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RecommendationEvaluation class.
+ * Verifies the held-out split and the quality metrics on engines with known answers.
+ */
+public class RecommendationEvaluationTest {
+    private static final Path TEST_DIR =
+        Paths.get("src/test/resources/temporary-test-files/recommendation-evaluation");
+    private static final double DELTA = 1e-9;
+
+    private Database db;
+
+    /**
+     * Creates a database where user 0 reviewed songs 0, 1 and 2 and user 1 only song 0.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        deleteDirectoryRecursively(TEST_DIR);
+        Files.createDirectories(TEST_DIR.resolve("source"));
+        db = new Database(TEST_DIR.resolve("source").toString());
+        db.addUser(new User("0", "Alice", "Alice@example.com"), "1", "1");
+        db.addUser(new User("0", "Bob", "Bob@example.com"), "1", "1");
+        db.getReviewableTable(ReviewableType.ARTIST).addLine(new String[]{"Artist", "img"});
+        for (String title : List.of("SongA", "SongB", "SongC", "SongD")) {
+            db.getReviewableTable(ReviewableType.SONG)
+                .addLine(new String[]{title, "0", "", "img"});
+        }
+        addReview("0", "2", "5", "2025-03-01T00:00:00");
+        addReview("0", "0", "4", "2025-01-01T00:00:00");
+        addReview("0", "1", "5", "2025-02-01T00:00:00");
+        addReview("1", "0", "5", "2025-01-01T00:00:00");
+    }
+
+    /**
+     * Deletes the test databases.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        deleteDirectoryRecursively(TEST_DIR);
+    }
+
+    @Test
+    public void testSplitHoldsOutLatestReviews() throws IOException {
+        Split split = RecommendationEvaluation.split(db.getReviewsTable(), 0.5);
+
+        assertEquals(Map.of("0", Set.of("SONG|2", "SONG|1")), split.heldOut());
+        assertEquals(2, split.training().size());
+        assertEquals("0", split.training().get(0)[0]);
+        assertEquals("0", split.training().get(0)[3]);
+        assertEquals("1", split.training().get(1)[0]);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> RecommendationEvaluation.split(db.getReviewsTable(), 1));
+    }
+
+    @Test
+    public void testDislikedHeldOutItemsAreNotRelevant() throws IOException {
+        addReview("1", "3", "1", "2025-04-01T00:00:00");
+        Split split = RecommendationEvaluation.split(db.getReviewsTable(), 0.5);
+        assertFalse(split.heldOut().containsKey("1"));
+    }
+
+    @Test
+    public void testEvaluateScoresRankedHits() throws IOException {
+        Split split = RecommendationEvaluation.split(db.getReviewsTable(), 0.5);
+
+        Result perfect = RecommendationEvaluation.evaluate("perfect",
+            (userId, n) -> db.getReviewables(ReviewableType.SONG, List.of("1", "2")), split, 2);
+        assertEquals(1, perfect.users());
+        assertEquals(1.0, perfect.precision(), DELTA);
+        assertEquals(1.0, perfect.recall(), DELTA);
+        assertEquals(1.0, perfect.ndcg(), DELTA);
+        assertTrue(perfect.p99Millis() >= perfect.p50Millis());
+
+        Result second = RecommendationEvaluation.evaluate("second",
+            (userId, n) -> db.getReviewables(ReviewableType.SONG, List.of("3", "1")), split, 2);
+        assertEquals(0.5, second.precision(), DELTA);
+        assertEquals(0.5, second.recall(), DELTA);
+        double ideal = 1 + 1 / (Math.log(3) / Math.log(2));
+        assertEquals((1 / (Math.log(3) / Math.log(2))) / ideal, second.ndcg(), DELTA);
+
+        Result empty = RecommendationEvaluation.evaluate("empty", (userId, n) -> List.of(),
+            split, 2);
+        assertEquals(0.0, empty.ndcg(), DELTA);
+    }
+
+    @Test
+    public void testCompareBuildsEnginesOnTrainingReviews() throws IOException {
+        Split split = RecommendationEvaluation.split(db.getReviewsTable(), 0.5);
+        Database training = RecommendationEvaluation.createTrainingDatabase(
+            TEST_DIR.resolve("source"), TEST_DIR.resolve("training"), split);
+        assertEquals(2, training.getReviewsTable().getAllLines().size());
+        assertEquals(2, training.getUsersTable().getAllLines().size());
+
+        List<Result> results = RecommendationEvaluation.compare(training, split,
+            RecommendationEvaluation.defaultEngines(), 2);
+        assertEquals(List.of("tf-idf", "user-cf", "social", "popularity", "blender"),
+            results.stream().map(Result::engine).toList());
+        for (Result result : results) {
+            assertEquals(1, result.users());
+            assertTrue(result.peakHeapBytes() > 0);
+        }
+    }
+
+    private void addReview(String userId, String songId, String rating, String createdAt)
+        throws IOException {
+        db.getReviewsTable().addLine(new String[]{userId, "Review", createdAt, songId, rating,
+            "SONG"});
+    }
+
+    private static void deleteDirectoryRecursively(Path dir) throws IOException {
+        if (Files.exists(dir)) {
+            try (var paths = Files.walk(dir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.reviewables.Reviewable;
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.services.RecommendationStore.Entry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RecommendationStore class.
+ * Verifies that stored recommendations are read back per user, in rank order, and that
+ * the index follows the recommendations table.
+ */
+public class RecommendationStoreTest {
+    private static final Path TEST_DB_DIR =
+        Paths.get("src/test/resources/temporary-test-files/recommendation-store");
+
+    private Database db;
+    private RecommendationStore store;
+
+    /**
+     * Creates a database with two songs.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        deleteDirectoryRecursively(TEST_DB_DIR);
+        Files.createDirectories(TEST_DB_DIR);
+        db = new Database(TEST_DB_DIR.toString());
+        db.getReviewableTable(ReviewableType.ARTIST).addLine(new String[]{"Artist", "img"});
+        db.getReviewableTable(ReviewableType.SONG)
+            .addLine(new String[]{"SongA", "0", "", "imgA"});
+        db.getReviewableTable(ReviewableType.SONG)
+            .addLine(new String[]{"SongB", "0", "", "imgB"});
+        store = db.getRecommendationStore();
+    }
+
+    /**
+     * Deletes the test database.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        deleteDirectoryRecursively(TEST_DB_DIR);
+    }
+
+    @Test
+    public void testReplaceAllStoresEntriesInRankOrder() throws IOException {
+        Map<String, List<Entry>> all = new LinkedHashMap<>();
+        all.put("1", List.of(
+            new Entry(RecommendationStore.COMMENT_SOURCE, ReviewableType.SONG, "1"),
+            new Entry(RecommendationStore.RATING_SOURCE, ReviewableType.SONG, "0")));
+        all.put("2", List.of(
+            new Entry(RecommendationStore.RATING_SOURCE, ReviewableType.SONG, "0")));
+        store.replaceAll(all);
+
+        assertEquals(all.get("1"), store.getEntries("1"));
+        assertEquals(all.get("2"), store.getEntries("2"));
+        assertTrue(store.getEntries("3").isEmpty());
+
+        List<Reviewable> recommendations = store.getRecommendations("1");
+        assertEquals(2, recommendations.size());
+        assertEquals("1", recommendations.get(0).getId());
+        assertEquals("0", recommendations.get(1).getId());
+    }
+
+    @Test
+    public void testReplaceAllDropsPreviousEntries() throws IOException {
+        store.replaceAll(Map.of("1", List.of(
+            new Entry(RecommendationStore.RATING_SOURCE, ReviewableType.SONG, "0"))));
+        assertEquals(1, store.getEntries("1").size());
+
+        store.replaceAll(Map.of("2", List.of(
+            new Entry(RecommendationStore.RATING_SOURCE, ReviewableType.SONG, "1"))));
+        assertTrue(store.getEntries("1").isEmpty());
+        assertEquals(1, store.getEntries("2").size());
+    }
+
+    @Test
+    public void testAddedLinesAndMissingItems() throws IOException {
+        assertTrue(store.getEntries("1").isEmpty());
+        db.getRecommendationsTable().addLine(
+            new String[]{"1", "0", RecommendationStore.RATING_SOURCE, "SONG", "1"});
+        db.getRecommendationsTable().addLine(
+            new String[]{"1", "1", RecommendationStore.RATING_SOURCE, "SONG", "42"});
+
+        assertEquals(2, store.getEntries("1").size());
+        List<Reviewable> recommendations = store.getRecommendations("1");
+        assertEquals(1, recommendations.size());
+        assertEquals("1", recommendations.get(0).getId());
+    }
+
+    private static void deleteDirectoryRecursively(Path dir) throws IOException {
+        if (Files.exists(dir)) {
+            try (var paths = Files.walk(dir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
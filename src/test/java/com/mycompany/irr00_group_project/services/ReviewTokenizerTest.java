@@ -0,0 +1,68 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ReviewTokenizer, TermDictionary and IntCountMap classes.
+ */
+public class ReviewTokenizerTest {
+
+    @Test
+    public void testSplitsLikeNonWordRegex() {
+        TermDictionary dictionary = new TermDictionary();
+        IntCountMap counts = new IntCountMap();
+        String text = "Love this ROCK song! rock_n_roll, 10/10... love it";
+        int words = ReviewTokenizer.tokenize(text, dictionary, counts);
+
+        int expected = 0;
+        for (String word : text.toLowerCase().split("\\W+")) {
+            if (!word.isEmpty()) {
+                expected++;
+                assertTrue(dictionary.idOf(word) >= 0, "Missing word " + word);
+            }
+        }
+        assertEquals(expected, words);
+        assertEquals(2, counts.get(dictionary.idOf("love")));
+        assertEquals(2, counts.get(dictionary.idOf("10")));
+        assertEquals(1, counts.get(dictionary.idOf("rock_n_roll")));
+        assertEquals(-1, dictionary.idOf("Love"));
+    }
+
+    @Test
+    public void testEmptyText() {
+        IntCountMap counts = new IntCountMap();
+        assertEquals(0, ReviewTokenizer.tokenize("", new TermDictionary(), counts));
+        assertEquals(0, ReviewTokenizer.tokenize("?! ...", new TermDictionary(), counts));
+        assertTrue(counts.isEmpty());
+    }
+
+    @Test
+    public void testDictionaryAssignsDenseIds() {
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionary.intern("word" + i));
+        }
+        assertEquals(1000, dictionary.size());
+        assertEquals(500, dictionary.intern("word500"));
+        assertEquals("word999", dictionary.word(999));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.word(1000));
+    }
+
+    @Test
+    public void testCountMapGrows() {
+        IntCountMap counts = new IntCountMap(2);
+        for (int key = 0; key < 1000; key++) {
+            counts.add(key, key);
+            counts.increment(key);
+        }
+        assertEquals(1000, counts.size());
+        assertEquals(501, counts.get(500));
+        assertEquals(0, counts.get(5000));
+        long[] sum = {0};
+        counts.forEach((key, count) -> sum[0] += count);
+        assertEquals(999 * 1000 / 2 + 1000, sum[0]);
+        assertThrows(IllegalArgumentException.class, () -> counts.increment(-1));
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SearchExecutor class.
+ * Verifies that only the result of the latest query is delivered.
+ */
+public class SearchExecutorTest {
+
+    private SearchExecutor<String> executor;
+    private List<String> delivered;
+
+    /**
+     * Creates an executor delivering results synchronously on the worker thread.
+     */
+    @BeforeEach
+    public void setUp() {
+        delivered = new CopyOnWriteArrayList<>();
+        executor = new SearchExecutor<>("test-search", Runnable::run);
+    }
+
+    /**
+     * Stops the background worker.
+     */
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDeliversResult() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(() -> "radiohead", result -> {
+            delivered.add(result);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("radiohead"), delivered);
+    }
+
+    @Test
+    public void testDeliversFailure() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        executor.submit(() -> {
+            throw new IllegalStateException("index unavailable");
+        }, delivered::add, failure -> {
+            failures.add(failure);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(delivered.isEmpty());
+        assertEquals("index unavailable", failures.get(0).getMessage());
+    }
+
+    @Test
+    public void testNewerQuerySuppressesOlderResult() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            Thread.sleep(10_000);
+            return "stale";
+        }, delivered::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.submit(() -> "fresh", result -> {
+            delivered.add(result);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("fresh"), delivered);
+    }
+
+    @Test
+    public void testCancelSuppressesResult() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> {
+            release.await();
+            return "cancelled";
+        }, delivered::add);
+        executor.cancel();
+        release.countDown();
+
+        // A follow-up query proves the worker has moved past the cancelled one.
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(() -> "next", result -> {
+            delivered.add(result);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("next"), delivered);
+    }
+}
@@ -0,0 +1,85 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.irr00_group_project.services.SearchMetrics.Phase;
+import com.mycompany.irr00_group_project.services.SearchMetrics.SlowQuery;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SearchMetrics, SearchTrace and LatencyHistogram classes.
+ */
+public class SearchMetricsTest {
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMicros(99));
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100_000); // 100 microseconds
+        }
+        histogram.record(50_000_000); // 50 milliseconds
+        assertEquals(100, histogram.getCount());
+        assertTrue(histogram.getPercentileMicros(50) >= 100);
+        assertTrue(histogram.getPercentileMicros(50) < 200);
+        assertEquals(50_000, histogram.getPercentileMicros(100));
+        assertEquals(50_000, histogram.getMaxMicros());
+    }
+
+    @Test
+    public void testHistogramRejectsInvalidPercentile() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new LatencyHistogram().getPercentileMicros(101));
+    }
+
+    @Test
+    public void testTraceRecordsPhasesAndCandidates() {
+        SearchMetrics metrics = new SearchMetrics();
+        metrics.setSlowQueryThresholdMillis(Long.MAX_VALUE);
+        SearchTrace trace = metrics.startTrace("radio");
+        trace.endPhase(Phase.INDEX_LOOKUP, System.nanoTime() - 2_000_000);
+        trace.addCandidates(12);
+        trace.addResults(5);
+        trace.finish();
+        trace.finish();
+
+        assertEquals(1, metrics.getTotalHistogram().getCount());
+        assertEquals(1, metrics.getHistogram(Phase.INDEX_LOOKUP).getCount());
+        assertEquals(0, metrics.getHistogram(Phase.RENDER).getCount());
+        assertTrue(metrics.getSlowQueries().isEmpty());
+    }
+
+    @Test
+    public void testSlowQueriesAreLogged() {
+        SearchMetrics metrics = new SearchMetrics();
+        metrics.setSlowQueryThresholdMillis(1);
+        SearchTrace trace = metrics.startTrace("the");
+        trace.endPhase(Phase.HYDRATION, System.nanoTime() - 5_000_000);
+        trace.addCandidates(40);
+        trace.addResults(15);
+        trace.markHandOff();
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        trace.finish();
+
+        List<SlowQuery> slowQueries = metrics.getSlowQueries();
+        assertEquals(1, slowQueries.size());
+        assertEquals("the", slowQueries.get(0).query());
+        assertEquals(40, slowQueries.get(0).candidates());
+        assertEquals(15, slowQueries.get(0).results());
+        assertTrue(slowQueries.get(0).phaseMillis().get(Phase.HYDRATION) >= 5);
+        assertEquals(1, metrics.getHistogram(Phase.RENDER).getCount());
+    }
+
+    @Test
+    public void testThresholdMustNotBeNegative() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new SearchMetrics().setSlowQueryThresholdMillis(-1));
+    }
+}
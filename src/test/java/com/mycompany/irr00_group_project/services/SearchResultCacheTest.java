@@ -0,0 +1,88 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SearchResultCache class.
+ * Verifies exact hits, prefix refinement, LRU eviction and invalidation.
+ */
+public class SearchResultCacheTest {
+
+    private SearchResultCache<String> cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new SearchResultCache<>(2, (results, query) -> results.stream()
+            .filter(result -> result.contains(query))
+            .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testMissThenHit() {
+        assertNull(cache.get(ReviewableType.SONG, "radio"));
+        cache.put(ReviewableType.SONG, "radio", List.of("radiohead"));
+        assertEquals(List.of("radiohead"), cache.get(ReviewableType.SONG, "radio"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testTypesAreCachedSeparately() {
+        cache.put(ReviewableType.SONG, "radio", List.of("radio song"));
+        assertNull(cache.get(ReviewableType.ARTIST, "radio"));
+    }
+
+    @Test
+    public void testRefinesCachedPrefix() {
+        cache.put(ReviewableType.ARTIST, "radi", List.of("radiohead", "radial", "paradise"));
+        assertEquals(List.of("radiohead"), cache.get(ReviewableType.ARTIST, "radio"));
+        assertEquals(1, cache.getRefinements());
+        // The refined result is cached under the longer query as well.
+        assertEquals(List.of("radiohead"), cache.get(ReviewableType.ARTIST, "radio"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        cache.put(ReviewableType.SONG, "a", List.of("a"));
+        cache.put(ReviewableType.SONG, "b", List.of("b"));
+        cache.get(ReviewableType.SONG, "a");
+        cache.put(ReviewableType.SONG, "c", List.of("c"));
+        assertEquals(2, cache.size());
+        assertNull(cache.get(ReviewableType.SONG, "b"));
+        assertNotNull(cache.get(ReviewableType.SONG, "a"));
+    }
+
+    @Test
+    public void testInvalidateDropsEntries() {
+        cache.put(ReviewableType.SONG, "radio", List.of("radiohead"));
+        cache.invalidate();
+        assertNull(cache.get(ReviewableType.SONG, "radio"));
+    }
+
+    @Test
+    public void testPutAfterInvalidateDropsStaleResults() {
+        long generation = cache.getGeneration();
+        cache.invalidate();
+        assertFalse(cache.put(ReviewableType.SONG, "radio", List.of("radiohead"), generation));
+        assertNull(cache.get(ReviewableType.SONG, "radio"));
+
+        assertTrue(cache.put(ReviewableType.SONG, "radio", List.of("radiohead"),
+            cache.getGeneration()));
+        assertNotNull(cache.get(ReviewableType.SONG, "radio"));
+    }
+
+    @Test
+    public void testNormalise() {
+        assertEquals("radio head", SearchResultCache.normalise("  Radio Head "));
+        assertEquals("", SearchResultCache.normalise(null));
+    }
+}
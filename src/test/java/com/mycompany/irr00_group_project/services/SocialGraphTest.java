@@ -0,0 +1,120 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SocialGraph class.
+ * Verifies follow lookups and that the graph follows the follows table.
+ */
+public class SocialGraphTest {
+    private static final String[] HEADERS = { "id", "follower_id", "followed_id" };
+    private static final String TEST_FILE_PATH =
+        "src/test/resources/temporary-test-files/graph_follows.csv";
+
+    private Table follows;
+    private SocialGraph graph;
+
+    /**
+     * Creates a follows table with a few follows and a graph over it.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        new File(TEST_FILE_PATH).getParentFile().mkdirs();
+        follows = new Table(HEADERS, TEST_FILE_PATH);
+        follows.addLine(new String[]{ "1", "2" });
+        follows.addLine(new String[]{ "2", "1" });
+        follows.addLine(new String[]{ "1", "3" });
+        graph = new SocialGraph(follows);
+    }
+
+    /**
+     * Deletes the follows file.
+     */
+    @AfterEach
+    public void tearDown() {
+        new File(TEST_FILE_PATH).delete();
+    }
+
+    @Test
+    public void testFollowsIsDirected() throws IOException {
+        assertTrue(graph.follows(1, 2));
+        assertTrue(graph.follows(1, 3));
+        assertFalse(graph.follows(3, 1));
+        assertFalse(graph.follows(2, 3));
+        assertFalse(graph.follows(-1, 2));
+        assertEquals(3, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testFollowAndUnfollowUpdateTheGraph() throws IOException {
+        assertFalse(graph.follows(3, 1));
+        follows.addLine(new String[]{ "3", "1" });
+        assertTrue(graph.follows(3, 1));
+
+        follows.deleteLine(follows.getLineId(new String[]{ "1", "2" }));
+        assertFalse(graph.follows(1, 2));
+        assertTrue(graph.follows(2, 1));
+        assertTrue(graph.follows(1, 3));
+    }
+
+    @Test
+    public void testDuplicateLineKeepsEdgeUntilLastCopyIsDeleted() throws IOException {
+        graph.follows(1, 2);
+        follows.addLine(new String[]{ "1", "2" });
+        assertEquals(3, graph.getEdgeCount());
+
+        follows.deleteLine("0");
+        assertTrue(graph.follows(1, 2));
+        follows.deleteLine("3");
+        assertFalse(graph.follows(1, 2));
+    }
+
+    @Test
+    public void testFolloweesInFollowOrder() throws IOException {
+        assertArrayEquals(new int[]{ 2, 3 }, graph.followees(1));
+        assertArrayEquals(new int[0], graph.followees(3));
+
+        follows.addLine(new String[]{ "1", "2" });
+        follows.addLine(new String[]{ "1", "0" });
+        assertArrayEquals(new int[]{ 2, 3, 0 }, graph.followees(1));
+        follows.deleteLine(follows.getLineId(new String[]{ "1", "3" }));
+        assertArrayEquals(new int[]{ 2, 0 }, graph.followees(1));
+    }
+
+    @Test
+    public void testManyEdgesSurviveGrowthAndRemoval() throws IOException {
+        File bigFile = new File(TEST_FILE_PATH + ".big");
+        bigFile.delete();
+        Table table = new Table(HEADERS, bigFile.getPath());
+
+        Random random = new Random(7);
+        boolean[][] expected = new boolean[40][40];
+        SocialGraph big = new SocialGraph(table);
+        big.getEdgeCount();
+        for (int i = 0; i < 300; i++) {
+            int a = random.nextInt(40);
+            int b = random.nextInt(40);
+            String lineId = table.getLineId(new String[]{ "" + a, "" + b });
+            if (lineId == null) {
+                table.addLine(new String[]{ "" + a, "" + b });
+            } else {
+                table.deleteLine(lineId);
+            }
+            expected[a][b] = !expected[a][b];
+        }
+        for (int a = 0; a < 40; a++) {
+            for (int b = 0; b < 40; b++) {
+                assertEquals(expected[a][b], big.follows(a, b), a + " -> " + b);
+            }
+        }
+        bigFile.delete();
+    }
+}
@@ -0,0 +1,72 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SparseVector class.
+ */
+public class SparseVectorTest {
+
+    @Test
+    public void testOfSortsAndDropsZeros() {
+        SparseVector vector = SparseVector.of(new int[]{ 7, 2, 5 }, new float[]{ 1f, 3f, 0f });
+        assertEquals(2, vector.size());
+        assertEquals(2, vector.termId(0));
+        assertEquals(3f, vector.weight(0));
+        assertEquals(7, vector.termId(1));
+        assertEquals(Math.sqrt(10), vector.norm(), 1e-6);
+    }
+
+    @Test
+    public void testOfRejectsDuplicateIds() {
+        assertThrows(IllegalArgumentException.class,
+            () -> SparseVector.of(new int[]{ 1, 1 }, new float[]{ 1f, 0f }));
+    }
+
+    @Test
+    public void testDotMergesTermIds() {
+        SparseVector a = SparseVector.of(new int[]{ 1, 4, 9 }, new float[]{ 1f, 2f, 3f });
+        SparseVector b = SparseVector.of(new int[]{ 0, 4, 9, 12 }, new float[]{ 5f, 1f, 2f, 8f });
+        assertEquals(8.0, a.dot(b), 1e-9);
+        assertEquals(a.dot(b), b.dot(a), 1e-9);
+    }
+
+    @Test
+    public void testCosine() {
+        SparseVector a = SparseVector.of(new int[]{ 1 }, new float[]{ 2f });
+        SparseVector b = SparseVector.of(new int[]{ 1, 2 }, new float[]{ 1f, 1f });
+        assertEquals(1.0, a.cosine(a), 1e-9);
+        assertEquals(Math.sqrt(0.5), a.cosine(b), 1e-6);
+        assertTrue(Double.isNaN(a.cosine(SparseVector.EMPTY)));
+    }
+
+    @Test
+    public void testAverage() {
+        SparseVector a = SparseVector.of(new int[]{ 1, 3 }, new float[]{ 2f, 4f });
+        SparseVector b = SparseVector.of(new int[]{ 3, 5 }, new float[]{ 2f, 6f });
+        SparseVector average = SparseVector.average(List.of(a, b));
+        assertEquals("{1=1.0, 3=3.0, 5=3.0}", average.toString());
+        assertTrue(SparseVector.average(List.of()).isEmpty());
+    }
+
+    @Test
+    public void testNormalizeGivesUnitLength() {
+        SparseVector vector = SparseVector.of(new int[]{ 1, 4 }, new float[]{ 3f, 4f });
+        SparseVector unit = vector.normalize();
+        assertEquals(1.0, unit.norm(), 1e-6);
+        assertEquals(0.6f, unit.weight(0), 1e-6f);
+        assertEquals(vector.cosine(unit), unit.dot(unit), 1e-6);
+        assertSame(SparseVector.EMPTY, SparseVector.EMPTY.normalize());
+    }
+
+    @Test
+    public void testDotWithDenseArray() {
+        SparseVector vector = SparseVector.of(new int[]{ 0, 2, 9 }, new float[]{ 1f, 2f, 5f });
+        // Term 9 lies beyond the dense array and counts as zero.
+        assertEquals(1f * 3f + 2f * 4f, vector.dot(new float[]{ 3f, 7f, 4f }), 1e-6f);
+    }
+}
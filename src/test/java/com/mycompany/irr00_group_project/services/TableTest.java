@@ -129,6 +129,30 @@ public class TableTest {
         cleanupTableFile();
     }
 
+    @Test
+    public void testReplaceAllLines() throws IOException {
+        table.addLine(new String[]{ "alice", "alice@example.com", "avatar1.png" });
+        List<TableChange> changes = new ArrayList<>();
+        table.addChangeListener(changes::add);
+
+        table.replaceAllLines(List.of(
+            new String[]{ "bob", "bob@example.com", "avatar2.png" },
+            new String[]{ "car,ol", "carol@example.com", "avatar3.png" }));
+
+        List<Map<String, String>> all = table.getAllLines();
+        assertEquals(2, all.size());
+        assertEquals("0", all.get(0).get("id"));
+        assertEquals("bob", all.get(0).get("username"));
+        assertEquals("car,ol", all.get(1).get("username"));
+        assertEquals(1, changes.size());
+        assertEquals(TableChange.Kind.REPLACED, changes.get(0).getKind());
+
+        String[] dave = { "dave", "dave@example.com", "avatar4.png" };
+        table.addLine(dave);
+        assertEquals("2", table.getLineId(dave));
+        cleanupTableFile();
+    }
+
     @Test
     public void testAddLineWithComma() throws IOException {
         String[] user = { "ali,ce", "ali,ce@example.com", "avatar,1.png" };
@@ -280,4 +304,16 @@ public class TableTest {
         assertThrows(IllegalArgumentException.class, () -> table.getLineId(badLine));
         cleanupTableFile();
     }
+
+    @Test
+    public void testChangeListenersAreNotified() throws IOException {
+        int[] notifications = {0};
+        table.addChangeListener(() -> notifications[0]++);
+        table.addLine(new String[]{ "alice", "alice@example.com", "avatar1.png" });
+        table.changeLine("0", new String[]{ "alice", "new@example.com", "avatar1.png" });
+        table.deleteLine("0");
+        assertEquals(3, notifications[0]);
+        assertThrows(IllegalArgumentException.class, () -> table.addChangeListener((Runnable) null));
+        cleanupTableFile();
+    }
 }
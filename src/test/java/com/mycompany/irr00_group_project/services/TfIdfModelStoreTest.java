@@ -0,0 +1,90 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.irr00_group_project.services.TfIdfModelStore.ItemCounts;
+import com.mycompany.irr00_group_project.services.TfIdfModelStore.StoredModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TfIdfModelStore class.
+ */
+public class TfIdfModelStoreTest {
+    private static final Path TEST_DIR = Paths.get("src/test/resources/temporary-test-files");
+
+    private Path modelFile;
+    private Path reviewsFile;
+    private TfIdfModelStore store;
+
+    /**
+     * Creates a reviews file and a store for it.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(TEST_DIR);
+        modelFile = TEST_DIR.resolve("store_test_model.bin");
+        reviewsFile = TEST_DIR.resolve("store_test_reviews.csv");
+        Files.writeString(reviewsFile, "id,user_id,content\n0,1,Great song\n");
+        store = new TfIdfModelStore(modelFile, reviewsFile);
+    }
+
+    /**
+     * Deletes the files of the test.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(modelFile);
+        Files.deleteIfExists(reviewsFile);
+    }
+
+    private StoredModel sampleModel() {
+        return new StoredModel(2, List.of("great", "song"), new double[]{ 0.5, 0.0 },
+            Map.of("0::SONG", new ItemCounts(2, new int[]{ 0, 1 }, new int[]{ 1, 1 })));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        store.save(sampleModel());
+        StoredModel loaded = store.load();
+        assertNotNull(loaded);
+        assertEquals(2, loaded.totalDocs());
+        assertEquals(List.of("great", "song"), loaded.words());
+        assertArrayEquals(new double[]{ 0.5, 0.0 }, loaded.idf());
+        ItemCounts item = loaded.items().get("0::SONG");
+        assertEquals(2, item.total());
+        assertArrayEquals(new int[]{ 0, 1 }, item.termIds());
+        assertArrayEquals(new int[]{ 1, 1 }, item.counts());
+    }
+
+    @Test
+    public void testMissingModelIsNotLoaded() {
+        assertNull(store.load());
+    }
+
+    @Test
+    public void testModelIsIgnoredAfterReviewsChange() throws IOException {
+        store.save(sampleModel());
+        Files.writeString(reviewsFile, "id,user_id,content\n0,1,Great song\n1,2,Meh\n");
+        Files.setLastModifiedTime(reviewsFile, FileTime.fromMillis(0));
+        assertNull(store.load());
+    }
+
+    @Test
+    public void testCorruptModelIsIgnored() throws IOException {
+        Files.write(modelFile, new byte[]{ 1, 2, 3 });
+        assertNull(store.load());
+        store.delete();
+        assertFalse(Files.exists(modelFile));
+    }
+}
@@ -0,0 +1,49 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TopK class.
+ */
+public class TopKTest {
+
+    @Test
+    public void testSelectsBestScoresInOrder() {
+        float[] scores = {0.5f, 3f, -1f, 2f, Float.NEGATIVE_INFINITY, 2.5f};
+        assertArrayEquals(new int[]{1, 5, 3}, TopK.select(scores, 3));
+        assertArrayEquals(new int[]{1, 5, 3, 0, 2, 4}, TopK.select(scores, 10));
+        assertEquals(0, TopK.select(scores, 0).length);
+        assertThrows(IllegalArgumentException.class, () -> TopK.select(scores, -1));
+    }
+
+    @Test
+    public void testTiesGoToHigherPriorityThenLowerIndex() {
+        float[] scores = {1f, 1f, 1f, 1f};
+        assertArrayEquals(new int[]{0, 1}, TopK.select(scores, 2));
+        assertArrayEquals(new int[]{2, 3, 0}, TopK.select(scores, new int[]{0, 0, 4, 4}, 3));
+    }
+
+    @Test
+    public void testMatchesStableSortOnRandomScores() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            float[] scores = new float[200];
+            for (int i = 0; i < scores.length; i++) {
+                // Few distinct values, so there are many ties.
+                scores[i] = random.nextInt(10);
+            }
+            int k = 1 + random.nextInt(50);
+            int[] expected = IntStream.range(0, scores.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> -scores[i]))
+                .limit(k).mapToInt(Integer::intValue).toArray();
+            assertEquals(Arrays.toString(expected), Arrays.toString(TopK.select(scores, k)));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mycompany.irr00_group_project.services;
+
+import com.mycompany.irr00_group_project.models.reviewables.ReviewableType;
+import com.mycompany.irr00_group_project.services.UserReviewIndex.Rating;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UserReviewIndex class.
+ * Verifies rating lookups by user and that the index follows the reviews table.
+ */
+public class UserReviewIndexTest {
+    private static final String[] HEADERS = { "id", "user_id", "content", "created_at",
+        "target_id", "rating", "reviewable_type" };
+    private static final String TEST_FILE_PATH =
+        "src/test/resources/temporary-test-files/indexed_reviews.csv";
+
+    private Table reviews;
+    private UserReviewIndex index;
+
+    /**
+     * Creates a reviews table with a few reviews and an index over it.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        new File(TEST_FILE_PATH).getParentFile().mkdirs();
+        reviews = new Table(HEADERS, TEST_FILE_PATH);
+        reviews.addLine(new String[]{ "1", "Great", "2025-01-01", "7", "5", "SONG" });
+        reviews.addLine(new String[]{ "2", "Meh", "2025-01-01", "7", "2", "SONG" });
+        reviews.addLine(new String[]{ "1", "Fine", "2025-01-01", "3", "4", "ALBUM" });
+        index = new UserReviewIndex(reviews);
+    }
+
+    /**
+     * Deletes the reviews file.
+     */
+    @AfterEach
+    public void tearDown() {
+        new File(TEST_FILE_PATH).delete();
+    }
+
+    @Test
+    public void testRatingsByUser() throws IOException {
+        assertEquals(List.of(new Rating(ReviewableType.SONG, "7", 5),
+            new Rating(ReviewableType.ALBUM, "3", 4)), index.getRatings("1"));
+        assertEquals(List.of(new Rating(ReviewableType.SONG, "7", 2)), index.getRatings("2"));
+        assertTrue(index.getRatings("9").isEmpty());
+
+        List<Rating> all = new ArrayList<>();
+        index.forEachRating(all::add);
+        assertEquals(3, all.size());
+    }
+
+    @Test
+    public void testFollowsTableChanges() throws IOException {
+        index.getRatings("1");
+        reviews.addLine(new String[]{ "2", "Wow", "2025-01-02", "8", "5", "SONG" });
+        assertEquals(2, index.getRatings("2").size());
+
+        reviews.changeLine("1", new String[]{ "2", "Better", "2025-01-01", "7", "4", "SONG" });
+        assertEquals(List.of(new Rating(ReviewableType.SONG, "8", 5),
+            new Rating(ReviewableType.SONG, "7", 4)), index.getRatings("2"));
+
+        reviews.deleteLine("0");
+        assertEquals(List.of(new Rating(ReviewableType.ALBUM, "3", 4)), index.getRatings("1"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.mycompany.irr00_group_project.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UsernameIndex class.
+ * Verifies prefix and substring lookups and that the index follows the users table.
+ */
+public class UsernameIndexTest {
+    private static final String[] HEADERS = { "id", "username", "email", "last_login" };
+    private static final String TEST_FILE_PATH =
+        "src/test/resources/temporary-test-files/indexed_users.csv";
+
+    private Table users;
+    private UsernameIndex index;
+
+    /**
+     * Creates a users table with a few users and an index over it.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        new File(TEST_FILE_PATH).getParentFile().mkdirs();
+        users = new Table(HEADERS, TEST_FILE_PATH);
+        users.addLine(new String[]{ "malachi", "malachi@example.com", "" });
+        users.addLine(new String[]{ "Alice", "alice@example.com", "" });
+        users.addLine(new String[]{ "bob", "bob@example.com", "" });
+        users.addLine(new String[]{ "alex", "alex@example.com", "" });
+        index = new UsernameIndex(users);
+    }
+
+    /**
+     * Deletes the users file.
+     */
+    @AfterEach
+    public void tearDown() {
+        new File(TEST_FILE_PATH).delete();
+    }
+
+    private List<String> usernames(List<Map<String, String>> lines) {
+        List<String> names = new ArrayList<>();
+        for (Map<String, String> line : lines) {
+            names.add(line.get("username"));
+        }
+        return names;
+    }
+
+    @Test
+    public void testPrefixMatchesComeFirstInAlphabeticalOrder() throws IOException {
+        assertEquals(List.of("alex", "Alice", "malachi"),
+            usernames(index.search("al", Integer.MAX_VALUE, null)));
+    }
+
+    @Test
+    public void testSubstringMatchUsesTrigrams() throws IOException {
+        assertEquals(List.of("malachi"), usernames(index.search("lach", 10, null)));
+        assertTrue(index.search("xyz", 10, null).isEmpty());
+    }
+
+    @Test
+    public void testLimitAndExclusion() throws IOException {
+        assertEquals(List.of("alex"), usernames(index.search("al", 1, null)));
+        // Alice has id 1 in the table.
+        assertEquals(List.of("alex", "malachi"), usernames(index.search("al", 10, "1")));
+    }
+
+    @Test
+    public void testReturnsIdAndEmail() throws IOException {
+        Map<String, String> bob = index.search("bob", 10, null).get(0);
+        assertEquals("2", bob.get("id"));
+        assertEquals("bob@example.com", bob.get("email"));
+    }
+
+    @Test
+    public void testFollowsTableChanges() throws IOException {
+        assertEquals(3, index.search("al", 10, null).size());
+
+        users.addLine(new String[]{ "albert", "albert@example.com", "" });
+        assertEquals(List.of("albert", "alex", "Alice", "malachi"),
+            usernames(index.search("al", 10, null)));
+
+        // A login only changes last_login and keeps the user searchable.
+        users.changeLine("2", new String[]{ "bob", "bob@example.com", "2025-01-01" });
+        assertEquals(List.of("bob"), usernames(index.search("bo", 10, null)));
+
+        users.changeLine("2", new String[]{ "robert", "bob@example.com", "" });
+        assertTrue(index.search("bo", 10, null).isEmpty());
+        assertEquals(List.of("robert"), usernames(index.search("rob", 10, null)));
+
+        users.deleteLine("3");
+        assertFalse(usernames(index.search("al", 10, null)).contains("alex"));
+    }
+
+    @Test
+    public void testBuildKeepsEqualNamesInInsertionOrder() throws IOException {
+        users.addLine(new String[]{ "alex", "second@example.com", "" });
+        users.addLine(new String[]{ "ALEX", "third@example.com", "" });
+        // A fresh index is built in one pass over the table.
+        UsernameIndex built = new UsernameIndex(users);
+
+        List<String> emails = new ArrayList<>();
+        for (Map<String, String> line : built.search("alex", 10, null)) {
+            emails.add(line.get("email"));
+        }
+        assertEquals(List.of("alex@example.com", "second@example.com", "third@example.com"),
+            emails);
+    }
+
+    @Test
+    public void testAddingNameThatSortsLast() throws IOException {
+        assertEquals(3, index.search("al", 10, null).size());
+
+        users.addLine(new String[]{ "zed", "zed@example.com", "" });
+        users.addLine(new String[]{ "zoe", "zoe@example.com", "" });
+        assertEquals(List.of("zed", "zoe"), usernames(index.search("z", 10, null)));
+        assertEquals(List.of("alex", "Alice", "malachi"),
+            usernames(index.search("al", 10, null)));
+    }
+
+    @Test
+    public void testShortQueriesMatchSubstrings() throws IOException {
+        // "ch" only occurs inside "malachi"; "b" starts "bob" and occurs in no other name.
+        assertEquals(List.of("malachi"), usernames(index.search("ch", 10, null)));
+        assertEquals(List.of("bob"), usernames(index.search("b", 10, null)));
+        // No name starts with "l", so the matches come in the order the users were added.
+        assertEquals(List.of("malachi", "Alice", "alex"),
+            usernames(index.search("l", 10, null)));
+        assertTrue(index.search("q", 10, null).isEmpty());
+    }
+}